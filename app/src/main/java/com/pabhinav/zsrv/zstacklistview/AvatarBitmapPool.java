@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import android.graphics.Bitmap;
+
+import java.util.ArrayDeque;
+
+/**
+ * Pool of mutable avatar sized bitmaps, reused instead of allocating a bitmap per decoded avatar.
+ * <p>
+ *     All avatars of {@link AvatarLoader} are square bitmaps of the name plate size, so any
+ *     pooled bitmap can hold any avatar : it is drawn into when an avatar is scaled down
+ *     from its source, or given as {@link android.graphics.BitmapFactory.Options#inBitmap}
+ *     when a thumbnail is decoded from {@link AvatarDiskCache}. Avatars go back to the pool
+ *     once evicted from memory and shown by no tile.
+ * </p>
+ * <p>
+ *     Thread safe, bitmaps are taken on background threads and given back on the main thread.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public class AvatarBitmapPool {
+
+    /** Default number of pooled bitmaps, a few screens of avatars are kept in memory anyway **/
+    public static final int DEFAULT_MAX_SIZE = 8;
+
+    /** Width and height of pooled bitmaps, in pixels **/
+    private final int mSize;
+
+    /** Maximum number of pooled bitmaps **/
+    private final int mMaxSize;
+
+    /** Pooled bitmaps, most recently given back last **/
+    private final ArrayDeque<Bitmap> mBitmaps = new ArrayDeque<>();
+
+    /**
+     * Constructor for this class.
+     *
+     * @param size width and height of pooled bitmaps, in pixels.
+     * @param maxSize maximum number of pooled bitmaps.
+     */
+    public AvatarBitmapPool(int size, int maxSize) {
+        mSize = size;
+        mMaxSize = maxSize;
+    }
+
+    /**
+     * @return width and height of pooled bitmaps, in pixels.
+     */
+    public int getSize() {
+        return mSize;
+    }
+
+    /**
+     * Take a bitmap out of the pool.
+     *
+     * @return a transparent mutable bitmap, or null if the pool is empty.
+     */
+    public Bitmap get() {
+        Bitmap bitmap;
+        synchronized (mBitmaps) {
+            bitmap = mBitmaps.pollLast();
+        }
+        if (bitmap != null) {
+            bitmap.eraseColor(0);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Take a bitmap out of the pool, or allocate one.
+     *
+     * @return a transparent mutable bitmap.
+     */
+    public Bitmap getOrCreate() {
+        Bitmap bitmap = get();
+        return (bitmap != null) ? bitmap : Bitmap.createBitmap(mSize, mSize, Bitmap.Config.ARGB_8888);
+    }
+
+    /**
+     * Give back a bitmap no longer drawn anywhere. It is recycled if it does not
+     * fit the pool, or if the pool is full.
+     *
+     * @param bitmap bitmap to reuse.
+     */
+    public void put(Bitmap bitmap) {
+        if (bitmap.isRecycled()) {
+            return;
+        }
+        if (bitmap.isMutable() && bitmap.getWidth() == mSize && bitmap.getHeight() == mSize
+                && bitmap.getConfig() == Bitmap.Config.ARGB_8888) {
+            synchronized (mBitmaps) {
+                if (mBitmaps.size() < mMaxSize) {
+                    mBitmaps.addLast(bitmap);
+                    return;
+                }
+            }
+        }
+        bitmap.recycle();
+    }
+
+    /**
+     * Recycle all pooled bitmaps, e.g. when memory runs low.
+     */
+    public void clear() {
+        synchronized (mBitmaps) {
+            for (Bitmap bitmap : mBitmaps) {
+                bitmap.recycle();
+            }
+            mBitmaps.clear();
+        }
+    }
+}
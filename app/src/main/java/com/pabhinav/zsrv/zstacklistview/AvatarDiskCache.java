@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * On disk cache of avatar thumbnails, already scaled down and cropped to the name plate size.
+ * <p>
+ *     Decoding a camera sized picture takes tens of milliseconds even with downsampling,
+ *     decoding its thumbnail takes well under one. Each thumbnail is a PNG file in the
+ *     app cache directory, named after a hash of its source uri and size, written to a
+ *     temporary file first and renamed, so that a half written thumbnail is never read.
+ * </p>
+ * <p>
+ *     Files are kept in least recently used order through their last modified time,
+ *     touched on every read. Once the cache grows past its budget, it is trimmed down
+ *     to three quarters of it, oldest files first. Thumbnails are decoded into bitmaps
+ *     taken from an {@link AvatarBitmapPool}, instead of allocating a bitmap per read.
+ * </p>
+ * <p>
+ *     Thread safe, used from background threads only.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public class AvatarDiskCache {
+
+    /** Default size budget of the cache, in bytes **/
+    public static final long DEFAULT_MAX_BYTES = 8L * 1024 * 1024;
+
+    /** Name of the cache directory, in the app cache directory **/
+    private static final String DIRECTORY_NAME = "avatars";
+
+    /** Suffix of thumbnail files being written **/
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    /** Oldest files first **/
+    private static final Comparator<File> LEAST_RECENTLY_USED_FIRST = new Comparator<File>() {
+        @Override
+        public int compare(File lhs, File rhs) {
+            long lhsTime = lhs.lastModified();
+            long rhsTime = rhs.lastModified();
+            return (lhsTime < rhsTime) ? -1 : ((lhsTime == rhsTime) ? 0 : 1);
+        }
+    };
+
+    /** Directory holding thumbnail files **/
+    private final File mDirectory;
+
+    /** Size budget, in bytes **/
+    private final long mMaxBytes;
+
+    /** Source of bitmaps thumbnails are decoded into **/
+    private final AvatarBitmapPool mBitmapPool;
+
+    /** Total size of thumbnail files, -1 until the directory is first listed **/
+    private long mSize = -1;
+
+    /**
+     * Constructor for this class. The directory is not touched until first use.
+     *
+     * @param cacheDirectory app cache directory.
+     * @param maxBytes size budget, in bytes.
+     * @param bitmapPool source of bitmaps thumbnails are decoded into.
+     */
+    public AvatarDiskCache(File cacheDirectory, long maxBytes, AvatarBitmapPool bitmapPool) {
+        mDirectory = new File(cacheDirectory, DIRECTORY_NAME);
+        mMaxBytes = maxBytes;
+        mBitmapPool = bitmapPool;
+    }
+
+    /**
+     * Decode the thumbnail of an avatar.
+     *
+     * @param uri source uri of the avatar.
+     * @return a mutable bitmap of the pool size, or null if there is no thumbnail.
+     */
+    public synchronized Bitmap get(String uri) {
+        File file = fileOf(uri);
+        if (!file.isFile()) {
+            return null;
+        }
+        int size = mBitmapPool.getSize();
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inMutable = true;
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        options.inBitmap = mBitmapPool.get();
+        Bitmap bitmap;
+        try {
+            bitmap = BitmapFactory.decodeFile(file.getPath(), options);
+        } catch (IllegalArgumentException e) {
+
+            /** Pooled bitmap refused, decode into a new one **/
+            mBitmapPool.put(options.inBitmap);
+            options.inBitmap = null;
+            bitmap = BitmapFactory.decodeFile(file.getPath(), options);
+        }
+        if (bitmap == null || bitmap.getWidth() != size || bitmap.getHeight() != size) {
+            if (options.inBitmap != null) {
+                mBitmapPool.put(options.inBitmap);
+            }
+            if (bitmap != null && bitmap != options.inBitmap) {
+                bitmap.recycle();
+            }
+            delete(file);
+            return null;
+        }
+
+        /** Most recently used **/
+        file.setLastModified(System.currentTimeMillis());
+        return bitmap;
+    }
+
+    /**
+     * Store the thumbnail of an avatar, replacing any previous one.
+     *
+     * @param uri source uri of the avatar.
+     * @param thumbnail avatar scaled down to the pool size.
+     */
+    public synchronized void put(String uri, Bitmap thumbnail) {
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+            return;
+        }
+        File file = fileOf(uri);
+        File temporaryFile = new File(mDirectory, file.getName() + TEMPORARY_SUFFIX);
+        boolean written = false;
+        try {
+            OutputStream out = new BufferedOutputStream(new FileOutputStream(temporaryFile));
+            try {
+                written = thumbnail.compress(Bitmap.CompressFormat.PNG, 100, out);
+            } finally {
+                out.close();
+            }
+            if (written) {
+                long previousLength = file.length();
+                written = temporaryFile.renameTo(file);
+                if (written && mSize >= 0) {
+                    mSize += file.length() - previousLength;
+                }
+            }
+        } catch (IOException e) {
+            Log.e("Avatar cache : ", "Cannot write " + file, e);
+        } finally {
+            if (!written) {
+                temporaryFile.delete();
+            }
+        }
+        trimToBudget();
+    }
+
+    /**
+     * Delete all thumbnails.
+     */
+    public synchronized void clear() {
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        mSize = 0;
+    }
+
+    /**
+     * Delete least recently used thumbnails, once the cache is over its budget.
+     */
+    private void trimToBudget() {
+        if (mSize >= 0 && mSize <= mMaxBytes) {
+            return;
+        }
+        File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        mSize = 0;
+        for (File file : files) {
+            mSize += file.length();
+        }
+        if (mSize <= mMaxBytes) {
+            return;
+        }
+
+        /** Trim below the budget, not to list the directory again on the next write **/
+        Arrays.sort(files, LEAST_RECENTLY_USED_FIRST);
+        for (int i = 0; i < files.length && mSize > mMaxBytes * 3 / 4; i++) {
+            delete(files[i]);
+        }
+    }
+
+    private void delete(File file) {
+        long length = file.length();
+        if (file.delete() && mSize >= 0) {
+            mSize -= length;
+        }
+    }
+
+    /**
+     * @return thumbnail file of an avatar, named after the hash of its uri and size.
+     */
+    File fileOf(String uri) {
+        return new File(mDirectory, md5Hex(uri + "@" + mBitmapPool.getSize()));
+    }
+
+    private static String md5Hex(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes("UTF-8"));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException | UnsupportedEncodingException e) {
+
+            /** Every platform has both **/
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,418 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import android.content.ComponentCallbacks2;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.net.Uri;
+import android.util.Log;
+import android.util.LruCache;
+import android.util.TypedValue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * Loads avatars shown on name plates, from local files or content uris.
+ * <p>
+ *     Avatars are decoded on a background thread (see {@link ListExecutors}), downsampled
+ *     by a power of two while decoding, then center cropped and scaled to a square of the
+ *     name plate size (50dp). Circular clipping happens when drawing, see
+ *     {@link CircleDrawable#setAvatar(Bitmap)}, so every avatar has the same size and
+ *     its bitmap can be reused for any other avatar, through an {@link AvatarBitmapPool}.
+ * </p>
+ * <p>
+ *     Decoded avatars are kept in a memory {@link LruCache} bounded in bytes, and their
+ *     thumbnails in an {@link AvatarDiskCache}, so that a source picture is decoded once
+ *     for good. An avatar evicted from memory goes back to the pool as soon as no tile
+ *     shows it anymore. Sources which cannot be decoded are remembered, and not tried
+ *     again.
+ * </p>
+ * <p>
+ *     A tile shows its name plate letter until its avatar is ready, and keeps it if the
+ *     row has no avatar, or if it cannot be decoded. Requests are cancelled when their
+ *     tile is rebound or recycled, and tiles showing the same avatar share a single
+ *     request. Must be used from the main thread.
+ * </p>
+ * <p>
+ *     One loader is shared by the process, see {@link #get(Context)}, so that caches
+ *     and pooled bitmaps outlive activities. Targets are held until released : release
+ *     every target of an activity before it goes away.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public class AvatarLoader {
+
+    /**
+     * A view showing an avatar, e.g. a list tile.
+     */
+    public interface Target {
+
+        /**
+         * Show an avatar, or the name plate letter.
+         *
+         * @param avatar bitmap of the name plate size, or null to show the letter.
+         */
+        void setAvatar(Bitmap avatar);
+    }
+
+    /** Name plate size, in dp **/
+    private static final int AVATAR_SIZE_DP = 50;
+
+    /** Share of the heap given to decoded avatars **/
+    private static final int MEMORY_CACHE_HEAP_DIVISOR = 16;
+
+    /** Number of sources remembered as not decodable **/
+    private static final int MAX_FAILED_URIS = 64;
+
+    /** Used to open sources **/
+    private final ContentResolver mContentResolver;
+
+    /** Width and height of avatars, in pixels **/
+    private final int mAvatarSize;
+
+    /** Bitmaps reused for decoded avatars **/
+    private final AvatarBitmapPool mBitmapPool;
+
+    /** Thumbnails of decoded avatars **/
+    private final AvatarDiskCache mDiskCache;
+
+    /** Decoded avatars, by source uri, bounded in bytes **/
+    private final LruCache<String, Avatar> mMemoryCache;
+
+    /** Sources which could not be decoded **/
+    private final LruCache<String, Boolean> mFailedUris = new LruCache<>(MAX_FAILED_URIS);
+
+    /** Requests being decoded, by source uri **/
+    private final Map<String, Request> mInFlightRequests = new HashMap<>();
+
+    /** Request each target is waiting for **/
+    private final Map<Target, Request> mRequests = new HashMap<>();
+
+    /** Avatar each target is showing **/
+    private final Map<Target, Avatar> mShownAvatars = new HashMap<>();
+
+    /** Scales sources down smoothly **/
+    private final Paint mScalePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    /** Loader shared by the process, null until first used **/
+    private static AvatarLoader sAvatarLoader;
+
+    /**
+     * Fetch the loader shared by the process, creating it on first use.
+     *
+     * @param context any context, its application context is kept.
+     * @return shared loader.
+     */
+    public static AvatarLoader get(Context context) {
+        if (sAvatarLoader == null) {
+            sAvatarLoader = new AvatarLoader(context);
+        }
+        return sAvatarLoader;
+    }
+
+    /**
+     * Constructor for this class.
+     *
+     * @param context any context, its application context is kept.
+     */
+    private AvatarLoader(Context context) {
+        Context applicationContext = context.getApplicationContext();
+        mContentResolver = applicationContext.getContentResolver();
+        mAvatarSize = Math.round(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, AVATAR_SIZE_DP,
+                applicationContext.getResources().getDisplayMetrics()));
+        mBitmapPool = new AvatarBitmapPool(mAvatarSize, AvatarBitmapPool.DEFAULT_MAX_SIZE);
+        mDiskCache = new AvatarDiskCache(applicationContext.getCacheDir(), AvatarDiskCache.DEFAULT_MAX_BYTES, mBitmapPool);
+        mMemoryCache = new LruCache<String, Avatar>((int) (Runtime.getRuntime().maxMemory() / MEMORY_CACHE_HEAP_DIVISOR)) {
+            @Override
+            protected int sizeOf(String uri, Avatar avatar) {
+                return avatar.mBitmap.getByteCount();
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, String uri, Avatar oldAvatar, Avatar newAvatar) {
+                oldAvatar.mCached = false;
+                recycleIfUnused(oldAvatar);
+            }
+        };
+    }
+
+    /**
+     * Show the avatar of a row on a target. An avatar in memory is shown right away,
+     * otherwise the target shows its letter, and the avatar once it is decoded. A
+     * previous request of the target is cancelled.
+     *
+     * @param uri source uri or file path of the avatar, null if the row has none.
+     * @param target view showing the avatar.
+     * @param allowDecode false to show only an avatar already in memory, e.g. while the
+     *                    list is flung, see {@link MyRecyclerViewAdapter#setLightweightBinding(boolean)}.
+     */
+    public void load(String uri, Target target, boolean allowDecode) {
+        cancel(target);
+        Avatar avatar = (uri == null) ? null : mMemoryCache.get(uri);
+        show(target, avatar);
+        if (avatar != null || uri == null || !allowDecode || mFailedUris.get(uri) != null) {
+            return;
+        }
+
+        /** Tiles showing the same avatar share its request **/
+        Request request = mInFlightRequests.get(uri);
+        if (request == null) {
+            request = new Request(uri);
+            mInFlightRequests.put(uri, request);
+            request.mFuture = ListExecutors.background().submit(request);
+        }
+        request.mTargets.add(target);
+        mRequests.put(target, request);
+    }
+
+    /**
+     * Cancel the request of a target, and show its letter, e.g. when its view is recycled.
+     *
+     * @param target view showing an avatar.
+     */
+    public void release(Target target) {
+        cancel(target);
+        show(target, null);
+    }
+
+    /**
+     * Release memory as asked by the system.
+     *
+     * @param level trim level given to {@link ComponentCallbacks2#onTrimMemory(int)}.
+     */
+    public void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            mMemoryCache.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            mMemoryCache.trimToSize(mMemoryCache.maxSize() / 2);
+        }
+        mBitmapPool.clear();
+    }
+
+    /**
+     * @return width and height of avatars, in pixels.
+     */
+    public int getAvatarSize() {
+        return mAvatarSize;
+    }
+
+    /**
+     * Stop waiting for the request of a target. The request is cancelled once no target waits for it.
+     */
+    private void cancel(Target target) {
+        Request request = mRequests.remove(target);
+        if (request == null) {
+            return;
+        }
+        request.mTargets.remove(target);
+        if (request.mTargets.isEmpty()) {
+            request.mCancelled = true;
+            request.mFuture.cancel(false);
+            mInFlightRequests.remove(request.mUri);
+        }
+    }
+
+    /**
+     * Show an avatar on a target, keeping count of tiles showing each avatar.
+     */
+    private void show(Target target, Avatar avatar) {
+        Avatar previous = (avatar == null) ? mShownAvatars.remove(target) : mShownAvatars.put(target, avatar);
+        target.setAvatar((avatar == null) ? null : avatar.mBitmap);
+        if (avatar != null) {
+            avatar.mShownCount++;
+        }
+        if (previous != null) {
+            previous.mShownCount--;
+            recycleIfUnused(previous);
+        }
+    }
+
+    /**
+     * Give back the bitmap of an avatar which is neither cached nor shown.
+     */
+    private void recycleIfUnused(Avatar avatar) {
+        if (!avatar.mCached && avatar.mShownCount == 0) {
+            mBitmapPool.put(avatar.mBitmap);
+        }
+    }
+
+    /**
+     * Hand a decoded avatar over to the targets waiting for it. Called on the main thread.
+     */
+    private void deliver(Request request, Bitmap bitmap) {
+        if (mInFlightRequests.get(request.mUri) == request) {
+            mInFlightRequests.remove(request.mUri);
+        }
+        if (bitmap == null) {
+
+            /** A cancelled request may just have been skipped **/
+            if (!request.mCancelled) {
+                mFailedUris.put(request.mUri, Boolean.TRUE);
+            }
+            return;
+        }
+
+        /** Kept even if cancelled, its tile may well be scrolled back **/
+        Avatar avatar = new Avatar(bitmap);
+        mMemoryCache.put(request.mUri, avatar);
+        for (int i = 0; i < request.mTargets.size(); i++) {
+            Target target = request.mTargets.get(i);
+            mRequests.remove(target);
+            show(target, avatar);
+        }
+        request.mTargets.clear();
+    }
+
+    /**
+     * Decode an avatar, from its thumbnail if there is one, else from its source. Called in background.
+     *
+     * @return avatar of the avatar size, or null if it cannot be decoded.
+     */
+    private Bitmap decode(Request request) {
+        Bitmap bitmap = mDiskCache.get(request.mUri);
+        if (bitmap != null || request.mCancelled) {
+            return bitmap;
+        }
+        try {
+            bitmap = decodeSource(request.mUri);
+        } catch (IOException | RuntimeException e) {
+            Log.e("Avatar loader : ", "Cannot decode " + request.mUri, e);
+            return null;
+        }
+        if (bitmap != null) {
+            mDiskCache.put(request.mUri, bitmap);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Decode a source picture downsampled close to the avatar size, then center crop
+     * and scale it into a pooled bitmap.
+     */
+    private Bitmap decodeSource(String uriString) throws IOException {
+        Uri uri = Uri.parse(uriString);
+        if (uri.getScheme() == null) {
+            uri = Uri.fromFile(new File(uriString));
+        }
+
+        /** Bounds first, to pick the largest sample size keeping both sides at least avatar sized **/
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        decodeStream(uri, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        int sampleSize = 1;
+        while (options.outWidth / (sampleSize * 2) >= mAvatarSize && options.outHeight / (sampleSize * 2) >= mAvatarSize) {
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        Bitmap sampled = decodeStream(uri, options);
+        if (sampled == null) {
+            return null;
+        }
+
+        /** Largest centered square of the sampled picture **/
+        int side = Math.min(sampled.getWidth(), sampled.getHeight());
+        int left = (sampled.getWidth() - side) / 2;
+        int top = (sampled.getHeight() - side) / 2;
+        Bitmap avatar = mBitmapPool.getOrCreate();
+        new Canvas(avatar).drawBitmap(sampled, new Rect(left, top, left + side, top + side),
+                new Rect(0, 0, mAvatarSize, mAvatarSize), mScalePaint);
+        sampled.recycle();
+        return avatar;
+    }
+
+    private Bitmap decodeStream(Uri uri, BitmapFactory.Options options) throws IOException {
+        InputStream in = mContentResolver.openInputStream(uri);
+        if (in == null) {
+            return null;
+        }
+        try {
+            return BitmapFactory.decodeStream(in, null, options);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * A decoded avatar, with the number of targets showing it.
+     */
+    private static class Avatar {
+
+        final Bitmap mBitmap;
+
+        /** Number of targets showing it, touched on the main thread only **/
+        int mShownCount;
+
+        /** Whether it is in the memory cache **/
+        boolean mCached = true;
+
+        Avatar(Bitmap bitmap) {
+            mBitmap = bitmap;
+        }
+    }
+
+    /**
+     * Decoding of an avatar, shared by the targets waiting for it.
+     */
+    private class Request implements Runnable {
+
+        final String mUri;
+
+        /** Targets waiting for it, touched on the main thread only **/
+        final List<Target> mTargets = new ArrayList<>(1);
+
+        Future<?> mFuture;
+
+        /** Set once no target waits for it **/
+        volatile boolean mCancelled;
+
+        Request(String uri) {
+            mUri = uri;
+        }
+
+        @Override
+        public void run() {
+            if (mCancelled) {
+                return;
+            }
+            final Bitmap bitmap = decode(this);
+            ListExecutors.mainThread().execute(new Runnable() {
+                @Override
+                public void run() {
+                    deliver(Request.this, bitmap);
+                }
+            });
+        }
+    }
+}
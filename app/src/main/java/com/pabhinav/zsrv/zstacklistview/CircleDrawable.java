@@ -15,11 +15,16 @@
  */
 package com.pabhinav.zsrv.zstacklistview;
 
+import android.graphics.Bitmap;
+import android.graphics.BitmapShader;
 import android.graphics.Canvas;
 import android.graphics.ColorFilter;
+import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.PixelFormat;
+import android.graphics.Rect;
 import android.graphics.RectF;
+import android.graphics.Shader;
 import android.graphics.drawable.Drawable;
 
 /**
@@ -28,15 +33,28 @@ import android.graphics.drawable.Drawable;
  *     The main purpose of using this drawable is to set its
  *     background color dynamically during runtime.
  * </p>
+ * <p>
+ *     The {@link Paint} lives in a {@link CircleState}, which is this
+ *     drawable's {@link android.graphics.drawable.Drawable.ConstantState}.
+ *     Drawables created from the same state share its {@link Paint}, so
+ *     {@link NamePlateDrawableCache} can hand out a single state per color
+ *     and list items only swap states while binding. Call {@link #mutate()}
+ *     before changing alpha or color filter of a single drawable.
+ * </p>
+ * <p>
+ *     An avatar {@link Bitmap} can be drawn instead of the color, scaled to the
+ *     bounds and clipped to the circle/oval by a {@link BitmapShader}, see
+ *     {@link #setAvatar(Bitmap)}. The avatar is specific to this drawable.
+ * </p>
  *
  * @author pabhinav (pabhinav@iitrpr.ac.in)
  */
 public class CircleDrawable extends Drawable {
 
     /**
-     * {@link Paint} object used to draw on {@link Canvas}.
+     * Shared state holding the {@link Paint} object used to draw on {@link Canvas}.
      */
-    Paint mPaint;
+    CircleState mCircleState;
 
     /**
      * {@link RectF} holds four float coordinates for a rectangle. The rectangle is
@@ -44,24 +62,127 @@ public class CircleDrawable extends Drawable {
      */
     RectF mRectF;
 
+    /**
+     * True once {@link #mutate()} has given this drawable a private copy of its state.
+     */
+    private boolean mMutated;
+
+    /**
+     * Avatar drawn instead of the color, null if none.
+     */
+    private Bitmap mAvatar;
+
+    /**
+     * {@link Paint} drawing the avatar through its shader, created along with the first avatar.
+     */
+    private Paint mAvatarPaint;
+
+    /**
+     * Shader of the current avatar, and the matrix scaling it to the bounds.
+     */
+    private BitmapShader mAvatarShader;
+    private Matrix mAvatarMatrix;
+
     /**
      * Constructor for this class.
      *
      * <p>
-     *     Used to initialize {@link Paint} object and {@link RectF} object.
+     *     Used to initialize a new, unshared {@link CircleState} and {@link RectF} object.
      * </p>
      * @param backgroundColor is the color resource used to render background
      *                        of this circle/oval drawable object.
      */
     public CircleDrawable(int backgroundColor) {
+        this(new CircleState(backgroundColor));
+    }
 
-        this.mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        mPaint.setStyle(Paint.Style.FILL);
-        mPaint.setColor(backgroundColor);
-
+    /**
+     * Constructor used by {@link CircleState#newDrawable()}, sharing the given state.
+     *
+     * @param circleState state shared with every other drawable created from it.
+     */
+    CircleDrawable(CircleState circleState) {
+        this.mCircleState = circleState;
         this.mRectF = new RectF();
     }
 
+    /**
+     * Swaps the shared state this drawable renders with.
+     * <p>
+     *     This is what binding a list item does instead of creating a new
+     *     drawable, so it neither allocates nor invalidates when the state
+     *     is already the current one.
+     * </p>
+     *
+     * @param circleState state to render with, usually from {@link NamePlateDrawableCache}.
+     */
+    public void setCircleState(CircleState circleState) {
+        if (mCircleState != circleState) {
+            mCircleState = circleState;
+            mMutated = false;
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * Draw an avatar instead of the color, or the color again.
+     *
+     * @param avatar bitmap to draw clipped to the circle/oval, null to draw the color.
+     */
+    public void setAvatar(Bitmap avatar) {
+        if (mAvatar == avatar) {
+            return;
+        }
+        mAvatar = avatar;
+        if (avatar == null) {
+            mAvatarShader = null;
+            mAvatarPaint.setShader(null);
+        } else {
+            if (mAvatarPaint == null) {
+                mAvatarPaint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
+                mAvatarPaint.setAlpha(mCircleState.mPaint.getAlpha());
+                mAvatarPaint.setColorFilter(mCircleState.mPaint.getColorFilter());
+                mAvatarMatrix = new Matrix();
+            }
+            mAvatarShader = new BitmapShader(avatar, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP);
+            mAvatarPaint.setShader(mAvatarShader);
+            updateAvatarMatrix();
+        }
+        invalidateSelf();
+    }
+
+    /**
+     * @return whether an avatar is drawn instead of the color.
+     */
+    public boolean hasAvatar() {
+        return mAvatar != null;
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        super.onBoundsChange(bounds);
+        updateAvatarMatrix();
+    }
+
+    /**
+     * Scales the avatar to the bounds, drawing happens from the origin.
+     */
+    private void updateAvatarMatrix() {
+        if (mAvatarShader == null) {
+            return;
+        }
+        mAvatarMatrix.setScale(getBounds().width() / (float) mAvatar.getWidth(),
+                getBounds().height() / (float) mAvatar.getHeight());
+        mAvatarShader.setLocalMatrix(mAvatarMatrix);
+    }
+
+    /**
+     * @return the background color this drawable renders.
+     */
+    public int getColor() {
+        return mCircleState.mColor;
+    }
+
     /**
      * Draws on {@link Canvas} object.
      * <p>
@@ -79,6 +200,7 @@ public class CircleDrawable extends Drawable {
         /** Fetch the width and height of bounds of canvas **/
         int height = getBounds().height();
         int width = getBounds().width();
+        Paint paint = (mAvatar != null) ? mAvatarPaint : mCircleState.mPaint;
 
         /** Draw Oval if height and width are not equal **/
         if (width != height) {
@@ -86,11 +208,11 @@ public class CircleDrawable extends Drawable {
             mRectF.top = 0.0f;
             mRectF.right = width;
             mRectF.bottom = height;
-            canvas.drawOval(mRectF, mPaint);
+            canvas.drawOval(mRectF, paint);
         }
         /** Else draw circle **/
         else {
-            canvas.drawCircle(height / 2, width / 2, width / 2, mPaint);
+            canvas.drawCircle(height / 2, width / 2, width / 2, paint);
         }
     }
 
@@ -100,7 +222,10 @@ public class CircleDrawable extends Drawable {
      */
     @Override
     public void setAlpha(int alpha) {
-        mPaint.setAlpha(alpha);
+        mCircleState.mPaint.setAlpha(alpha);
+        if (mAvatarPaint != null) {
+            mAvatarPaint.setAlpha(alpha);
+        }
     }
 
     /**
@@ -112,7 +237,10 @@ public class CircleDrawable extends Drawable {
      */
     @Override
     public void setColorFilter(ColorFilter colorFilter) {
-        mPaint.setColorFilter(colorFilter);
+        mCircleState.mPaint.setColorFilter(colorFilter);
+        if (mAvatarPaint != null) {
+            mAvatarPaint.setColorFilter(colorFilter);
+        }
     }
 
     /**
@@ -123,4 +251,79 @@ public class CircleDrawable extends Drawable {
     public int getOpacity() {
         return PixelFormat.OPAQUE;
     }
+
+    /**
+     * Return the shared state of this drawable, so that other
+     * drawables can be created with the same {@link Paint}.
+     */
+    @Override
+    public ConstantState getConstantState() {
+        mCircleState.mChangingConfigurations = getChangingConfigurations();
+        return mCircleState;
+    }
+
+    /**
+     * Make this drawable mutable, by giving it a private copy of its
+     * {@link CircleState}. Changes made afterwards do not leak into other
+     * drawables sharing the original state.
+     */
+    @Override
+    public Drawable mutate() {
+        if (!mMutated && super.mutate() == this) {
+            mCircleState = new CircleState(mCircleState);
+            mMutated = true;
+        }
+        return this;
+    }
+
+    /**
+     * {@link android.graphics.drawable.Drawable.ConstantState} of {@link CircleDrawable},
+     * holding the anti aliased fill {@link Paint} and its color.
+     *
+     * @author pabhinav (pabhinav@iitrpr.ac.in)
+     */
+    public static final class CircleState extends ConstantState {
+
+        /** {@link Paint} object used to draw on {@link Canvas} **/
+        final Paint mPaint;
+
+        /** Background color of the circle/oval **/
+        final int mColor;
+
+        /** Configuration changes this state depends on **/
+        int mChangingConfigurations;
+
+        /**
+         * Constructor for a fresh state.
+         *
+         * @param color background color of the circle/oval.
+         */
+        CircleState(int color) {
+            mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+            mPaint.setStyle(Paint.Style.FILL);
+            mPaint.setColor(color);
+            mColor = color;
+        }
+
+        /**
+         * Copy constructor, used while mutating a drawable.
+         *
+         * @param orig state to copy from.
+         */
+        CircleState(CircleState orig) {
+            mPaint = new Paint(orig.mPaint);
+            mColor = orig.mColor;
+            mChangingConfigurations = orig.mChangingConfigurations;
+        }
+
+        @Override
+        public Drawable newDrawable() {
+            return new CircleDrawable(this);
+        }
+
+        @Override
+        public int getChangingConfigurations() {
+            return mChangingConfigurations;
+        }
+    }
 }
@@ -0,0 +1,314 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import java.util.Arrays;
+
+/**
+ * Column oriented storage of list rows.
+ * <p>
+ *     Instead of one {@link DataObject} per row, each field is a primitive array
+ *     indexed by row : ids and check in times as longs, names, locations and avatar
+ *     uris as int codes into a {@link StringDictionary} per column. Repeated values (a handful of
+ *     locations shared by millions of rows) are then stored once, and a row costs a
+ *     few array slots instead of an object with its own header and references.
+ * </p>
+ * <p>
+ *     Fields are read either directly by row ({@link #getName(int)}, ...), or through
+ *     a reusable {@link Row} cursor. {@link #asList()} exposes rows to
+ *     {@link MyRecyclerViewAdapter}, materializing {@link DataObject}s only for rows
+ *     actually bound.
+ * </p>
+ * <p>
+ *     Append only and not thread safe. Usually filled on a background thread, then
+ *     handed over to the main thread.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public final class ColumnarDataStore implements RowStore {
+
+    /** Default initial number of rows **/
+    private static final int DEFAULT_CAPACITY = 64;
+
+    /** Distinct names **/
+    private final StringDictionary mNames = new StringDictionary();
+
+    /** Distinct locations **/
+    private final StringDictionary mLocations = new StringDictionary();
+
+    /** Distinct avatar uris **/
+    private final StringDictionary mAvatarUris = new StringDictionary();
+
+    /** Columns, indexed by row **/
+    private long[] mIds;
+    private int[] mNameCodes;
+    private int[] mLocationCodes;
+    private long[] mCheckInTimes;
+    private int[] mAvatarUriCodes;
+
+    /** Number of rows **/
+    private int mSize;
+
+    /**
+     * Constructor for this class.
+     */
+    public ColumnarDataStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor for this class.
+     *
+     * @param capacity number of rows expected, columns grow beyond it as needed.
+     */
+    public ColumnarDataStore(int capacity) {
+        capacity = Math.max(1, capacity);
+        mIds = new long[capacity];
+        mNameCodes = new int[capacity];
+        mLocationCodes = new int[capacity];
+        mCheckInTimes = new long[capacity];
+        mAvatarUriCodes = new int[capacity];
+    }
+
+    /**
+     * Appends a row.
+     *
+     * @param id stable id of the row, see {@link DataObject#getId()}.
+     * @param name of person
+     * @param location of person
+     * @param checkInTime epoch time of his last check in, in milliseconds
+     * @return index of the new row.
+     */
+    public int add(long id, String name, String location, long checkInTime) {
+        return add(id, name, location, checkInTime, null);
+    }
+
+    /**
+     * Appends a row with an avatar.
+     *
+     * @param id stable id of the row, see {@link DataObject#getId()}.
+     * @param name of person
+     * @param location of person
+     * @param checkInTime epoch time of his last check in, in milliseconds
+     * @param avatarUri uri of his avatar image, null if none
+     * @return index of the new row.
+     */
+    public int add(long id, String name, String location, long checkInTime, String avatarUri) {
+        if (mSize == mIds.length) {
+            int capacity = mSize + (mSize >> 1) + 1;
+            mIds = Arrays.copyOf(mIds, capacity);
+            mNameCodes = Arrays.copyOf(mNameCodes, capacity);
+            mLocationCodes = Arrays.copyOf(mLocationCodes, capacity);
+            mCheckInTimes = Arrays.copyOf(mCheckInTimes, capacity);
+            mAvatarUriCodes = Arrays.copyOf(mAvatarUriCodes, capacity);
+        }
+        mIds[mSize] = id;
+        mNameCodes[mSize] = mNames.encode(name);
+        mLocationCodes[mSize] = mLocations.encode(location);
+        mCheckInTimes[mSize] = checkInTime;
+        mAvatarUriCodes[mSize] = mAvatarUris.encode(avatarUri);
+        return mSize++;
+    }
+
+    /**
+     * Appends the fields of a row.
+     *
+     * @param dataObject row to copy.
+     * @return index of the new row.
+     */
+    public int add(DataObject dataObject) {
+        return add(dataObject.getId(), dataObject.getName(), dataObject.getLocation(), dataObject.getCheckInTime(),
+                dataObject.getAvatarUri());
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    /** Getters by row **/
+
+    @Override
+    public long getId(int row) {
+        checkRow(row);
+        return mIds[row];
+    }
+
+    public String getName(int row) {
+        checkRow(row);
+        return mNames.decode(mNameCodes[row]);
+    }
+
+    public String getLocation(int row) {
+        checkRow(row);
+        return mLocations.decode(mLocationCodes[row]);
+    }
+
+    public long getCheckInTime(int row) {
+        checkRow(row);
+        return mCheckInTimes[row];
+    }
+
+    public String getAvatarUri(int row) {
+        checkRow(row);
+        return mAvatarUris.decode(mAvatarUriCodes[row]);
+    }
+
+    /** Dictionary codes, for {@link MappedDataFileWriter} **/
+
+    int getNameCode(int row) {
+        checkRow(row);
+        return mNameCodes[row];
+    }
+
+    int getLocationCode(int row) {
+        checkRow(row);
+        return mLocationCodes[row];
+    }
+
+    int getAvatarUriCode(int row) {
+        checkRow(row);
+        return mAvatarUriCodes[row];
+    }
+
+    StringDictionary getNameDictionary() {
+        return mNames;
+    }
+
+    StringDictionary getLocationDictionary() {
+        return mLocations;
+    }
+
+    StringDictionary getAvatarUriDictionary() {
+        return mAvatarUris;
+    }
+
+    /**
+     * @return number of distinct names.
+     */
+    public int getDistinctNameCount() {
+        return mNames.size();
+    }
+
+    /**
+     * @return number of distinct locations.
+     */
+    public int getDistinctLocationCount() {
+        return mLocations.size();
+    }
+
+    /**
+     * @return number of distinct avatar uris.
+     */
+    public int getDistinctAvatarUriCount() {
+        return mAvatarUris.size();
+    }
+
+    /**
+     * New materialized copy of a row. The copy holds the shared string instances
+     * of the dictionaries.
+     *
+     * @param row index of the row.
+     * @return new {@link DataObject}.
+     */
+    @Override
+    public DataObject toDataObject(int row) {
+        checkRow(row);
+        return new DataObject(mIds[row], mNames.decode(mNameCodes[row]),
+                mLocations.decode(mLocationCodes[row]), mCheckInTimes[row], mAvatarUris.decode(mAvatarUriCodes[row]));
+    }
+
+    /**
+     * @return new cursor, to be positioned with {@link Row#moveTo(int)}.
+     */
+    public Row newRow() {
+        return new Row();
+    }
+
+    /**
+     * @return new read only list view of the rows, see {@link RowStoreList}.
+     */
+    public RowStoreList asList() {
+        return new RowStoreList(this);
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= mSize) {
+            throw new IndexOutOfBoundsException("Row " + row + ", size " + mSize);
+        }
+    }
+
+    /**
+     * Flyweight accessor of a single row, moved from row to row, so that scanning
+     * rows allocates nothing.
+     */
+    public final class Row {
+
+        /** Row this cursor is on **/
+        private int mRow;
+
+        private Row() {
+        }
+
+        /**
+         * @param row index of the row to read.
+         * @return this cursor.
+         */
+        public Row moveTo(int row) {
+            checkRow(row);
+            mRow = row;
+            return this;
+        }
+
+        /**
+         * @return index of the row this cursor is on.
+         */
+        public int getPosition() {
+            return mRow;
+        }
+
+        /** Getters of the current row **/
+
+        public long getId() {
+            return mIds[mRow];
+        }
+
+        public String getName() {
+            return mNames.decode(mNameCodes[mRow]);
+        }
+
+        public String getLocation() {
+            return mLocations.decode(mLocationCodes[mRow]);
+        }
+
+        public long getCheckInTime() {
+            return mCheckInTimes[mRow];
+        }
+
+        public String getAvatarUri() {
+            return mAvatarUris.decode(mAvatarUriCodes[mRow]);
+        }
+
+        /**
+         * @param nowMillis current epoch time.
+         * @return cached time passed label of the current row, see {@link RelativeTimeFormatter}.
+         */
+        public String getTimePassed(long nowMillis) {
+            return RelativeTimeFormatter.getDefault().format(mCheckInTimes[mRow], nowMillis);
+        }
+    }
+}
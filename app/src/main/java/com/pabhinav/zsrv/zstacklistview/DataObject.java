@@ -15,58 +15,303 @@
  */
 package com.pabhinav.zsrv.zstacklistview;
 
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
 /**
  * Data Model for {@link android.support.v7.widget.RecyclerView} items.
+ * <p>
+ *     Each item has a stable id, identifying the same person across data set
+ *     updates. Ids are either given by the data source, or generated.
+ * </p>
+ * <p>
+ *     Immutable, so that rows are safely shared with background threads : an
+ *     updated row is a new instance with the same id, e.g. built with
+ *     {@link Builder#Builder(DataObject)}. Hash of the content is computed once,
+ *     so that {@link #hasSameContent(DataObject)} tells most changed rows apart
+ *     without comparing strings, and names and locations are interned by every
+ *     constructor, whichever source builds the row, so that duplicate values share
+ *     storage and compare by reference.
+ * </p>
  *
  * @author pabhinav (pabhinav@iitrpr.ac.in)
  */
-public class DataObject {
+public final class DataObject {
+
+    /** First generated id, ids given by data sources are expected to stay below it **/
+    public static final long GENERATED_ID_START = 1L << 62;
+
+    /** Next generated id **/
+    private static final AtomicLong sNextGeneratedId = new AtomicLong(GENERATED_ID_START);
+
+    /** Number of recently interned strings, a power of two **/
+    private static final int INTERNED_STRING_COUNT = 1024;
+
+    /** Recently interned strings, slot of a string is the lowest bits of its hash **/
+    private static final AtomicReferenceArray<String> sInternedStrings = new AtomicReferenceArray<>(INTERNED_STRING_COUNT);
+
+    /**
+     * Identity and content equality of rows, used for diffing lists submitted to
+     * {@link MyRecyclerViewAdapter}. Rows are the same entity when they have the same
+     * id. A null row (placeholder, e.g. skeleton tile shown at startup) stands for any
+     * row, so that it is rebound in place rather than removed.
+     */
+    static final ListDiffer.ItemCallback<DataObject> ITEM_CALLBACK = new ListDiffer.ItemCallback<DataObject>() {
+        @Override
+        public boolean areItemsTheSame(DataObject oldItem, DataObject newItem) {
+            if (oldItem == null || newItem == null) {
+                return true;
+            }
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(DataObject oldItem, DataObject newItem) {
+            if (oldItem == null || newItem == null) {
+                return oldItem == newItem;
+            }
+            return oldItem.hasSameContent(newItem);
+        }
+    };
+
+    /** Stable id of this item, non negative **/
+    private final long id;
 
     /** String containing name of person **/
-    private String name;
+    private final String name;
 
     /** String containing location of person **/
-    private String location;
+    private final String location;
+
+    /** Epoch time of his last check in, in milliseconds **/
+    private final long checkInTime;
+
+    /** Uri of his avatar image (content, file or resource uri, or file path), null if none **/
+    private final String avatarUri;
+
+    /** Hash of name, location, check in time and avatar uri **/
+    private final int contentHash;
 
-    /** String containing time passed till his last check in **/
-    private String timePassed;
+    /** Cached bind ready projection, computed once from the fields **/
+    volatile TileBindModel mBindModel;
+
+    /**
+     * Constructor for this class, generating a new id.
+     *
+     * @param name of person
+     * @param location of person
+     * @param checkInTime epoch time of his last check in, in milliseconds
+     */
+    public DataObject(String name, String location, long checkInTime){
+        this(sNextGeneratedId.getAndIncrement(), name, location, checkInTime);
+    }
 
     /**
      * Constructor for this class.
      *
+     * @param id stable id of this item, non negative and below {@link #GENERATED_ID_START}.
+     * @param name of person
+     * @param location of person
+     * @param checkInTime epoch time of his last check in, in milliseconds
+     */
+    public DataObject(long id, String name, String location, long checkInTime){
+        this(id, name, location, checkInTime, null);
+    }
+
+    /**
+     * Constructor for this class, for a person with an avatar.
+     *
+     * @param id stable id of this item, non negative and below {@link #GENERATED_ID_START}.
      * @param name of person
      * @param location of person
-     * @param timePassed till his last check in
+     * @param checkInTime epoch time of his last check in, in milliseconds
+     * @param avatarUri uri of his avatar image, null to show his name plate letter
+     * @throws IllegalArgumentException if the id is negative, negative ids are those of placeholders.
      */
-    public DataObject(String name, String location, String timePassed){
-        setName(name);
-        setLocation(location);
-        setTimePassed(timePassed);
+    public DataObject(long id, String name, String location, long checkInTime, String avatarUri){
+        if (id < 0) {
+            throw new IllegalArgumentException("Negative id " + id);
+        }
+        this.id = id;
+        this.name = intern(name);
+        this.location = intern(location);
+        this.checkInTime = checkInTime;
+        this.avatarUri = avatarUri;
+        this.contentHash = 31 * (31 * (31 * hash(name) + hash(location)) + (int) (checkInTime ^ (checkInTime >>> 32)))
+                + hash(avatarUri);
     }
 
-    /** Getter and Setters **/
+    /** Getters **/
 
-    public String getName() {
-        return name;
+    public long getId() {
+        return id;
     }
 
-    public void setName(String name) {
-        this.name = name;
+    public String getName() {
+        return name;
     }
 
     public String getLocation() {
         return location;
     }
 
-    public void setLocation(String location) {
-        this.location = location;
+    public long getCheckInTime() {
+        return checkInTime;
     }
 
-    public String getTimePassed() {
-        return timePassed;
+    public String getAvatarUri() {
+        return avatarUri;
     }
 
-    public void setTimePassed(String timePassed) {
-        this.timePassed = timePassed;
+    /**
+     * Whether another row shows the same name, location, check in time and avatar, whatever
+     * its id, e.g. to tell whether an update of a row changed anything. Rows whose
+     * content hashes differ are told apart right away, interned strings compare by
+     * reference.
+     *
+     * @param other row to compare with.
+     * @return true if content is the same.
+     */
+    public boolean hasSameContent(DataObject other) {
+        if (other == this) {
+            return true;
+        }
+        return other != null && contentHash == other.contentHash && checkInTime == other.checkInTime
+                && equal(name, other.name) && equal(location, other.location) && equal(avatarUri, other.avatarUri);
+    }
+
+    /**
+     * Rows are equal when they have the same id and the same content.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof DataObject)) {
+            return false;
+        }
+        DataObject other = (DataObject) o;
+        return id == other.id && hasSameContent(other);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (int) (id ^ (id >>> 32)) + contentHash;
+    }
+
+    @Override
+    public String toString() {
+        return "DataObject{" + id + ", " + name + ", " + location + ", " + checkInTime + ", " + avatarUri + "}";
+    }
+
+    private static int hash(String string) {
+        return (string == null) ? 0 : string.hashCode();
+    }
+
+    private static boolean equal(String lhs, String rhs) {
+        return (lhs == rhs) || (lhs != null && lhs.equals(rhs));
+    }
+
+    /**
+     * Returns a shared instance of a string equal to the given one, if it was interned
+     * recently. Only a bounded number of strings are kept, so that an endless feed of
+     * distinct strings does not grow memory. Thread safe, lock free : racing threads
+     * at worst keep distinct instances.
+     *
+     * @param string string to intern, may be null.
+     * @return shared instance equal to string.
+     */
+    static String intern(String string) {
+        if (string == null) {
+            return null;
+        }
+        int hash = string.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & (INTERNED_STRING_COUNT - 1);
+        String interned = sInternedStrings.get(slot);
+        if (string.equals(interned)) {
+            return interned;
+        }
+        sInternedStrings.set(slot, string);
+        return string;
+    }
+
+    /**
+     * Builds rows. Not thread safe, a built row is.
+     */
+    public static final class Builder {
+
+        /** Whether an id was given, rows without one get a generated one **/
+        private boolean mHasId;
+
+        private long mId;
+        private String mName;
+        private String mLocation;
+        private long mCheckInTime;
+        private String mAvatarUri;
+
+        /**
+         * Builder of a new row, which gets a generated id unless one is set.
+         */
+        public Builder() {
+        }
+
+        /**
+         * Builder of an updated version of a row, with the same id and content to start with.
+         *
+         * @param dataObject row to update.
+         */
+        public Builder(DataObject dataObject) {
+            mHasId = true;
+            mId = dataObject.id;
+            mName = dataObject.name;
+            mLocation = dataObject.location;
+            mCheckInTime = dataObject.checkInTime;
+            mAvatarUri = dataObject.avatarUri;
+        }
+
+        /**
+         * @param id stable id, non negative and below {@link #GENERATED_ID_START}.
+         * @throws IllegalArgumentException if the id is out of this range.
+         */
+        public Builder setId(long id) {
+            if (id < 0 || id >= GENERATED_ID_START) {
+                throw new IllegalArgumentException("Invalid id " + id);
+            }
+            mHasId = true;
+            mId = id;
+            return this;
+        }
+
+        public Builder setName(String name) {
+            mName = name;
+            return this;
+        }
+
+        public Builder setLocation(String location) {
+            mLocation = location;
+            return this;
+        }
+
+        public Builder setCheckInTime(long checkInTime) {
+            mCheckInTime = checkInTime;
+            return this;
+        }
+
+        /**
+         * @param avatarUri uri of the avatar image, mostly distinct per row so not interned.
+         */
+        public Builder setAvatarUri(String avatarUri) {
+            mAvatarUri = avatarUri;
+            return this;
+        }
+
+        /**
+         * @return new row.
+         */
+        public DataObject build() {
+            long id = mHasId ? mId : sNextGeneratedId.getAndIncrement();
+            return new DataObject(id, mName, mLocation, mCheckInTime, mAvatarUri);
+        }
     }
 }
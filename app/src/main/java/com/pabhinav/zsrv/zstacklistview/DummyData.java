@@ -23,6 +23,82 @@ package com.pabhinav.zsrv.zstacklistview;
  */
 public class DummyData {
 
+    /** Dummy locations **/
+    private static final String[] LOCATIONS = new String[] {
+            "France",
+            "London",
+            "USA",
+            "Canada",
+            "Italy",
+            "South America",
+            "Australia",
+            "South Africa",
+            "Hungary",
+            "Portugal",
+            "India",
+            "Singapore",
+            "China",
+            "Japan",
+            "Korea",
+            "Hong Kong",
+            "Antartica",
+            "Russia",
+            "Germany",
+            "Sri Lanka"
+    };
+
+    /** Durations, in milliseconds **/
+    private static final long MINUTE = 60 * 1000L;
+    private static final long DAY = 24 * 60 * MINUTE;
+
+    /** Dummy time passed till last login, in milliseconds **/
+    private static final long[] TIME_PASSED = new long[] {
+            10 * MINUTE,
+            MINUTE,
+            2 * MINUTE,
+            4000 * DAY,
+            5 * MINUTE,
+            0,
+            DAY + 60 * MINUTE,
+            2 * DAY,
+            5 * DAY,
+            31 * DAY,
+            61 * DAY,
+            152 * DAY,
+            366 * DAY,
+            731 * DAY,
+            1827 * DAY,
+            MINUTE + 30 * 1000L,
+            2 * MINUTE + 30 * 1000L,
+            5000 * DAY,
+            5 * MINUTE + 30 * 1000L,
+            20 * 1000L
+    };
+
+    /** Dummy names **/
+    private static final String[] NAMES = new String[] {
+            "Zlatan Ibrahimovic",
+            "Lionel Messi",
+            "Joan Kim",
+            "Billy Foster",
+            "Patrick Vierra",
+            "Marie Crawfrod",
+            "Sean White",
+            "Christian White",
+            "Bruce Brown",
+            "Ashley Martinez",
+            "Jennifer Guerro",
+            "Didier Drogba",
+            "Robbin Johnson",
+            "Abhinav Puri",
+            "Steve Thomas",
+            "Quarentino Jeorge",
+            "Klevtov Whiskey",
+            "Nurik Roman",
+            "Cattie Pack",
+            "Ellie Johnson"
+    };
+
     /** Counters **/
     private static int counterForLocation;
     private static int counterForName;
@@ -42,61 +118,17 @@ public class DummyData {
      */
     public static String dummyLocation(){
         checkCounterForOverflow();
-        String locations[] = new String [] {
-                "France",
-                "London",
-                "USA",
-                "Canada",
-                "Italy",
-                "South America",
-                "Australia",
-                "South Africa",
-                "Hungary",
-                "Portugal",
-                "India",
-                "Singapore",
-                "China",
-                "Japan",
-                "Korea",
-                "Hong Kong",
-                "Antartica",
-                "Russia",
-                "Germany",
-                "Sri Lanka"
-        };
-        return locations[counterForLocation++];
+        return LOCATIONS[counterForLocation++];
     }
 
     /**
-     * Used to fetch some dummy time passed, till last user login.
+     * Used to fetch some dummy time of last user login.
      *
-     * @return time passed till last login.
+     * @return epoch time of last login, in milliseconds.
      */
-    public static String dummyTimePassed(){
+    public static long dummyCheckInTime(){
         checkCounterForOverflow();
-        String timePassed[] = new String [] {
-                "10min ago",
-                "1min ago",
-                "2min ago",
-                "long time ago",
-                "5min ago",
-                "Now",
-                "yesterday",
-                "2days ago",
-                "5days ago",
-                "1month ago",
-                "2month ago",
-                "5month ago",
-                "1year ago",
-                "2year ago",
-                "5year ago",
-                "1min ago",
-                "2min ago",
-                "long time ago",
-                "5min ago",
-                "Now"
-        };
-        return timePassed[counterForTimePassed++];
+        return System.currentTimeMillis() - TIME_PASSED[counterForTimePassed++];
     }
 
     /**
@@ -106,29 +138,40 @@ public class DummyData {
      */
     public static String dummyName(){
         checkCounterForOverflow();
-        String names[] = new String[] {
-                "Zlatan Ibrahimovic",
-                "Lionel Messi",
-                "Joan Kim",
-                "Billy Foster",
-                "Patrick Vierra",
-                "Marie Crawfrod",
-                "Sean White",
-                "Christian White",
-                "Bruce Brown",
-                "Ashley Martinez",
-                "Jennifer Guerro",
-                "Didier Drogba",
-                "Robbin Johnson",
-                "Abhinav Puri",
-                "Steve Thomas",
-                "Quarentino Jeorge",
-                "Klevtov Whiskey",
-                "Nurik Roman",
-                "Cattie Pack",
-                "Ellie Johnson"
-        };
-        return names[counterForName++];
+        return NAMES[counterForName++];
+    }
+
+    /**
+     * Used to fetch location of the person at a position, without touching counters.
+     * Safe to call from any thread.
+     *
+     * @param position position of the row, non negative.
+     * @return Country name.
+     */
+    public static String dummyLocationAt(int position){
+        return LOCATIONS[position % LOCATIONS.length];
+    }
+
+    /**
+     * Used to fetch time of last login of the person at a position, without touching counters.
+     * Safe to call from any thread.
+     *
+     * @param position position of the row, non negative.
+     * @return epoch time of last login, in milliseconds.
+     */
+    public static long dummyCheckInTimeAt(int position){
+        return System.currentTimeMillis() - TIME_PASSED[position % TIME_PASSED.length];
+    }
+
+    /**
+     * Used to fetch name of the person at a position, without touching counters.
+     * Safe to call from any thread.
+     *
+     * @param position position of the row, non negative.
+     * @return name of a person.
+     */
+    public static String dummyNameAt(int position){
+        return NAMES[position % NAMES.length];
     }
 
     /**
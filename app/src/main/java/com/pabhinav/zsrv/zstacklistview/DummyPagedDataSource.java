@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link PagedDataSource} generating any number of {@link DummyData} rows on demand.
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public class DummyPagedDataSource implements PagedDataSource {
+
+    /** Number of rows **/
+    private final int mCount;
+
+    /**
+     * Constructor for this class.
+     *
+     * @param count number of rows to generate.
+     */
+    public DummyPagedDataSource(int count) {
+        mCount = count;
+    }
+
+    @Override
+    public int getCount() {
+        return mCount;
+    }
+
+    @Override
+    public List<DataObject> loadRange(int startPosition, int loadSize) {
+        List<DataObject> dataObjects = new ArrayList<>(loadSize);
+        for (int position = startPosition; position < startPosition + loadSize; position++) {
+            dataObjects.add(new DataObject(position, DummyData.dummyNameAt(position), DummyData.dummyLocationAt(position), DummyData.dummyCheckInTimeAt(position)));
+        }
+        return dataObjects;
+    }
+}
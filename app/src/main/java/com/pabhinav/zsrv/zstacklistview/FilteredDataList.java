@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Read only {@link List} view over some rows of another list, e.g. rows matching
+ * a search (see {@link NameSearcher}). Rows are not copied : the view only holds
+ * their positions in the source list.
+ * <p>
+ *     The source list must not be modified while this view is in use. Structural
+ *     modification of the view is not supported.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public class FilteredDataList extends AbstractList<DataObject> {
+
+    /** Rows filtered **/
+    private final List<DataObject> mSource;
+
+    /** Positions in the source list of the rows in this view, ascending **/
+    private final int[] mPositions;
+
+    /**
+     * Constructor for this class.
+     *
+     * @param source rows filtered.
+     * @param positions positions of the rows kept, ascending, not modified afterwards.
+     */
+    public FilteredDataList(List<DataObject> source, int[] positions) {
+        mSource = source;
+        mPositions = positions;
+    }
+
+    /**
+     * @return rows filtered.
+     */
+    public List<DataObject> getSource() {
+        return mSource;
+    }
+
+    /**
+     * @param position position of a row in this view.
+     * @return position of the same row in the source list.
+     */
+    public int getSourcePosition(int position) {
+        return mPositions[position];
+    }
+
+    @Override
+    public DataObject get(int position) {
+        return mSource.get(mPositions[position]);
+    }
+
+    @Override
+    public int size() {
+        return mPositions.length;
+    }
+}
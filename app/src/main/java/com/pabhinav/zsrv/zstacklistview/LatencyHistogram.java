@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import java.util.Arrays;
+
+/**
+ * Fixed memory histogram of latencies, in nanoseconds.
+ * <p>
+ *     Buckets are log-linear (same idea as HdrHistogram) : every power of two range
+ *     is split into {@link #SUB_BUCKET_COUNT} equal buckets, so any recorded value is
+ *     known within about 3% of its magnitude, from 1 nanosecond up to
+ *     {@link #MAX_TRACKABLE_VALUE} (about 68 seconds, larger values are clamped).
+ *     All counts live in one preallocated array, recording a value is a few bit
+ *     operations and an increment, with no allocation.
+ * </p>
+ * <p>
+ *     Not thread safe, values are expected to be recorded from the main thread.
+ *     This class has no Android dependency.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public final class LatencyHistogram {
+
+    /** Number of bits resolving values within a power of two range **/
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /** Number of buckets per power of two range **/
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /** Highest power of two tracked, values at or above 2^36 are clamped **/
+    private static final int MAX_EXPONENT = 36;
+
+    /** Largest value kept as is, in nanoseconds **/
+    public static final long MAX_TRACKABLE_VALUE = (1L << MAX_EXPONENT) - 1;
+
+    /** Total number of buckets **/
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    /** Count of values per bucket **/
+    private final int[] mCounts = new int[BUCKET_COUNT];
+
+    /** Summary of recorded values **/
+    private long mTotalCount;
+    private long mTotalValue;
+    private long mMinValue = Long.MAX_VALUE;
+    private long mMaxValue;
+
+    /**
+     * Record a latency.
+     *
+     * @param value latency, in nanoseconds. Negative values are ignored.
+     */
+    public void recordValue(long value) {
+        if (value < 0) {
+            return;
+        }
+        if (value > MAX_TRACKABLE_VALUE) {
+            value = MAX_TRACKABLE_VALUE;
+        }
+        mCounts[bucketIndex(value)]++;
+        mTotalCount++;
+        mTotalValue += value;
+        if (value < mMinValue) {
+            mMinValue = value;
+        }
+        if (value > mMaxValue) {
+            mMaxValue = value;
+        }
+    }
+
+    /**
+     * @return number of recorded values.
+     */
+    public long getTotalCount() {
+        return mTotalCount;
+    }
+
+    /**
+     * @return smallest recorded value, or 0 if empty.
+     */
+    public long getMinValue() {
+        return (mTotalCount == 0) ? 0 : mMinValue;
+    }
+
+    /**
+     * @return largest recorded value, or 0 if empty.
+     */
+    public long getMaxValue() {
+        return mMaxValue;
+    }
+
+    /**
+     * @return mean of recorded values, or 0 if empty.
+     */
+    public double getMean() {
+        return (mTotalCount == 0) ? 0 : (double) mTotalValue / mTotalCount;
+    }
+
+    /**
+     * Value below or at which a given percentage of recorded values fall,
+     * within bucket resolution.
+     *
+     * @param percentile percentage, from 0 to 100.
+     * @return highest value equivalent to the bucket reaching the percentile, or 0 if empty.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (mTotalCount == 0) {
+            return 0;
+        }
+        double clamped = Math.min(100.0, Math.max(0.0, percentile));
+        long target = Math.max(1, (long) Math.ceil(clamped / 100.0 * mTotalCount));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += mCounts[i];
+            if (cumulative >= target) {
+                return Math.min(highestEquivalentValue(i), mMaxValue);
+            }
+        }
+        return mMaxValue;
+    }
+
+    /**
+     * Add all values recorded by another histogram to this one.
+     *
+     * @param other histogram to add.
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mCounts[i] += other.mCounts[i];
+        }
+        mTotalCount += other.mTotalCount;
+        mTotalValue += other.mTotalValue;
+        mMinValue = Math.min(mMinValue, other.mMinValue);
+        mMaxValue = Math.max(mMaxValue, other.mMaxValue);
+    }
+
+    /**
+     * @return independent copy of this histogram.
+     */
+    public LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+        copy.add(this);
+        return copy;
+    }
+
+    /**
+     * Forget all recorded values.
+     */
+    public void reset() {
+        Arrays.fill(mCounts, 0);
+        mTotalCount = 0;
+        mTotalValue = 0;
+        mMinValue = Long.MAX_VALUE;
+        mMaxValue = 0;
+    }
+
+    /**
+     * Values below {@link #SUB_BUCKET_COUNT} get a bucket each, then each power of
+     * two range [2^e, 2^(e+1)) is split into {@link #SUB_BUCKET_COUNT} buckets.
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * Largest value falling into a bucket.
+     */
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKET_COUNT;
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((SUB_BUCKET_COUNT + subBucket) << shift) + (1L << shift) - 1;
+    }
+}
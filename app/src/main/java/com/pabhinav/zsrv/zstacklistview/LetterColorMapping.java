@@ -15,51 +15,158 @@
  */
 package com.pabhinav.zsrv.zstacklistview;
 
-import java.util.HashMap;
-
 /**
  * Class used for saving name plate letter and corresponding color mapping.
+ * <p>
+ *     Colors are kept as already resolved ARGB values in primitive int tables,
+ *     indexed by the code point of the name plate letter. Every ASCII code point
+ *     has its own precomputed slot, so the common lookup is a single array read.
+ * </p>
+ * <p>
+ *     Lookup rules :
+ *
+ *          1) 'A' to 'Z' (and 'a' to 'z') map to their own letter color.
+ *          2) Digits, symbols, non latin letters and emoji are hashed onto one
+ *             of the 26 letter colors, so the same initial always gets the same color.
+ *          3) Control characters, white space and missing initials
+ *             ({@link #NO_INITIAL}) get the fallback color.
+ * </p>
+ * <p>
+ *     This class has no Android dependency, instances are built from resources
+ *     by {@link LetterColorResources}, once per {@link android.content.Context}.
+ * </p>
  *
  * @author pabhinav (pabhinav@iitrpr.ac.in)
  */
 public class LetterColorMapping {
 
+    /** Code point used when a name has no initial at all **/
+    public static final int NO_INITIAL = -1;
+
+    /** Number of letters, and so number of letter colors **/
+    public static final int LETTER_COUNT = 26;
+
+    /** Code points below this value have their own slot in the ascii table **/
+    private static final int ASCII_TABLE_SIZE = 128;
+
+    /** Multiplier used for hashing code points onto letter colors (golden ratio) **/
+    private static final int HASH_MULTIPLIER = 0x9E3779B1;
+
     /**
-     * {@link HashMap} mapping string to int, where
-     * string is denoting the name plate letter and
-     * int is the corresponding color id.
+     * Name plate letter strings for ascii code points, so that the common
+     * case does not create a new {@link String} for every bind.
      */
-    public static HashMap<String, Integer> letterToColorIdMapping;
+    private static final String[] ASCII_LETTERS = new String[ASCII_TABLE_SIZE];
 
-    /** Static color mapping population **/
+    /** Static population of ascii letter strings **/
     static {
-        letterToColorIdMapping = new HashMap<String, Integer>(){{
-                put("A",R.color.A);
-                put("B",R.color.B);
-                put("C",R.color.C);
-                put("D",R.color.D);
-                put("E",R.color.E);
-                put("F",R.color.F);
-                put("G",R.color.G);
-                put("H",R.color.H);
-                put("I",R.color.I);
-                put("J",R.color.J);
-                put("K",R.color.K);
-                put("L",R.color.L);
-                put("M",R.color.M);
-                put("N",R.color.N);
-                put("O",R.color.O);
-                put("P",R.color.P);
-                put("Q",R.color.Q);
-                put("R",R.color.R);
-                put("S",R.color.S);
-                put("T",R.color.T);
-                put("U",R.color.U);
-                put("V",R.color.V);
-                put("W",R.color.W);
-                put("X",R.color.X);
-                put("Y",R.color.Y);
-                put("Z",R.color.Z);
-        }};
+        for (int i = 0; i < ASCII_TABLE_SIZE; i++) {
+            ASCII_LETTERS[i] = String.valueOf((char) i);
+        }
+    }
+
+    /** Resolved colors of 'A' to 'Z' **/
+    private final int[] mLetterColors;
+
+    /** Resolved color for every ascii code point **/
+    private final int[] mAsciiColors;
+
+    /** Resolved color for missing, white space and control initials **/
+    private final int mFallbackColor;
+
+    /**
+     * Constructor for this class.
+     *
+     * @param letterColors resolved ARGB colors of 'A' to 'Z', in that order.
+     * @param fallbackColor resolved ARGB color used when there is no usable initial.
+     */
+    public LetterColorMapping(int[] letterColors, int fallbackColor) {
+        if (letterColors.length != LETTER_COUNT) {
+            throw new IllegalArgumentException("Expected " + LETTER_COUNT + " letter colors, got " + letterColors.length);
+        }
+        mLetterColors = letterColors.clone();
+        mFallbackColor = fallbackColor;
+
+        /** Pre resolve every ascii slot, so no ascii lookup ever needs to branch on its class **/
+        mAsciiColors = new int[ASCII_TABLE_SIZE];
+        for (int codePoint = 0; codePoint < ASCII_TABLE_SIZE; codePoint++) {
+            if (codePoint >= 'A' && codePoint <= 'Z') {
+                mAsciiColors[codePoint] = mLetterColors[codePoint - 'A'];
+            } else if (codePoint >= 'a' && codePoint <= 'z') {
+                mAsciiColors[codePoint] = mLetterColors[codePoint - 'a'];
+            } else if (codePoint <= ' ' || codePoint == 0x7F) {
+                mAsciiColors[codePoint] = mFallbackColor;
+            } else {
+                mAsciiColors[codePoint] = mLetterColors[hashedSlot(codePoint)];
+            }
+        }
+    }
+
+    /**
+     * Fetch resolved color for a name plate code point.
+     *
+     * @param codePoint name plate letter code point, or {@link #NO_INITIAL}.
+     * @return resolved ARGB color.
+     */
+    public int colorForCodePoint(int codePoint) {
+        if (codePoint < ASCII_TABLE_SIZE) {
+            return codePoint < 0 ? mFallbackColor : mAsciiColors[codePoint];
+        }
+        return mLetterColors[hashedSlot(codePoint)];
+    }
+
+    /**
+     * Fetch resolved color for the name plate of a name.
+     *
+     * @param name name of person, may be null or empty.
+     * @return resolved ARGB color.
+     */
+    public int colorForName(CharSequence name) {
+        return colorForCodePoint(namePlateCodePoint(name));
+    }
+
+    /**
+     * @return resolved ARGB color used when there is no usable initial.
+     */
+    public int getFallbackColor() {
+        return mFallbackColor;
+    }
+
+    /**
+     * Detects the upper cased code point of the name plate letter.
+     * Surrogate pairs (e.g. emoji) are kept together as one code point.
+     *
+     * @param name name of person, may be null or empty.
+     * @return upper cased first code point, or {@link #NO_INITIAL}.
+     */
+    public static int namePlateCodePoint(CharSequence name) {
+        if (name == null || name.length() == 0) {
+            return NO_INITIAL;
+        }
+        return Character.toUpperCase(Character.codePointAt(name, 0));
+    }
+
+    /**
+     * Text to show on the name plate for a code point.
+     * Ascii letters are served from a static table, without allocation.
+     *
+     * @param codePoint name plate letter code point, or {@link #NO_INITIAL}.
+     * @return name plate letter, empty for {@link #NO_INITIAL}.
+     */
+    public static String namePlateLetter(int codePoint) {
+        if (codePoint < ASCII_TABLE_SIZE) {
+            return codePoint < 0 ? "" : ASCII_LETTERS[codePoint];
+        }
+        return new String(Character.toChars(codePoint));
+    }
+
+    /**
+     * Spreads a code point onto one of the letter colors.
+     *
+     * @param codePoint any non negative code point.
+     * @return index in [0, {@link #LETTER_COUNT}).
+     */
+    private static int hashedSlot(int codePoint) {
+        return ((codePoint * HASH_MULTIPLIER) >>> 16) % LETTER_COUNT;
     }
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import android.content.Context;
+import android.content.res.Resources;
+
+/**
+ * Builds {@link LetterColorMapping} from color resources.
+ * <p>
+ *     Color resources are resolved once per {@link Resources} object, which
+ *     changes with theme and configuration, and not on every bind.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public class LetterColorResources {
+
+    /** Color resource ids of name plate letters 'A' to 'Z' **/
+    private static final int[] LETTER_COLOR_IDS = new int[] {
+            R.color.A, R.color.B, R.color.C, R.color.D, R.color.E, R.color.F, R.color.G,
+            R.color.H, R.color.I, R.color.J, R.color.K, R.color.L, R.color.M, R.color.N,
+            R.color.O, R.color.P, R.color.Q, R.color.R, R.color.S, R.color.T, R.color.U,
+            R.color.V, R.color.W, R.color.X, R.color.Y, R.color.Z
+    };
+
+    /** {@link Resources} the cached mapping was resolved with **/
+    private static Resources sResources;
+
+    /** Cached mapping **/
+    private static LetterColorMapping sLetterColorMapping;
+
+    /**
+     * Fetch the letter color mapping for a {@link Context}, resolving
+     * it only when the {@link Resources} have changed.
+     *
+     * @param context {@link Context} used to resolve color resources.
+     * @return resolved {@link LetterColorMapping}.
+     */
+    @SuppressWarnings("deprecation")
+    public static synchronized LetterColorMapping get(Context context) {
+        Resources resources = context.getResources();
+        if (sLetterColorMapping == null || sResources != resources) {
+            int[] letterColors = new int[LetterColorMapping.LETTER_COUNT];
+            for (int i = 0; i < letterColors.length; i++) {
+                letterColors[i] = resources.getColor(LETTER_COLOR_IDS[i]);
+            }
+            sLetterColorMapping = new LetterColorMapping(letterColors, resources.getColor(R.color.name_plate_fallback));
+            sResources = resources;
+        }
+        return sLetterColorMapping;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.MotionEvent;
+import android.view.View;
+
+/**
+ * Fast scroller : a vertical rail of section letters ("#", 'A' to 'Z') along the list.
+ * Touching or dragging over a letter jumps the list to the first row of its section.
+ * <p>
+ *     Jumps read the start position of the section from the {@link SectionIndex}
+ *     maintained by {@link MyRecyclerViewAdapter}, so they take constant time
+ *     whatever the size of the list. The list is moved without scrolling through
+ *     the rows in between, and {@link MyRecyclerOnScrollListener} is told about it,
+ *     so that the masked tile shows the new top row on the very first frame.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public class LetterRailView extends View {
+
+    /** Colors of letters, and of the rail while touched **/
+    private static final int LETTER_COLOR = 0xFFAAAAAA;
+    private static final int SELECTED_LETTER_COLOR = Color.WHITE;
+    private static final int TOUCHED_BACKGROUND_COLOR = 0x40000000;
+
+    /** Paint of the letters **/
+    private final Paint mLetterPaint;
+
+    /** List jumped around, null until attached **/
+    private RecyclerView mRecyclerView;
+
+    /** Listener syncing the stack effect, may be null **/
+    private MyRecyclerOnScrollListener mScrollListener;
+
+    /** Section under the finger, -1 when not touched **/
+    private int mSelectedSection = -1;
+
+    public LetterRailView(Context context) {
+        this(context, null);
+    }
+
+    public LetterRailView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public LetterRailView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        mLetterPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mLetterPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 11, getResources().getDisplayMetrics()));
+        mLetterPaint.setTextAlign(Paint.Align.CENTER);
+    }
+
+    /**
+     * Attaches this rail to a list.
+     *
+     * @param recyclerView list using {@link MyRecyclerViewAdapter}, with sections enabled
+     *                     (see {@link MyRecyclerViewAdapter#setSectionIndexEnabled(boolean)}),
+     *                     and a {@link LinearLayoutManager}.
+     * @param scrollListener listener syncing the masked tile of the list, null if there is none.
+     */
+    public void attach(RecyclerView recyclerView, MyRecyclerOnScrollListener scrollListener) {
+        mRecyclerView = recyclerView;
+        mScrollListener = scrollListener;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (mSelectedSection != -1) {
+            canvas.drawColor(TOUCHED_BACKGROUND_COLOR);
+        }
+
+        float slotHeight = (float) getHeight() / SectionIndex.SECTION_COUNT;
+        float x = getWidth() / 2f;
+
+        /** Center letters vertically in their slot **/
+        float baselineOffset = (slotHeight - mLetterPaint.ascent() - mLetterPaint.descent()) / 2;
+        for (int section = 0; section < SectionIndex.SECTION_COUNT; section++) {
+            mLetterPaint.setColor((section == mSelectedSection) ? SELECTED_LETTER_COLOR : LETTER_COLOR);
+            canvas.drawText(SectionIndex.getSectionLabel(section), x, section * slotHeight + baselineOffset, mLetterPaint);
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+            case MotionEvent.ACTION_MOVE:
+                int section = (int) (event.getY() * SectionIndex.SECTION_COUNT / Math.max(1, getHeight()));
+                section = Math.max(0, Math.min(SectionIndex.SECTION_COUNT - 1, section));
+                if (section != mSelectedSection) {
+                    mSelectedSection = section;
+                    jumpToSection(section);
+                    invalidate();
+                }
+                return true;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                mSelectedSection = -1;
+                invalidate();
+                return true;
+        }
+        return super.onTouchEvent(event);
+    }
+
+    /**
+     * Moves the first row of a section to the top of the list. An empty section
+     * jumps to the next one.
+     *
+     * @param section section touched.
+     */
+    private void jumpToSection(int section) {
+        if (mRecyclerView == null) {
+            return;
+        }
+        SectionIndex sectionIndex = ((MyRecyclerViewAdapter) mRecyclerView.getAdapter()).getSectionIndex();
+        int itemCount = mRecyclerView.getAdapter().getItemCount();
+        if (sectionIndex == null || itemCount == 0) {
+            return;
+        }
+        int position = Math.min(sectionIndex.getPositionForSection(section), itemCount - 1);
+
+        /** Stop a fling, which would otherwise carry on from the new position **/
+        mRecyclerView.stopScroll();
+        ((LinearLayoutManager) mRecyclerView.getLayoutManager()).scrollToPositionWithOffset(position, 0);
+        if (mScrollListener != null) {
+            mScrollListener.onJump();
+        }
+    }
+}
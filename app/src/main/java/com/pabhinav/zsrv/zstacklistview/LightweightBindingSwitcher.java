@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.support.v7.widget.RecyclerView;
+
+/**
+ * Measures scroll velocity of the list, and switches lightweight binding of its
+ * {@link MyRecyclerViewAdapter} accordingly.
+ * <p>
+ *     Past a threshold, tiles are bound lightweight (see
+ *     {@link MyRecyclerViewAdapter#setLightweightBinding(boolean)}), until the list
+ *     slows down well below it or settles. Independent of how stacking effect is
+ *     shown, so it is used along with {@link StackingLayoutManager} and with
+ *     {@link MyRecyclerOnScrollListener} alike.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public class LightweightBindingSwitcher extends RecyclerView.OnScrollListener {
+
+    /** Scroll velocity past which tiles are bound lightweight, in tiles per second **/
+    private static final int LIGHTWEIGHT_BINDING_TILES_PER_SECOND = 20;
+
+    /**
+     * Adapter whose binding is switched.
+     */
+    private final MyRecyclerViewAdapter mAdapter;
+
+    /**
+     * Scroll velocity past which tiles are bound lightweight, in pixels per second.
+     * Binding goes back to full below half of it, so that it does not flip back
+     * and forth around the threshold.
+     */
+    private final float mLightweightBindingVelocity;
+
+    /**
+     * Current scroll state of the list.
+     */
+    private int mScrollState = RecyclerView.SCROLL_STATE_IDLE;
+
+    /**
+     * Scroll velocity, measured while the list is scrolled by touch or flung.
+     */
+    private final ScrollVelocityTracker mVelocityTracker = new ScrollVelocityTracker(ScrollVelocityTracker.DEFAULT_SAMPLE_MILLIS);
+
+    /**
+     * Constructor for this class.
+     *
+     * @param adapter adapter whose binding is switched.
+     * @param context {@link Context} used to read tile height.
+     */
+    public LightweightBindingSwitcher(MyRecyclerViewAdapter adapter, Context context) {
+        mAdapter = adapter;
+        mLightweightBindingVelocity = LIGHTWEIGHT_BINDING_TILES_PER_SECOND
+                * context.getResources().getDimensionPixelSize(R.dimen.tile_height);
+    }
+
+    /**
+     * Once the list settles, tiles bound lightweight during a fling get their
+     * texts, all at once.
+     *
+     * @param recyclerView The RecyclerView whose scroll state has changed.
+     * @param newState     The updated scroll state.
+     */
+    @Override
+    public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+        super.onScrollStateChanged(recyclerView, newState);
+        mScrollState = newState;
+        if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+            mVelocityTracker.reset();
+            mAdapter.setLightweightBinding(false);
+        }
+    }
+
+    /**
+     * Measures scroll velocity over samples of about a frame, and switches lightweight
+     * binding of tiles bound from the next frame on. Jumps and layout passes (no scroll
+     * state, or no scroll) are not measured.
+     *
+     * @param recyclerView The RecyclerView which scrolled.
+     * @param dx The amount of horizontal scroll.
+     * @param dy The amount of vertical scroll.
+     */
+    @Override
+    public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+        super.onScrolled(recyclerView, dx, dy);
+        if (mScrollState == RecyclerView.SCROLL_STATE_IDLE || dy == 0
+                || !mVelocityTracker.onScrolled(SystemClock.uptimeMillis(), dy)) {
+            return;
+        }
+        float velocity = Math.abs(mVelocityTracker.getVelocity());
+        if (velocity > mLightweightBindingVelocity) {
+            mAdapter.setLightweightBinding(true);
+        } else if (velocity < mLightweightBindingVelocity / 2) {
+            mAdapter.setLightweightBinding(false);
+        }
+    }
+}
@@ -0,0 +1,359 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Computes the difference between two lists, as a minimal list of range updates.
+ * <p>
+ *     It uses Eugene W. Myers's difference algorithm, in its linear space variant
+ *     (divide and conquer on the middle snake), after stripping common prefix and
+ *     suffix of every range. Items are matched by identity, using
+ *     {@link ItemCallback#areItemsTheSame(Object, Object)}, and matched items whose
+ *     content differs are reported as changed. Moves are reported as a removal and
+ *     an insertion.
+ * </p>
+ * <p>
+ *     {@link #calculateDiff(List, List, ItemCallback)} does all the work and is meant
+ *     to run on a background thread. {@link DiffResult#dispatchUpdatesTo(ListUpdateCallback)}
+ *     only replays precomputed, coalesced range updates.
+ * </p>
+ * <p>
+ *     This class has no Android dependency.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ * @see <a href="http://www.xmailserver.org/diff2.pdf">An O(ND) Difference Algorithm and Its Variations</a>
+ */
+public class ListDiffer {
+
+    /**
+     * Callback deciding identity and content equality of list items.
+     */
+    public interface ItemCallback<T> {
+
+        /** @return true if both items represent the same entity **/
+        boolean areItemsTheSame(T oldItem, T newItem);
+
+        /** @return true if both items, already known to be the same entity, show the same content **/
+        boolean areContentsTheSame(T oldItem, T newItem);
+    }
+
+    /**
+     * Callback receiving range updates, e.g. forwarding them to an adapter.
+     */
+    public interface ListUpdateCallback {
+
+        void onInserted(int position, int count);
+
+        void onRemoved(int position, int count);
+
+        void onChanged(int position, int count);
+    }
+
+    /** Update types, as stored in {@link DiffResult} **/
+    private static final int TYPE_INSERT = 0;
+    private static final int TYPE_REMOVE = 1;
+    private static final int TYPE_CHANGE = 2;
+
+    /**
+     * Computes the difference between two lists. Neither list may be modified meanwhile.
+     *
+     * @param oldList list currently shown.
+     * @param newList list to be shown.
+     * @param itemCallback callback deciding identity and content equality.
+     * @return result which can dispatch range updates.
+     */
+    public static <T> DiffResult calculateDiff(List<T> oldList, List<T> newList, ItemCallback<T> itemCallback) {
+        int oldSize = oldList.size();
+        int newSize = newList.size();
+
+        /** Matched diagonals, as { oldStart, newStart, length }, with empty ones at both ends **/
+        List<int[]> diagonals = new ArrayList<>();
+        diagonals.add(new int[] {0, 0, 0});
+        diagonals.add(new int[] {oldSize, newSize, 0});
+
+        /** Ranges still to be matched, as { oldStart, oldEnd, newStart, newEnd } **/
+        List<int[]> ranges = new ArrayList<>();
+        ranges.add(new int[] {0, oldSize, 0, newSize});
+
+        /** Shared forward and backward furthest reaching points, indexed by diagonal + max **/
+        int max = (oldSize + newSize + 1) / 2 + 1;
+        int[] forward = new int[2 * max + 1];
+        int[] backward = new int[2 * max + 1];
+
+        while (!ranges.isEmpty()) {
+            int[] range = ranges.remove(ranges.size() - 1);
+            int oldStart = range[0], oldEnd = range[1], newStart = range[2], newEnd = range[3];
+
+            /** Strip common prefix **/
+            int prefix = 0;
+            while (oldStart + prefix < oldEnd && newStart + prefix < newEnd
+                    && itemCallback.areItemsTheSame(oldList.get(oldStart + prefix), newList.get(newStart + prefix))) {
+                prefix++;
+            }
+            if (prefix > 0) {
+                diagonals.add(new int[] {oldStart, newStart, prefix});
+                oldStart += prefix;
+                newStart += prefix;
+            }
+
+            /** Strip common suffix **/
+            int suffix = 0;
+            while (oldEnd - suffix > oldStart && newEnd - suffix > newStart
+                    && itemCallback.areItemsTheSame(oldList.get(oldEnd - suffix - 1), newList.get(newEnd - suffix - 1))) {
+                suffix++;
+            }
+            if (suffix > 0) {
+                diagonals.add(new int[] {oldEnd - suffix, newEnd - suffix, suffix});
+                oldEnd -= suffix;
+                newEnd -= suffix;
+            }
+
+            /** Only insertions or only removals left, nothing more to match **/
+            if (oldStart == oldEnd || newStart == newEnd) {
+                continue;
+            }
+
+            int[] snake = middleSnake(oldList, newList, itemCallback, oldStart, oldEnd, newStart, newEnd, forward, backward, max);
+
+            /** snake is { leftOldEnd, leftNewEnd, diagonalOldStart, diagonalNewStart, diagonalLength, rightOldStart, rightNewStart } **/
+            if (snake[4] > 0) {
+                diagonals.add(new int[] {snake[2], snake[3], snake[4]});
+            }
+            ranges.add(new int[] {oldStart, snake[0], newStart, snake[1]});
+            ranges.add(new int[] {snake[5], oldEnd, snake[6], newEnd});
+        }
+
+        Collections.sort(diagonals, new Comparator<int[]>() {
+            @Override
+            public int compare(int[] lhs, int[] rhs) {
+                int compare = (lhs[0] < rhs[0]) ? -1 : ((lhs[0] == rhs[0]) ? 0 : 1);
+                return (compare != 0) ? compare : ((lhs[1] < rhs[1]) ? -1 : ((lhs[1] == rhs[1]) ? 0 : 1));
+            }
+        });
+
+        return new DiffResult(buildUpdates(oldList, newList, itemCallback, diagonals), oldSize, newSize);
+    }
+
+    /**
+     * Finds the middle snake of a range, whose first and last items differ on both sides.
+     *
+     * @return { leftOldEnd, leftNewEnd, diagonalOldStart, diagonalNewStart, diagonalLength, rightOldStart, rightNewStart }
+     */
+    private static <T> int[] middleSnake(List<T> oldList, List<T> newList, ItemCallback<T> itemCallback,
+                                         int oldStart, int oldEnd, int newStart, int newEnd,
+                                         int[] forward, int[] backward, int max) {
+        int n = oldEnd - oldStart;
+        int m = newEnd - newStart;
+        int delta = n - m;
+        boolean deltaOdd = (delta & 1) != 0;
+
+        /**
+         * forward[k + max] is the furthest old offset reached from the start on diagonal k = x - y,
+         * backward[k + max] is the furthest old offset reached from the end, on reversed diagonal k.
+         */
+        forward[max + 1] = 0;
+        backward[max + 1] = 0;
+
+        for (int d = 0; d <= (n + m + 1) / 2; d++) {
+
+            /** Forward pass **/
+            for (int k = -d; k <= d; k += 2) {
+                int previousX, x;
+                if (k == -d || (k != d && forward[max + k + 1] > forward[max + k - 1])) {
+                    /** Move down, i.e. insertion **/
+                    previousX = forward[max + k + 1];
+                    x = previousX;
+                } else {
+                    /** Move right, i.e. removal **/
+                    previousX = forward[max + k - 1];
+                    x = previousX + 1;
+                }
+                int y = x - k;
+                int previousY = (d == 0 || x != previousX) ? y : y - 1;
+                int diagonalX = x, diagonalY = y;
+                while (x < n && y < m && itemCallback.areItemsTheSame(oldList.get(oldStart + x), newList.get(newStart + y))) {
+                    x++;
+                    y++;
+                }
+                forward[max + k] = x;
+                int reversedK = delta - k;
+                if (deltaOdd && reversedK >= -(d - 1) && reversedK <= d - 1 && x + backward[max + reversedK] >= n) {
+                    return new int[] {
+                            oldStart + previousX, newStart + previousY,
+                            oldStart + diagonalX, newStart + diagonalY, x - diagonalX,
+                            oldStart + x, newStart + y
+                    };
+                }
+            }
+
+            /** Backward pass, on reversed lists **/
+            for (int k = -d; k <= d; k += 2) {
+                int previousX, x;
+                if (k == -d || (k != d && backward[max + k + 1] > backward[max + k - 1])) {
+                    previousX = backward[max + k + 1];
+                    x = previousX;
+                } else {
+                    previousX = backward[max + k - 1];
+                    x = previousX + 1;
+                }
+                int y = x - k;
+                int previousY = (d == 0 || x != previousX) ? y : y - 1;
+                int diagonalX = x;
+                while (x < n && y < m && itemCallback.areItemsTheSame(oldList.get(oldEnd - x - 1), newList.get(newEnd - y - 1))) {
+                    x++;
+                    y++;
+                }
+                backward[max + k] = x;
+                int forwardK = delta - k;
+                if (!deltaOdd && forwardK >= -d && forwardK <= d && x + forward[max + forwardK] >= n) {
+                    return new int[] {
+                            oldEnd - x, newEnd - y,
+                            oldEnd - x, newEnd - y, x - diagonalX,
+                            oldEnd - previousX, newEnd - previousY
+                    };
+                }
+            }
+        }
+        throw new IllegalStateException("Middle snake not found, lists modified while diffing ?");
+    }
+
+    /**
+     * Walks matched diagonals from the end, turning the gaps between them into
+     * removals and insertions, and content changes on them into change runs.
+     * Updates are ordered so that every position is valid when dispatched.
+     */
+    private static <T> int[] buildUpdates(List<T> oldList, List<T> newList, ItemCallback<T> itemCallback, List<int[]> diagonals) {
+        IntList updates = new IntList();
+        int oldPosition = oldList.size();
+        int newPosition = newList.size();
+        for (int i = diagonals.size() - 1; i >= 0; i--) {
+            int[] diagonal = diagonals.get(i);
+            int oldEnd = diagonal[0] + diagonal[2];
+            int newEnd = diagonal[1] + diagonal[2];
+
+            if (oldPosition > oldEnd) {
+                updates.add(TYPE_REMOVE, oldEnd, oldPosition - oldEnd);
+            }
+            if (newPosition > newEnd) {
+                updates.add(TYPE_INSERT, oldEnd, newPosition - newEnd);
+            }
+
+            /** Coalesce runs of changed items on this diagonal **/
+            int changedRunEnd = -1;
+            for (int j = diagonal[2] - 1; j >= 0; j--) {
+                boolean same = itemCallback.areContentsTheSame(oldList.get(diagonal[0] + j), newList.get(diagonal[1] + j));
+                if (!same && changedRunEnd < 0) {
+                    changedRunEnd = diagonal[0] + j + 1;
+                } else if (same && changedRunEnd >= 0) {
+                    updates.add(TYPE_CHANGE, diagonal[0] + j + 1, changedRunEnd - (diagonal[0] + j + 1));
+                    changedRunEnd = -1;
+                }
+            }
+            if (changedRunEnd >= 0) {
+                updates.add(TYPE_CHANGE, diagonal[0], changedRunEnd - diagonal[0]);
+            }
+
+            oldPosition = diagonal[0];
+            newPosition = diagonal[1];
+        }
+        return updates.toArray();
+    }
+
+    /**
+     * Result of {@link #calculateDiff(List, List, ItemCallback)}.
+     *
+     * @author pabhinav (pabhinav@iitrpr.ac.in)
+     */
+    public static class DiffResult {
+
+        /** Updates as consecutive { type, position, count } triples **/
+        private final int[] mUpdates;
+
+        /** Sizes of diffed lists **/
+        private final int mOldSize, mNewSize;
+
+        private DiffResult(int[] updates, int oldSize, int newSize) {
+            mUpdates = updates;
+            mOldSize = oldSize;
+            mNewSize = newSize;
+        }
+
+        /**
+         * @return number of range updates.
+         */
+        public int getUpdateCount() {
+            return mUpdates.length / 3;
+        }
+
+        /**
+         * Replays range updates, each position being valid at the time it is dispatched.
+         *
+         * @param listUpdateCallback receiver of updates.
+         */
+        public void dispatchUpdatesTo(ListUpdateCallback listUpdateCallback) {
+            for (int i = 0; i < mUpdates.length; i += 3) {
+                switch (mUpdates[i]) {
+                    case TYPE_INSERT:
+                        listUpdateCallback.onInserted(mUpdates[i + 1], mUpdates[i + 2]);
+                        break;
+                    case TYPE_REMOVE:
+                        listUpdateCallback.onRemoved(mUpdates[i + 1], mUpdates[i + 2]);
+                        break;
+                    default:
+                        listUpdateCallback.onChanged(mUpdates[i + 1], mUpdates[i + 2]);
+                        break;
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "DiffResult{" + mOldSize + " -> " + mNewSize + ", " + getUpdateCount() + " updates}";
+        }
+    }
+
+    /**
+     * Minimal growable int array, avoiding boxing of update triples.
+     */
+    private static class IntList {
+
+        private int[] mValues = new int[48];
+        private int mSize;
+
+        void add(int type, int position, int count) {
+            if (mSize + 3 > mValues.length) {
+                int[] values = new int[mValues.length * 2];
+                System.arraycopy(mValues, 0, values, 0, mSize);
+                mValues = values;
+            }
+            mValues[mSize++] = type;
+            mValues[mSize++] = position;
+            mValues[mSize++] = count;
+        }
+
+        int[] toArray() {
+            int[] values = new int[mSize];
+            System.arraycopy(mValues, 0, values, 0, mSize);
+            return values;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared executors for list work.
+ * <p>
+ *     Background work (projection of bind models, data loading, etc.) runs on
+ *     a small pool of low priority threads, and results are handed back using
+ *     the main thread executor.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public class ListExecutors {
+
+    /** Number of background threads, leaves at least one core for rendering **/
+    private static final int BACKGROUND_THREAD_COUNT = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1));
+
+    /** Background executor **/
+    private static final ExecutorService sBackgroundExecutor = Executors.newFixedThreadPool(BACKGROUND_THREAD_COUNT, new ThreadFactory() {
+
+        private final AtomicInteger mCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    /** Do not compete with the main thread for cpu **/
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, "ZStackList #" + mCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    /** Main thread executor **/
+    private static final Executor sMainThreadExecutor = new Executor() {
+
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void execute(Runnable runnable) {
+            mHandler.post(runnable);
+        }
+    };
+
+    /**
+     * @return executor running low priority background work.
+     */
+    public static ExecutorService background() {
+        return sBackgroundExecutor;
+    }
+
+    /**
+     * @return executor posting work to the main thread.
+     */
+    public static Executor mainThread() {
+        return sMainThreadExecutor;
+    }
+}
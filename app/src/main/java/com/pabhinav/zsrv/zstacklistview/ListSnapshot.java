@@ -0,0 +1,273 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+import android.view.View;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Saves list state so that it survives process death, without going through
+ * the instance state {@link Bundle}, which is limited by the Binder transaction size.
+ * <p>
+ *     Rows are written to app storage as a {@link MappedDataFile}, on a background
+ *     thread, once they are loaded, and again shortly after they change (see
+ *     {@link #onRowsChanged(List)}). Nothing is written on the main thread : a write still
+ *     due when the state is saved is only started right away, in background. The instance
+ *     state holds the number of rows of the last completed write, whose file is replaced
+ *     atomically by later writes, and the scroll anchor : id, position
+ *     and offset of the top row. The id finds the anchor again whether the list was
+ *     filtered by a search or not. On restore, the snapshot is mapped, which takes the
+ *     same few milliseconds whatever its size, and rows are only decoded when bound.
+ * </p>
+ * <p>
+ *     Across configuration changes, rows are not read back from the snapshot : the
+ *     activity retains them in memory. Must only be used from the main thread.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public class ListSnapshot {
+
+    /** Name of the snapshot file, in app files directory **/
+    private static final String SNAPSHOT_FILE_NAME = "list_snapshot.bin";
+
+    /** Instance state keys **/
+    private static final String STATE_ROW_COUNT = "com.pabhinav.zsrv.zstacklistview.SNAPSHOT_ROW_COUNT";
+    private static final String STATE_ANCHOR_ID = "com.pabhinav.zsrv.zstacklistview.ANCHOR_ID";
+    private static final String STATE_ANCHOR_POSITION = "com.pabhinav.zsrv.zstacklistview.ANCHOR_POSITION";
+    private static final String STATE_ANCHOR_OFFSET = "com.pabhinav.zsrv.zstacklistview.ANCHOR_OFFSET";
+
+    /** Value of {@link #mWrittenRowCount} while no snapshot is written **/
+    private static final int NOT_WRITTEN = -1;
+
+    /** Delay of a write after rows changed, so that a burst of changes is written once **/
+    private static final long CHANGED_ROWS_WRITE_DELAY_MILLIS = 1000;
+
+    /** Snapshot file **/
+    private final File mFile;
+
+    /** Number of rows of the last completed write, possibly older than the current rows **/
+    private int mWrittenRowCount = NOT_WRITTEN;
+
+    /** Incremented for every write, so that an outdated write is neither done nor reported **/
+    private volatile int mWriteGeneration;
+
+    /** Held while writing, so that writes of the same file do not overlap **/
+    private final Object mWriteLock = new Object();
+
+    /** Main thread handler delaying writes of changed rows **/
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    /** Writes changed rows **/
+    private final Runnable mChangedRowsWrite = new Runnable() {
+        @Override
+        public void run() {
+            writeInBackground(mPendingRows);
+            mPendingRows = null;
+        }
+    };
+
+    /** Changed rows waiting for {@link #mChangedRowsWrite}, null if none **/
+    private List<DataObject> mPendingRows;
+
+    /**
+     * Constructor for this class.
+     *
+     * @param context used to locate app storage.
+     */
+    public ListSnapshot(Context context) {
+        mFile = new File(context.getFilesDir(), SNAPSHOT_FILE_NAME);
+    }
+
+    /**
+     * Writes rows to the snapshot file on a background thread.
+     *
+     * @param rows loaded rows, null elements (placeholders) are left out. A modifiable list is copied.
+     */
+    public void writeInBackground(List<DataObject> rows) {
+        final List<DataObject> writtenRows = copyOf(rows);
+        final int generation = ++mWriteGeneration;
+        mPendingRows = null;
+        mHandler.removeCallbacks(mChangedRowsWrite);
+        ListExecutors.background().execute(new Runnable() {
+            @Override
+            public void run() {
+                if (!write(writtenRows, generation)) {
+                    return;
+                }
+
+                /** Writes are done in order, the file now holds these rows even if newer ones are due **/
+                ListExecutors.mainThread().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        mWrittenRowCount = writtenRows.size();
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Writes rows again shortly, e.g. after rows were added, updated or deleted. Until
+     * written, saved state keeps referencing the previous snapshot.
+     *
+     * @param rows all rows, null elements (placeholders) are left out of the snapshot.
+     */
+    public void onRowsChanged(List<DataObject> rows) {
+        ++mWriteGeneration;
+        mPendingRows = rows;
+        mHandler.removeCallbacks(mChangedRowsWrite);
+        mHandler.postDelayed(mChangedRowsWrite, CHANGED_ROWS_WRITE_DELAY_MILLIS);
+    }
+
+    /**
+     * Writes the snapshot file, unless a newer write was requested meanwhile.
+     *
+     * @return whether rows were written.
+     */
+    private boolean write(List<DataObject> rows, int generation) {
+        synchronized (mWriteLock) {
+            if (generation != mWriteGeneration) {
+                return false;
+            }
+            try {
+                /** Columnar rows are written from their columns, without materializing them **/
+                if (rows instanceof RowStoreList && ((RowStoreList) rows).getStore() instanceof ColumnarDataStore) {
+                    MappedDataFileWriter.write(mFile, (ColumnarDataStore) ((RowStoreList) rows).getStore());
+                } else {
+                    MappedDataFileWriter.write(mFile, rows);
+                }
+                return true;
+            } catch (IOException e) {
+                Log.e("List snapshot : ", "Cannot write " + mFile, e);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return rows as they are now : read only views as they are, a copy of others
+     *         without placeholders, which {@link MappedDataFileWriter} cannot write.
+     */
+    private static List<DataObject> copyOf(List<DataObject> rows) {
+        if (rows instanceof RowStoreList) {
+            return rows;
+        }
+        List<DataObject> copy = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            DataObject row = rows.get(i);
+            if (row != null) {
+                copy.add(row);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Marks rows restored by {@link #restoreRows(Bundle)} as already written.
+     *
+     * @param rows restored rows.
+     */
+    public void setRestored(List<DataObject> rows) {
+        ++mWriteGeneration;
+        mWrittenRowCount = rows.size();
+    }
+
+    /**
+     * Saves the reference to the last completed snapshot and the scroll anchor. Rows
+     * changed since the last write start being written in background right away, as the
+     * process may die any time once its state is saved : if it does before that write
+     * completes, the previous snapshot is restored, or none if the file was replaced by
+     * rows of another count meanwhile.
+     *
+     * @param outState instance state of the activity.
+     * @param recyclerView list whose scroll anchor is saved.
+     */
+    public void saveState(Bundle outState, RecyclerView recyclerView) {
+        if (mPendingRows != null) {
+            writeInBackground(mPendingRows);
+        }
+        outState.putInt(STATE_ROW_COUNT, mWrittenRowCount);
+        View topChild = recyclerView.getChildAt(0);
+        if (topChild != null) {
+            outState.putLong(STATE_ANCHOR_ID, recyclerView.getChildItemId(topChild));
+            outState.putInt(STATE_ANCHOR_POSITION, recyclerView.getChildLayoutPosition(topChild));
+            outState.putInt(STATE_ANCHOR_OFFSET, topChild.getTop() - recyclerView.getPaddingTop());
+        }
+    }
+
+    /**
+     * Maps rows saved before the process died. A snapshot of another layout version,
+     * e.g. written before avatar uris were saved, is rejected by {@link MappedDataFile#open(File)}
+     * and not restored : rows are loaded again instead.
+     *
+     * @param savedInstanceState instance state given to the activity, may be null.
+     * @return rows of the snapshot, or null if there is none or it is of another version.
+     */
+    public List<DataObject> restoreRows(Bundle savedInstanceState) {
+        int rowCount = (savedInstanceState == null) ? NOT_WRITTEN : savedInstanceState.getInt(STATE_ROW_COUNT, NOT_WRITTEN);
+        if (rowCount == NOT_WRITTEN) {
+            return null;
+        }
+        try {
+            MappedDataFile mappedDataFile = MappedDataFile.open(mFile);
+
+            /** Snapshot of other rows, written after the state was saved **/
+            if (mappedDataFile.size() != rowCount) {
+                return null;
+            }
+            return mappedDataFile.asList();
+        } catch (IOException e) {
+            Log.e("List snapshot : ", "Cannot restore " + mFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * Scrolls the list back to its saved anchor row. Rows have to be in the adapter already.
+     *
+     * @param savedInstanceState instance state given to the activity, may be null.
+     * @param linearLayoutManager layout manager of the list.
+     * @param adapter adapter of the list, finding the anchor row.
+     * @return whether an anchor was restored.
+     */
+    public static boolean restoreAnchor(Bundle savedInstanceState, LinearLayoutManager linearLayoutManager,
+                                        MyRecyclerViewAdapter adapter) {
+        if (savedInstanceState == null || !savedInstanceState.containsKey(STATE_ANCHOR_ID)) {
+            return false;
+        }
+
+        /** Saved position may be in a list filtered by a search, the id is not **/
+        int position = adapter.findPosition(savedInstanceState.getLong(STATE_ANCHOR_ID),
+                savedInstanceState.getInt(STATE_ANCHOR_POSITION));
+        if (position == RecyclerView.NO_POSITION) {
+            return false;
+        }
+        linearLayoutManager.scrollToPositionWithOffset(position, savedInstanceState.getInt(STATE_ANCHOR_OFFSET));
+        return true;
+    }
+}
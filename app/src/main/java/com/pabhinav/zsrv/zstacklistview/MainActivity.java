@@ -16,16 +16,23 @@
 package com.pabhinav.zsrv.zstacklistview;
 
 import android.os.Bundle;
+import android.os.SystemClock;
+import android.support.v4.view.MenuItemCompat;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.SearchView;
+import android.support.v7.widget.SimpleItemAnimator;
 import android.util.Log;
+import android.view.Menu;
 import android.view.View;
+import android.view.ViewTreeObserver;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
-
-import butterknife.Bind;
-import butterknife.ButterKnife;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * This is the launcher activity for this app.
@@ -39,19 +46,81 @@ import butterknife.ButterKnife;
  */
 public class MainActivity extends AppCompatActivity {
 
+    /**
+     * Whether rows are loaded page by page from {@link DummyPagedDataSource},
+     * instead of eagerly generated with {@link #generateData()}.
+     */
+    private static final boolean USE_PAGED_DATA_SOURCE = false;
+
+    /**
+     * Number of rows generated by {@link DummyPagedDataSource}.
+     */
+    private static final int PAGED_DUMMY_ROW_COUNT = 100000;
+
+    /**
+     * Whether generated rows are kept in a {@link ColumnarDataStore} (see
+     * {@link #generateColumnarData()}), instead of one {@link DataObject} per row.
+     */
+    private static final boolean USE_COLUMNAR_STORE = false;
+
+    /**
+     * Whether generated rows are written once to a file, then read through a
+     * {@link MappedDataFile} (see {@link #openMappedData()}).
+     */
+    private static final boolean USE_MAPPED_DATA_FILE = false;
+
+    /**
+     * Number of rows generated by {@link #generateData()}, unless overridden
+     * with {@link #EXTRA_ROW_COUNT}.
+     */
+    private static final int DEFAULT_ROW_COUNT = 20;
+
+    /**
+     * Optional int extra of the launching intent : number of rows generated
+     * by {@link #generateData()}, e.g. for benchmarks.
+     */
+    public static final String EXTRA_ROW_COUNT = "com.pabhinav.zsrv.zstacklistview.ROW_COUNT";
+
+    /**
+     * Whether stacking effect is laid out by {@link StackingLayoutManager}, the
+     * default, instead of the masked tile view driven by {@link MyRecyclerOnScrollListener}.
+     */
+    private static final boolean USE_STACKING_LAYOUT_MANAGER = true;
+
+    /**
+     * Whether tiles (and masked tile) are drawn by a single flattened {@link TileView},
+     * instead of the tile layout made of separate text views.
+     */
+    private static final boolean USE_FLAT_TILE_VIEW = false;
+
+    /**
+     * Whether a {@link LetterRailView} fast scroller is shown over the list. Rows
+     * generated by {@link #generateData()} are then sorted by section.
+     */
+    private static final boolean USE_LETTER_RAIL = false;
+
+    /**
+     * Whether scroll performance metrics are collected, see {@link ScrollMetrics}.
+     */
+    private static final boolean ENABLE_SCROLL_METRICS = BuildConfig.DEBUG;
+
+    /**
+     * Logs scroll metrics. Static, so that {@link ScrollMetrics} holding it does not
+     * hold an activity.
+     */
+    private static final ScrollMetrics.Listener SCROLL_METRICS_LOGGER = new ScrollMetrics.Listener() {
+        @Override
+        public void onScrollSettled(ScrollMetrics.Snapshot snapshot) {
+            Log.d("Scroll metrics : ", snapshot.toString());
+        }
+    };
+
     /**
      * {@link RecyclerView} used to populate a list of items.
      * This view will also be passed to its {@link MyRecyclerViewAdapter},
      * which is an adapter for this view, where this view is used
      * to manipulate its listed item's visibilities.
-     * <p>
-     *     It uses Jake Wharton's {@link ButterKnife} library to
-     *     initialize itself.
-     *     @see <a href = "http://jakewharton.github.io/butterknife/">
-     *         Butterknife Library</a>
-     * </p>
      */
-    @Bind(R.id.my_recycler_view)
     RecyclerView mRecyclerView;
 
     /**
@@ -67,12 +136,84 @@ public class MainActivity extends AppCompatActivity {
      */
     RecyclerView.Adapter mAdapter;
 
+    /**
+     * Inflates tiles for the first screen and the first fling in background.
+     */
+    TileViewPrewarmer mTileViewPrewarmer;
+
+    /**
+     * Timestamps of startup phases, see {@link #getStartupTimings()}.
+     */
+    private final StartupTimings mStartupTimings = new StartupTimings();
+
+    /**
+     * Keeps time passed labels of visible tiles up to date, while resumed.
+     */
+    private TimePassedTicker mTimePassedTicker;
+
+    /**
+     * Filters the list by name, from the search action.
+     */
+    private NameSearcher mNameSearcher;
+
+    /**
+     * Applies row changes from background feeds once per frame, null with a paged source.
+     */
+    private RowIngestor mRowIngestor;
+
+    /**
+     * Number of rows generated by {@link #generateData()}.
+     */
+    private int mRowCount = DEFAULT_ROW_COUNT;
+
+    /**
+     * Listener syncing masked tile view, null with {@link StackingLayoutManager}.
+     */
+    private MyRecyclerOnScrollListener mScrollListener;
+
+    /**
+     * Prepares rows ahead of fast scrolls.
+     */
+    private ScrollPrefetcher mScrollPrefetcher;
+
+    /**
+     * All rows once loaded, kept up to date as rows are added, updated or deleted,
+     * and kept across configuration changes.
+     */
+    private List<DataObject> mRows;
+
+    /**
+     * Snapshot of {@link #mRows} surviving process death, rewritten as they change.
+     */
+    private ListSnapshot mListSnapshot;
+
+    /**
+     * State retained across a configuration change, so that rows are neither
+     * generated nor read again.
+     */
+    private static class RetainedState {
+
+        final List<DataObject> rows;
+
+        final ListSnapshot listSnapshot;
+
+        RetainedState(List<DataObject> rows, ListSnapshot listSnapshot) {
+            this.rows = rows;
+            this.listSnapshot = listSnapshot;
+        }
+    }
+
     /**
      * Called when the activity is starting.
      *
      * <p>It initializes {@link RecyclerView} and attach to its customized
-     * {@link MyRecyclerViewAdapter}, also uses {@link ButterKnife},
-     * a library by JakeWharton.
+     * {@link MyRecyclerViewAdapter}, showing skeleton tiles. Nothing slow runs
+     * here : rows are loaded on a background thread, then swapped in with a
+     * single batched update (see {@link #loadDataInBackground()}).
+     *
+     * <p>When recreated, rows are not loaded again : they are retained in memory
+     * across configuration changes, and mapped back from a {@link ListSnapshot}
+     * after process death. The list is then scrolled back to where it was.
      *
      * @param savedInstanceState If the activity is being re-initialized after
      *     previously being shut down then this Bundle contains the data it most
@@ -81,8 +222,26 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        setContentView(R.layout.activity_main);
-        ButterKnife.bind(this);
+        mStartupTimings.markCreate(SystemClock.uptimeMillis());
+        setContentView(USE_FLAT_TILE_VIEW ? R.layout.activity_main_flat : R.layout.activity_main);
+        mRecyclerView = (RecyclerView) findViewById(R.id.my_recycler_view);
+        mRowCount = getIntent().getIntExtra(EXTRA_ROW_COUNT, DEFAULT_ROW_COUNT);
+
+        /** Rows of a previous instance of this activity, if any **/
+        List<DataObject> restoredRows = null;
+        RetainedState retainedState = (RetainedState) getLastCustomNonConfigurationInstance();
+        if (retainedState != null) {
+            restoredRows = retainedState.rows;
+            mListSnapshot = retainedState.listSnapshot;
+        } else {
+            mListSnapshot = new ListSnapshot(this);
+            if (!USE_PAGED_DATA_SOURCE) {
+                restoredRows = mListSnapshot.restoreRows(savedInstanceState);
+                if (restoredRows != null) {
+                    mListSnapshot.setRestored(restoredRows);
+                }
+            }
+        }
 
         /**
          * {@link RecyclerView} can perform several optimizations if it can know
@@ -96,32 +255,267 @@ public class MainActivity extends AppCompatActivity {
 
         /**
          * {@link LinearLayoutManager} creates a vertical list of tiles. Initialize
-         * it with {@link Context} object.
+         * it with {@link Context} object. {@link StackingLayoutManager} also pins
+         * the first tile, to show stacking effect.
          */
-        mLayoutManager = new LinearLayoutManager(this);
+        mLayoutManager = USE_STACKING_LAYOUT_MANAGER ? new StackingLayoutManager(this) : new LinearLayoutManager(this);
 
         /**
          * Attach {@link LinearLayoutManager} to our {@link RecyclerView}.
          */
         mRecyclerView.setLayoutManager(mLayoutManager);
 
+        /**
+         * Items changed with an {@link MyRecyclerViewAdapter.ItemChange} payload are updated
+         * in place, on the same holder. A change animation would bind a fresh holder in full
+         * and cross fade it over the old one instead, payloads never reaching it.
+         */
+        ((SimpleItemAnimator) mRecyclerView.getItemAnimator()).setSupportsChangeAnimations(false);
+
         /**
          * Initailize {@link MyRecyclerViewAdapter} custom adapter for our {@link RecyclerView}.
-         * Custom Adapter requires {@link Context} object, List of item's data,
-         * {@link LinearLayoutManager} object and {@link RecyclerView} itself.
+         * Custom Adapter requires {@link Context} object, List of item's data (or a paged
+         * source of it), {@link LinearLayoutManager} object and {@link RecyclerView} itself.
+         * Until real rows are loaded, a screen of null rows is shown as skeleton tiles.
+         * Retained rows are already projected, and shown right away.
          */
-        mAdapter = new MyRecyclerViewAdapter(this,generateData(), mLayoutManager);
+        if (USE_PAGED_DATA_SOURCE) {
+            mAdapter = new MyRecyclerViewAdapter(this, new DummyPagedDataSource(PAGED_DUMMY_ROW_COUNT), mLayoutManager);
+        } else if (restoredRows instanceof ArrayList) {
+            mAdapter = new MyRecyclerViewAdapter(this, new ArrayList<>(restoredRows), mLayoutManager);
+        } else {
+            ArrayList<DataObject> skeleton = new ArrayList<>(
+                    Collections.<DataObject>nCopies(TileViewPrewarmer.viewportCapacity(this, 0), null));
+            mAdapter = new MyRecyclerViewAdapter(this, skeleton, mLayoutManager);
+        }
+        ((MyRecyclerViewAdapter) mAdapter).setUseFlatTileView(USE_FLAT_TILE_VIEW);
+
+        /** Rows retained and snapshotted are the ones shown, with every later change **/
+        ((MyRecyclerViewAdapter) mAdapter).setOnRowsChangedListener(new MyRecyclerViewAdapter.OnRowsChangedListener() {
+            @Override
+            public void onRowsChanged(List<DataObject> rows) {
+                mRows = rows;
+                mNameSearcher.updateSource(rows);
+                mListSnapshot.onRowsChanged(rows);
+            }
+        });
 
         /**
          * Attach {@link MyRecyclerViewAdapter} custom adapter with our {@link RecyclerView}.
          */
         mRecyclerView.setAdapter(mAdapter);
 
+        /**
+         * Inflate enough tiles for a stacked viewport on a background thread, so that
+         * neither the first layout nor scrolling inflate tiles on the main thread.
+         */
+        mTileViewPrewarmer = new TileViewPrewarmer(this, ((MyRecyclerViewAdapter) mAdapter).getTileLayoutResId(),
+                TileViewPrewarmer.viewportCapacity(this, 0));
+        ((MyRecyclerViewAdapter) mAdapter).setTileViewPrewarmer(mTileViewPrewarmer);
+        mTileViewPrewarmer.prewarm(mRecyclerView);
+
         /**
          * Listen to scroll events using {@link android.support.v7.widget.RecyclerView.OnScrollListener}
-         * for {@link RecyclerView}.
+         * for {@link RecyclerView}, to imitate the first tile on masked tile view.
+         * {@link StackingLayoutManager} needs neither of them.
          */
-        mRecyclerView.addOnScrollListener(new MyRecyclerOnScrollListener(mLayoutManager, mRecyclerView, this));
+        if (USE_STACKING_LAYOUT_MANAGER) {
+            findViewById(R.id.masked_tile).setVisibility(View.GONE);
+        } else {
+            mScrollListener = new MyRecyclerOnScrollListener(mLayoutManager, mRecyclerView, this);
+            mRecyclerView.addOnScrollListener(mScrollListener);
+        }
+
+        /** Bind tiles lightweight while the list is flung fast **/
+        mRecyclerView.addOnScrollListener(new LightweightBindingSwitcher((MyRecyclerViewAdapter) mAdapter, this));
+
+        /** Load pages and prepare bind models ahead of fast scrolls, in background **/
+        mScrollPrefetcher = new ScrollPrefetcher(mRecyclerView, ScrollPrefetcher.DEFAULT_MEMORY_BUDGET_BYTES);
+        mRecyclerView.addOnScrollListener(mScrollPrefetcher);
+
+        /** Jump to alphabet sections, kept up to date by the adapter **/
+        if (USE_LETTER_RAIL && !USE_PAGED_DATA_SOURCE) {
+            ((MyRecyclerViewAdapter) mAdapter).setSectionIndexEnabled(true);
+            LetterRailView letterRailView = (LetterRailView) findViewById(R.id.letter_rail);
+            letterRailView.setVisibility(View.VISIBLE);
+            letterRailView.attach(mRecyclerView, mScrollListener);
+        }
+
+        /** Collect frame and hot path metrics, logged whenever scrolling stops **/
+        ScrollMetrics.setEnabled(ENABLE_SCROLL_METRICS);
+        if (ENABLE_SCROLL_METRICS) {
+            ScrollMetrics.track(mRecyclerView);
+            ScrollMetrics.setListener(SCROLL_METRICS_LOGGER);
+        }
+
+        mTimePassedTicker = new TimePassedTicker(mRecyclerView);
+        mNameSearcher = new NameSearcher(mRecyclerView);
+
+        /** Rows kept sorted for the letter rail get live rows merged at their place **/
+        if (!USE_PAGED_DATA_SOURCE) {
+            mRowIngestor = new RowIngestor((MyRecyclerViewAdapter) mAdapter, USE_LETTER_RAIL ? SectionIndex.SECTION_ORDER : null);
+        }
+
+        /** Record when the first frame gets drawn **/
+        mRecyclerView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                mRecyclerView.getViewTreeObserver().removeOnPreDrawListener(this);
+                mStartupTimings.markFirstDraw(SystemClock.uptimeMillis());
+                return true;
+            }
+        });
+
+        if (USE_PAGED_DATA_SOURCE) {
+            onRowsShown(savedInstanceState);
+        } else if (restoredRows != null) {
+            showRows(restoredRows, savedInstanceState);
+        } else {
+            loadDataInBackground();
+        }
+    }
+
+    /**
+     * Shows loaded rows, making them searchable.
+     *
+     * @param rows loaded rows, not modified afterwards.
+     * @param savedInstanceState state holding the scroll anchor to restore, may be null.
+     */
+    private void showRows(List<DataObject> rows, final Bundle savedInstanceState) {
+        mRows = rows;
+        mNameSearcher.setSource(rows);
+
+        /** Adapter was created with these very rows **/
+        if (rows instanceof ArrayList) {
+            onRowsShown(savedInstanceState);
+            return;
+        }
+        ((MyRecyclerViewAdapter) mAdapter).submitList(rows, new Runnable() {
+            @Override
+            public void run() {
+                onRowsShown(savedInstanceState);
+            }
+        });
+    }
+
+    /**
+     * Called once rows are in the adapter : records startup timings, starts applying
+     * live row changes and scrolls back to the saved anchor, if any, syncing masked
+     * tile view right away.
+     *
+     * @param savedInstanceState state holding the scroll anchor to restore, may be null.
+     */
+    private void onRowsShown(Bundle savedInstanceState) {
+        mStartupTimings.markDataReady(SystemClock.uptimeMillis());
+        Log.d("Startup : ", mStartupTimings.toString());
+        if (mRowIngestor != null) {
+            mRowIngestor.start();
+        }
+        if (ListSnapshot.restoreAnchor(savedInstanceState, mLayoutManager, (MyRecyclerViewAdapter) mAdapter)
+                && mScrollListener != null) {
+            mScrollListener.onJump();
+        }
+    }
+
+    /**
+     * Generates rows on a background thread, then hands them to
+     * {@link MyRecyclerViewAdapter#submitList(List, Runnable)}, which projects
+     * them off the main thread too and rebinds skeleton tiles in one batch.
+     */
+    private void loadDataInBackground() {
+        ListExecutors.background().execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<DataObject> dataObjects;
+                if (USE_MAPPED_DATA_FILE) {
+                    dataObjects = openMappedData();
+                } else if (USE_COLUMNAR_STORE) {
+                    dataObjects = generateColumnarData().asList();
+                } else {
+                    dataObjects = generateData();
+                }
+                ListExecutors.mainThread().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (isFinishing()) {
+                            return;
+                        }
+                        mRows = dataObjects;
+                        mNameSearcher.setSource(dataObjects);
+                        mListSnapshot.writeInBackground(dataObjects);
+                        ((MyRecyclerViewAdapter) mAdapter).submitList(dataObjects, new Runnable() {
+                            @Override
+                            public void run() {
+                                onRowsShown(null);
+                            }
+                        });
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Maps the file of dummy rows, writing it first if it does not exist yet. Mapping
+     * does not read rows : they are decoded only when bound. Runs on a background thread.
+     *
+     * @return rows of the file, or generated rows if the file cannot be used.
+     */
+    private List<DataObject> openMappedData() {
+        File file = new File(getFilesDir(), "dummy_rows_" + mRowCount + ".bin");
+        try {
+            if (!file.exists()) {
+                MappedDataFileWriter.write(file, generateColumnarData());
+            }
+            return MappedDataFile.open(file).asList();
+        } catch (IOException e) {
+            Log.e("Mapped data : ", "Cannot use " + file, e);
+            file.delete();
+            return generateData();
+        }
+    }
+
+    /**
+     * Saves the scroll anchor, along with a reference to the snapshot of rows.
+     *
+     * @param outState Bundle in which to place saved state.
+     */
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        mListSnapshot.saveState(outState, mRecyclerView);
+    }
+
+    /**
+     * Keeps loaded rows in memory across a configuration change.
+     *
+     * @return retained state, or null if rows are not loaded yet.
+     */
+    @Override
+    public Object onRetainCustomNonConfigurationInstance() {
+        return (mRows == null) ? null : new RetainedState(mRows, mListSnapshot);
+    }
+
+    /**
+     * @return timestamps of startup phases of this activity.
+     */
+    public StartupTimings getStartupTimings() {
+        return mStartupTimings;
+    }
+
+    /**
+     * @return searcher filtering the list by name.
+     */
+    public NameSearcher getNameSearcher() {
+        return mNameSearcher;
+    }
+
+    /**
+     * @return thread safe entry point for live row changes from background feeds,
+     *         or null with a paged source. Changes are applied once rows are shown.
+     */
+    public RowIngestor getRowIngestor() {
+        return mRowIngestor;
     }
 
     /**
@@ -134,6 +528,9 @@ public class MainActivity extends AppCompatActivity {
     public void onResume(){
         super.onResume();
 
+        /** Labels may have gone stale while paused **/
+        mTimePassedTicker.start();
+
         /**
          * {@link RecyclerView} has its each child item's click
          * event captured here. One can set setOnItemClickListener
@@ -151,11 +548,86 @@ public class MainActivity extends AppCompatActivity {
         );
     }
 
+    /**
+     * Stop refreshing time passed labels while not visible.
+     */
+    @Override
+    protected void onPause() {
+        mTimePassedTicker.stop();
+        super.onPause();
+    }
+
+    /**
+     * Adds the search action, filtering the list by name as the query is typed.
+     * Rows of a paged source are mostly not loaded, so they cannot be searched.
+     *
+     * @param menu The options menu in which items are placed.
+     * @return true for the menu to be displayed.
+     */
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        if (USE_PAGED_DATA_SOURCE) {
+            return super.onCreateOptionsMenu(menu);
+        }
+        getMenuInflater().inflate(R.menu.menu_main, menu);
+        SearchView searchView = (SearchView) MenuItemCompat.getActionView(menu.findItem(R.id.action_search));
+        searchView.setQueryHint(getString(R.string.action_search));
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                mNameSearcher.search(query);
+                return true;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                mNameSearcher.search(newText);
+                return true;
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Release decoded avatars and pooled bitmaps when the system runs low on memory.
+     *
+     * @param level how much memory to release.
+     */
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (mAdapter != null) {
+            ((MyRecyclerViewAdapter) mAdapter).getAvatarLoader().trimMemory(level);
+        }
+    }
+
+    /**
+     * Stop inflating tiles and searching for a list which is going away.
+     */
+    @Override
+    protected void onDestroy() {
+        mTileViewPrewarmer.cancel();
+        mNameSearcher.cancel();
+        if (mRowIngestor != null) {
+            mRowIngestor.release();
+        }
+        ScrollMetrics.setListener(null);
+        mScrollPrefetcher.release();
+
+        /** Avatar loader is shared by the process : release every tile, not to hold this activity **/
+        if (mScrollListener != null) {
+            mScrollListener.release();
+        }
+        mRecyclerView.setAdapter(null);
+        super.onDestroy();
+    }
+
     /**
      * Dummy data generator.
      * <p>
      *     This simply fills in some randomly captured data, and returns the list.
      *     It makes use of {@link DummyData} and {@link DataObject} classes.
+     *     Runs on a background thread, see {@link #loadDataInBackground()}.
      * </p>
      *
      * @return {@link ArrayList} of {@link DataObject} objects.
@@ -166,18 +638,41 @@ public class MainActivity extends AppCompatActivity {
         DummyData.resetAllCounters();
 
         ArrayList<DataObject> dataObjects = new ArrayList<>();
-        for(int i = 0; i<20; i++){
+        for(int i = 0; i<mRowCount; i++){
 
             /** Get the dummy parameters and inflate {@link DataObject} object **/
-            DataObject dataObject = new DataObject(DummyData.dummyName(), DummyData.dummyLocation(), DummyData.dummyTimePassed());
+            DataObject dataObject = new DataObject(i, DummyData.dummyName(), DummyData.dummyLocation(), DummyData.dummyCheckInTime());
             /** Add each object to the array list **/
             dataObjects.add(dataObject);
 
         }
 
+        /** Sections of the letter rail need rows sorted by section **/
+        if (USE_LETTER_RAIL) {
+            Collections.sort(dataObjects, SectionIndex.SECTION_ORDER);
+        }
+
         /** Return the populated dummy list **/
         return dataObjects;
     }
 
+    /**
+     * Same as {@link #generateData()}, filling a {@link ColumnarDataStore} instead,
+     * where repeated names and locations are stored once.
+     *
+     * @return {@link ColumnarDataStore} of dummy rows.
+     */
+    public ColumnarDataStore generateColumnarData(){
+
+        /** Reset all static counters before populating a fresh new dummy list **/
+        DummyData.resetAllCounters();
+
+        ColumnarDataStore store = new ColumnarDataStore(mRowCount);
+        for(int i = 0; i<mRowCount; i++){
+            store.add(i, DummyData.dummyName(), DummyData.dummyLocation(), DummyData.dummyCheckInTime());
+        }
+        return store;
+    }
+
 
 }
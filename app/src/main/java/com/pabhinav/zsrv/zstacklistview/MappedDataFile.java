@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Rows stored in a binary file, read through a {@link MappedByteBuffer}.
+ * <p>
+ *     File layout, big endian :
+ *     <ul>
+ *         <li>header : magic, version, row count, string count, offset of the string
+ *         index and offset of the string pool ({@link #HEADER_SIZE} bytes);</li>
+ *         <li>row table : one fixed size record per row, id, name reference,
+ *         location reference, check in time and avatar uri reference
+ *         ({@link #ROW_SIZE} bytes);</li>
+ *         <li>string index : start offset of each string in the pool, plus the end
+ *         of the pool;</li>
+ *         <li>string pool : distinct strings, UTF-8 encoded, back to back.</li>
+ *     </ul>
+ *     String references are indices in the string index, or {@link StringDictionary#NULL_CODE}.
+ *     Files are written by {@link MappedDataFileWriter}. Files of another version are
+ *     rejected on open, e.g. those written without avatar uris (version 1).
+ * </p>
+ * <p>
+ *     Opening a file only maps it and checks its header : it takes the same time
+ *     whatever the row count, and rows are paged in by the OS when read. Fields are
+ *     decoded on demand, recently decoded strings are cached. Through {@link #asList()},
+ *     only rows bound by {@link MyRecyclerViewAdapter} are ever decoded.
+ * </p>
+ * <p>
+ *     A file must be smaller than 2GB. Rows may be read from any thread.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public final class MappedDataFile implements RowStore {
+
+    /** First bytes of every file, "ZSRV" **/
+    static final int MAGIC = 0x5A535256;
+
+    /** Version of the layout **/
+    static final int VERSION = 2;
+
+    /** Size of the header, where the row table starts **/
+    static final int HEADER_SIZE = 32;
+
+    /** Size of a row record **/
+    static final int ROW_SIZE = 28;
+
+    /** Offsets of fields in a row record **/
+    private static final int ID_OFFSET = 0;
+    static final int NAME_OFFSET = 8;
+    private static final int LOCATION_OFFSET = 12;
+    private static final int CHECK_IN_TIME_OFFSET = 16;
+    private static final int AVATAR_URI_OFFSET = 24;
+
+    /** Number of decoded strings kept, a power of two **/
+    private static final int STRING_CACHE_SIZE = 1024;
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /** Mapped content of the file **/
+    private final ByteBuffer mBuffer;
+
+    /** Number of rows **/
+    private final int mRowCount;
+
+    /** Number of distinct strings **/
+    private final int mStringCount;
+
+    /** Offset of the string index **/
+    private final int mStringIndexOffset;
+
+    /** Offset of the string pool **/
+    private final int mPoolOffset;
+
+    /** Size of the string pool, in bytes **/
+    private final int mPoolSize;
+
+    /** Decoded strings, slot of a reference is its lowest bits **/
+    private final CachedString[] mCachedStrings = new CachedString[STRING_CACHE_SIZE];
+
+    /**
+     * Maps a file and checks its header. Rows are not read.
+     *
+     * @param file written by {@link MappedDataFileWriter}.
+     * @return mapped file.
+     * @throws IOException if the file cannot be read, or is not a valid rows file.
+     */
+    public static MappedDataFile open(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large to be mapped");
+            }
+
+            /** Mapping stays valid once the file is closed **/
+            return new MappedDataFile(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, length));
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    private MappedDataFile(File file, ByteBuffer buffer) throws IOException {
+        mBuffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not a rows file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException(file + " has unsupported version " + buffer.getInt(4));
+        }
+        mRowCount = buffer.getInt(8);
+        mStringCount = buffer.getInt(12);
+        long stringIndexOffset = buffer.getLong(16);
+        long poolOffset = buffer.getLong(24);
+
+        /** Check that every section fits, so that reads never go out of the file **/
+        if (mRowCount < 0 || mStringCount < 0
+                || stringIndexOffset != HEADER_SIZE + (long) mRowCount * ROW_SIZE
+                || poolOffset != stringIndexOffset + 4L * (mStringCount + 1)
+                || poolOffset > buffer.capacity()
+                || poolOffset + buffer.getInt((int) poolOffset - 4) != buffer.capacity()) {
+            throw new IOException(file + " is truncated or corrupted");
+        }
+        mStringIndexOffset = (int) stringIndexOffset;
+        mPoolOffset = (int) poolOffset;
+        mPoolSize = buffer.capacity() - mPoolOffset;
+    }
+
+    @Override
+    public int size() {
+        return mRowCount;
+    }
+
+    /**
+     * @return number of distinct strings.
+     */
+    public int getStringCount() {
+        return mStringCount;
+    }
+
+    /** Getters by row **/
+
+    @Override
+    public long getId(int row) {
+        return mBuffer.getLong(rowOffset(row) + ID_OFFSET);
+    }
+
+    public String getName(int row) {
+        return string(mBuffer.getInt(rowOffset(row) + NAME_OFFSET));
+    }
+
+    public String getLocation(int row) {
+        return string(mBuffer.getInt(rowOffset(row) + LOCATION_OFFSET));
+    }
+
+    public long getCheckInTime(int row) {
+        return mBuffer.getLong(rowOffset(row) + CHECK_IN_TIME_OFFSET);
+    }
+
+    public String getAvatarUri(int row) {
+        return string(mBuffer.getInt(rowOffset(row) + AVATAR_URI_OFFSET));
+    }
+
+    @Override
+    public DataObject toDataObject(int row) {
+        int offset = rowOffset(row);
+        return new DataObject(mBuffer.getLong(offset + ID_OFFSET), string(mBuffer.getInt(offset + NAME_OFFSET)),
+                string(mBuffer.getInt(offset + LOCATION_OFFSET)), mBuffer.getLong(offset + CHECK_IN_TIME_OFFSET),
+                string(mBuffer.getInt(offset + AVATAR_URI_OFFSET)));
+    }
+
+    /**
+     * @return new read only list view of the rows, see {@link RowStoreList}.
+     */
+    public RowStoreList asList() {
+        return new RowStoreList(this);
+    }
+
+    private int rowOffset(int row) {
+        if (row < 0 || row >= mRowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + ", size " + mRowCount);
+        }
+        return HEADER_SIZE + row * ROW_SIZE;
+    }
+
+    /**
+     * Decodes a string of the pool, unless recently decoded.
+     *
+     * @param reference index of the string, or {@link StringDictionary#NULL_CODE}.
+     * @return decoded string.
+     */
+    private String string(int reference) {
+        if (reference == StringDictionary.NULL_CODE) {
+            return null;
+        }
+        int slot = reference & (STRING_CACHE_SIZE - 1);
+        CachedString cachedString = mCachedStrings[slot];
+        if (cachedString != null && cachedString.reference == reference) {
+            return cachedString.value;
+        }
+        if (reference < 0 || reference >= mStringCount) {
+            throw new IllegalStateException("Invalid string reference " + reference);
+        }
+        int start = mBuffer.getInt(mStringIndexOffset + 4 * reference);
+        int end = mBuffer.getInt(mStringIndexOffset + 4 * (reference + 1));
+
+        /** Index entries are not checked on open, not to read them all **/
+        if (start < 0 || start > end || end > mPoolSize) {
+            throw new IllegalStateException("Invalid bounds " + start + ".." + end + " of string reference " + reference);
+        }
+        byte[] bytes = new byte[end - start];
+        ByteBuffer pool = mBuffer.duplicate();
+        pool.position(mPoolOffset + start);
+        pool.get(bytes);
+
+        String value = new String(bytes, UTF_8);
+        mCachedStrings[slot] = new CachedString(reference, value);
+        return value;
+    }
+
+    /**
+     * Decoded string along with its reference. Immutable, so that threads racing
+     * on a slot see either entry whole.
+     */
+    private static final class CachedString {
+
+        final int reference;
+
+        final String value;
+
+        CachedString(int reference, String value) {
+            this.reference = reference;
+            this.value = value;
+        }
+    }
+}
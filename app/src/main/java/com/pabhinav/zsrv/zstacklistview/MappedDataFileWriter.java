@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes rows in the binary format read by {@link MappedDataFile}.
+ * <p>
+ *     Names, locations and avatar uris share a single string pool : location references
+ *     follow name references, avatar uri references follow location references. The file is written next to its destination, then renamed
+ *     over it, so that a reader never maps a partially written file.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public final class MappedDataFileWriter {
+
+    /** Size of the output buffer **/
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private MappedDataFileWriter() {
+    }
+
+    /**
+     * Writes rows to a file.
+     *
+     * @param file destination, replaced if it exists.
+     * @param rows rows to write, with no null element.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(File file, List<DataObject> rows) throws IOException {
+        ColumnarDataStore store = new ColumnarDataStore(rows.size());
+        for (int i = 0, size = rows.size(); i < size; i++) {
+            DataObject dataObject = rows.get(i);
+            if (dataObject == null) {
+                throw new IllegalArgumentException("Row " + i + " is not loaded");
+            }
+            store.add(dataObject);
+        }
+        write(file, store);
+    }
+
+    /**
+     * Writes rows to a file.
+     *
+     * @param file destination, replaced if it exists.
+     * @param store rows to write, not modified meanwhile.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(File file, ColumnarDataStore store) throws IOException {
+        StringDictionary names = store.getNameDictionary();
+        StringDictionary locations = store.getLocationDictionary();
+        StringDictionary avatarUris = store.getAvatarUriDictionary();
+        int nameCount = names.size();
+        int avatarUriStart = nameCount + locations.size();
+        int stringCount = avatarUriStart + avatarUris.size();
+
+        /** Encode strings first, their offsets come before the pool **/
+        byte[][] encodedStrings = new byte[stringCount][];
+        long poolSize = 0;
+        for (int i = 0; i < stringCount; i++) {
+            String value = (i < nameCount) ? names.decode(i)
+                    : (i < avatarUriStart) ? locations.decode(i - nameCount) : avatarUris.decode(i - avatarUriStart);
+            encodedStrings[i] = value.getBytes(MappedDataFile.UTF_8);
+            poolSize += encodedStrings[i].length;
+        }
+
+        int rowCount = store.size();
+        long stringIndexOffset = MappedDataFile.HEADER_SIZE + (long) rowCount * MappedDataFile.ROW_SIZE;
+        long poolOffset = stringIndexOffset + 4L * (stringCount + 1);
+        if (poolOffset + poolSize > Integer.MAX_VALUE) {
+            throw new IOException("Too many rows for a single file");
+        }
+
+        File temporaryFile = new File(file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile), BUFFER_SIZE));
+        boolean written = false;
+        try {
+            out.writeInt(MappedDataFile.MAGIC);
+            out.writeInt(MappedDataFile.VERSION);
+            out.writeInt(rowCount);
+            out.writeInt(stringCount);
+            out.writeLong(stringIndexOffset);
+            out.writeLong(poolOffset);
+
+            for (int row = 0; row < rowCount; row++) {
+                int locationCode = store.getLocationCode(row);
+                int avatarUriCode = store.getAvatarUriCode(row);
+                out.writeLong(store.getId(row));
+                out.writeInt(store.getNameCode(row));
+                out.writeInt((locationCode == StringDictionary.NULL_CODE) ? locationCode : nameCount + locationCode);
+                out.writeLong(store.getCheckInTime(row));
+                out.writeInt((avatarUriCode == StringDictionary.NULL_CODE) ? avatarUriCode : avatarUriStart + avatarUriCode);
+            }
+
+            int stringOffset = 0;
+            for (byte[] encodedString : encodedStrings) {
+                out.writeInt(stringOffset);
+                stringOffset += encodedString.length;
+            }
+            out.writeInt(stringOffset);
+
+            for (byte[] encodedString : encodedStrings) {
+                out.write(encodedString);
+            }
+            out.close();
+            written = temporaryFile.renameTo(file);
+            if (!written) {
+                throw new IOException("Cannot replace " + file);
+            }
+        } finally {
+            out.close();
+            if (!written) {
+                temporaryFile.delete();
+            }
+        }
+    }
+}
@@ -17,9 +17,11 @@ package com.pabhinav.zsrv.zstacklistview;
 
 import android.app.Activity;
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.widget.TextView;
 
 /**
@@ -47,11 +49,32 @@ import android.widget.TextView;
 public class MyRecyclerOnScrollListener extends RecyclerView.OnScrollListener{
 
     /**
-     * Keeps the older value of {@link LinearLayoutManager#findFirstVisibleItemPosition()}
-     * method's returned value, and also is updated on scroll detection, whenever difference is
-     * found with the new value.
+     * Keeps the position of the item at the top, as last seen, and decides when views
+     * have to be touched to show stacking effect.
      */
-    private int positionDelta = -1;
+    private final StackEffectEngine mStackEffectEngine = new StackEffectEngine(new StackEffectEngine.Callback() {
+        @Override
+        public void onTopItemChanged(int topPosition) {
+            ((MyRecyclerViewAdapter) mRecyclerView.getAdapter()).setStackTopPosition(topPosition);
+
+            /** The child which is made invisible, always is the first visible item in {@link RecyclerView} **/
+            MyRecyclerViewAdapter.DataObjectHolder topDataObjectHolder =
+                    (MyRecyclerViewAdapter.DataObjectHolder) mRecyclerView.getChildViewHolder(mRecyclerView.getChildAt(0));
+
+            /** Imitate to background mask tile view **/
+            imitateMaskedTileViewWithTileView(topDataObjectHolder);
+        }
+
+        @Override
+        public void setChildVisible(int childIndex, boolean visible) {
+
+            /** Not cached : adapter changes may replace the top child, or recycle its holder for another row **/
+            View child = mRecyclerView.getChildAt(childIndex);
+            if (child != null) {
+                child.setAlpha(visible ? 1 : 0);
+            }
+        }
+    });
 
     /**
      * {@link LinearLayoutManager} object for vertical aligning list items.
@@ -73,8 +96,107 @@ public class MyRecyclerOnScrollListener extends RecyclerView.OnScrollListener{
      */
     private Context mContext;
 
+    /**
+     * Keeps masked tile view in sync when the item at the top is changed in place,
+     * e.g. when its page got loaded and its placeholder is replaced with real data.
+     * A changed top item may be rebound on another child view, made visible by the
+     * adapter, so it is hidden again once changes are laid out. Structural changes
+     * may change which item is at the top, so the stack effect is synced again in full.
+     */
+    private final RecyclerView.AdapterDataObserver mTopItemObserver = new RecyclerView.AdapterDataObserver() {
+        @Override
+        public void onChanged() {
+            scheduleStackSync();
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            if (isTopPositionIn(positionStart, itemCount)) {
+                refreshMaskedTileView();
+                scheduleTopVisibilitySync();
+            }
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            if (!isTopPositionIn(positionStart, itemCount)) {
+                return;
+            }
+
+            /** Update only what changed on masked tile view, same as the top item itself **/
+            if (payload instanceof MyRecyclerViewAdapter.ItemChange) {
+                mMaskedTileDataObjectHolder.bindChange(getTopBindModel(), (MyRecyclerViewAdapter.ItemChange) payload);
+            } else {
+                refreshMaskedTileView();
+            }
+            scheduleTopVisibilitySync();
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            scheduleStackSync();
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            scheduleStackSync();
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            scheduleStackSync();
+        }
+    };
+
+    /**
+     * One shot listener syncing the stack effect after the next layout pass,
+     * just before drawing.
+     */
+    private final ViewTreeObserver.OnPreDrawListener mStackSyncListener = new ViewTreeObserver.OnPreDrawListener() {
+        @Override
+        public boolean onPreDraw() {
+            mRecyclerView.getViewTreeObserver().removeOnPreDrawListener(this);
+            mStackSyncPending = false;
+            boolean reset = mStackResetPending;
+            mStackResetPending = false;
+
+            /** Nothing to imitate on an empty list, e.g. a search matching no row **/
+            mMaskedTileDataObjectHolder.maskedItemView.setVisibility(
+                    (mRecyclerView.getChildCount() > 0) ? View.VISIBLE : View.INVISIBLE);
+            if (mRecyclerView.getChildCount() > 0) {
+
+                /** A hidden item may have been moved away from the top without being rebound **/
+                for (int i = 1; i < mRecyclerView.getChildCount(); i++) {
+                    mRecyclerView.getChildAt(i).setAlpha(1);
+                }
+
+                /** Forget the previous top item, so that masked tile is imitated again, or only hide the top child again **/
+                if (reset) {
+                    mStackEffectEngine.reset();
+                } else {
+                    mStackEffectEngine.invalidateTopVisibility();
+                }
+                onScrolled(mRecyclerView, 0, 0);
+            }
+            return true;
+        }
+    };
+
+    /**
+     * Whether {@link #mStackSyncListener} is registered.
+     */
+    private boolean mStackSyncPending;
+
+    /**
+     * Whether the pending sync has to imitate the top item again, not only hide it.
+     */
+    private boolean mStackResetPending;
+
     /**
      * Constructor for this class.
+     * <p>
+     *     {@link MyRecyclerViewAdapter} has to be set on the {@link RecyclerView} before.
+     * </p>
      *
      * @param linearLayoutManager {@link LinearLayoutManager} for vertical aligning list items
      * @param recyclerView {@link RecyclerView} used in this class for getting child at specified
@@ -84,8 +206,20 @@ public class MyRecyclerOnScrollListener extends RecyclerView.OnScrollListener{
     public MyRecyclerOnScrollListener(LinearLayoutManager linearLayoutManager, RecyclerView recyclerView, Context context){
         this.mLinearLayoutManager = linearLayoutManager;
         this.mRecyclerView = recyclerView;
-        this.mMaskedTileDataObjectHolder = new MaskedTileDataObjectHolder(context);
+        this.mMaskedTileDataObjectHolder = new MaskedTileDataObjectHolder(context,
+                ((MyRecyclerViewAdapter) recyclerView.getAdapter()).getAvatarLoader());
         this.mContext = context;
+        recyclerView.getAdapter().registerAdapterDataObserver(mTopItemObserver);
+    }
+
+    /**
+     * Stop observing the adapter and release the avatar of the masked tile view, e.g.
+     * when the activity goes away, as {@link AvatarLoader} is shared by the process.
+     */
+    public void release() {
+        mRecyclerView.getAdapter().unregisterAdapterDataObserver(mTopItemObserver);
+        ((MyRecyclerViewAdapter) mRecyclerView.getAdapter()).setStackTopPosition(StackEffectEngine.NO_POSITION);
+        mMaskedTileDataObjectHolder.mAvatarLoader.release(mMaskedTileDataObjectHolder);
     }
 
     /**
@@ -93,7 +227,7 @@ public class MyRecyclerOnScrollListener extends RecyclerView.OnScrollListener{
      *
      * @author pabhinav (pabhinav@iitrpr.ac.in)
      */
-    public static class MaskedTileDataObjectHolder {
+    public static class MaskedTileDataObjectHolder implements AvatarLoader.Target {
 
         /**
          * {@link TextView} used for describing list item.
@@ -105,18 +239,113 @@ public class MyRecyclerOnScrollListener extends RecyclerView.OnScrollListener{
          */
         View maskedItemView;
 
+        /**
+         * Masked tile view when it is a flattened {@link TileView}, null otherwise.
+         */
+        TileView maskedTileView;
+
+        /**
+         * Bind model masked views are showing.
+         */
+        TileBindModel mBindModel;
+
+        /**
+         * Loads the avatar shown on the masked name plate, the same as on the top tile.
+         */
+        private final AvatarLoader mAvatarLoader;
+
         /**
          * Constructor initializing View elements
          *
          * @param context the {@link Context} object of the calling activity.
+         * @param avatarLoader loads avatars shown on the name plate.
          */
-        public MaskedTileDataObjectHolder(Context context){
+        public MaskedTileDataObjectHolder(Context context, AvatarLoader avatarLoader){
+            mAvatarLoader = avatarLoader;
             maskedItemView = ((Activity)context).findViewById(R.id.masked_tile);
+            if (maskedItemView instanceof TileView) {
+                maskedTileView = (TileView) maskedItemView;
+                return;
+            }
             maskedNameTextView = (TextView)((Activity)context).findViewById(R.id.masked_name_text_view);
             maskedLocationTextView = (TextView)((Activity)context).findViewById(R.id.masked_place);
             maskedTimePassedTextView = (TextView) ((Activity)context).findViewById(R.id.masked_time_passed_out);
             maskedNamePlateTextView = (TextView) ((Activity)context).findViewById(R.id.masked_name_plate_text_view);
         }
+
+        /**
+         * Update masked views with precomputed display values.
+         *
+         * @param bindModel bind ready projection of the item at the top of the list.
+         */
+        void bind(TileBindModel bindModel) {
+            mBindModel = bindModel;
+            if (maskedTileView != null) {
+                maskedTileView.bind(bindModel);
+            } else {
+                maskedNameTextView.setText(bindModel.displayName);
+                maskedNamePlateTextView.setText(bindModel.namePlateLetter);
+                maskedTimePassedTextView.setText(bindModel.timePassed(System.currentTimeMillis()));
+                maskedLocationTextView.setText(bindModel.location);
+
+                /** Color name plate character holder {@link TextView} background, reusing shared {@link CircleDrawable} state **/
+                NamePlateDrawableCache.applyNamePlate(maskedNamePlateTextView, bindModel.namePlateColor);
+            }
+
+            /** Usually already in memory, shown by the top tile **/
+            mAvatarLoader.load(bindModel.avatarUri, this, true);
+        }
+
+        /**
+         * Show an avatar instead of the masked name plate letter, or the letter again.
+         *
+         * @param avatar bitmap of the name plate size, or null to show the letter.
+         */
+        @Override
+        public void setAvatar(Bitmap avatar) {
+            if (maskedTileView != null) {
+                maskedTileView.setAvatar(avatar);
+                return;
+            }
+            maskedNamePlateTextView.setText((avatar != null || mBindModel == null) ? "" : mBindModel.namePlateLetter);
+            NamePlateDrawableCache.applyAvatar(maskedNamePlateTextView, avatar);
+        }
+
+        /**
+         * Update only the masked views showing a changed field.
+         *
+         * @param bindModel bind ready projection of the item at the top of the list, after the change.
+         * @param change changed field.
+         */
+        void bindChange(TileBindModel bindModel, MyRecyclerViewAdapter.ItemChange change) {
+
+            /** Masked tile view is never bound lightweight, its texts are already there **/
+            if (change == MyRecyclerViewAdapter.ItemChange.TEXTS) {
+                return;
+            }
+            mBindModel = bindModel;
+            if (change == MyRecyclerViewAdapter.ItemChange.AVATAR) {
+                mAvatarLoader.load(bindModel.avatarUri, this, true);
+                return;
+            }
+            if (maskedTileView != null) {
+                maskedTileView.bind(bindModel);
+                return;
+            }
+            switch (change) {
+                case NAME:
+                    maskedNamePlateTextView.setText(NamePlateDrawableCache.hasAvatar(maskedNamePlateTextView) ? "" : bindModel.namePlateLetter);
+                    maskedNameTextView.setText(bindModel.displayName);
+                    NamePlateDrawableCache.applyNamePlate(maskedNamePlateTextView, bindModel.namePlateColor);
+                    break;
+                case LOCATION:
+                    maskedLocationTextView.setText(bindModel.location);
+                    break;
+                case TIME_PASSED:
+                    maskedTimePassedTextView.setText(bindModel.timePassed(System.currentTimeMillis()));
+                    break;
+            }
+        }
     }
 
     /**
@@ -160,6 +389,14 @@ public class MyRecyclerOnScrollListener extends RecyclerView.OnScrollListener{
      *      be able to receive click events on this child view.
      * </p>
      *
+     * <p>
+     *      Layout state is queried only once : the child at index 0 and its
+     *      layout position (read from its layout params, without walking children).
+     *      {@link StackEffectEngine} decides whether any view has to be touched,
+     *      which only happens when the top item changes or the top of the list
+     *      is reached or left.
+     * </p>
+     *
      * @param recyclerView The RecyclerView which scrolled.
      * @param dx The amount of horizontal scroll.
      * @param dy The amount of vertical scroll.
@@ -167,53 +404,14 @@ public class MyRecyclerOnScrollListener extends RecyclerView.OnScrollListener{
     @Override
     public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
         super.onScrolled(recyclerView, dx, dy);
+        long start = ScrollMetrics.begin();
 
-        /** There has to difference between older and newer first visible item position to show stack effect **/
-        if(Math.abs(positionDelta - mLinearLayoutManager.findFirstVisibleItemPosition()) > 0) {
-
-            /**
-             * Detect user scrolling down, and make item visible at the index just next
-             * to top most, ie, at index = 1.
-             */
-            if (mLinearLayoutManager.findFirstVisibleItemPosition() < positionDelta) {
-
-                /** Need to make item tile at second index visible **/
-                View v = mRecyclerView.getChildAt(1);
-                v.setAlpha(1);
-            }
-
-            /** Get the child which is made invisible, always is the first visible item in {@link RecyclerView} **/
-            MyRecyclerViewAdapter.DataObjectHolder childDataObjectHolder = (MyRecyclerViewAdapter.DataObjectHolder) mRecyclerView.getChildViewHolder(mRecyclerView.getChildAt(0));
-
-            /** Imitate to background mask tile view **/
-            imitateMaskedTileViewWithTileView(childDataObjectHolder);
+        View topChild = mRecyclerView.getChildAt(0);
+        if (topChild != null) {
+            mStackEffectEngine.onLayoutState(mRecyclerView.getChildLayoutPosition(topChild), topChild.getTop());
         }
 
-        /**
-         * Detect when top of {@link RecyclerView} has reached.
-         * Now, no more up scrolling can be done.
-         * <p>
-         *     To detect when no more up scrolling can be done,
-         *
-         *     Two conditions need to be followed  :
-         *
-         *          1) The difference between the top of child at index (not position) = 0
-         *             and the top of the parent (which is the whole {@link RecyclerView})
-         *             is zero.
-         *
-         *          2) The very first visible item has position (not index) = 0.
-         * </p>
-         */
-        if(mRecyclerView.getChildAt(0).getTop() == 0 && mLinearLayoutManager.findFirstVisibleItemPosition() == 0){
-            /** Since no more scrolling up can be done, exception case is reached and now first item has to be visible. **/
-            mRecyclerView.getChildAt(0).setAlpha(1);
-        } else {
-            /** Not the exception case, make first item invisible **/
-            mRecyclerView.getChildAt(0).setAlpha(0);
-        }
-
-        /** update the postionDelta value to newly visible child **/
-        positionDelta = mLinearLayoutManager.findFirstVisibleItemPosition();
+        ScrollMetrics.end(ScrollMetrics.SECTION_SCROLL, start);
     }
 
     /**
@@ -229,20 +427,64 @@ public class MyRecyclerOnScrollListener extends RecyclerView.OnScrollListener{
      */
     public void imitateMaskedTileViewWithTileView(final MyRecyclerViewAdapter.DataObjectHolder dataObjectHolder){
 
-        /** Copy {@link TextView} text to masked tile view's corresponding {@link TextView} **/
-        mMaskedTileDataObjectHolder.maskedNameTextView.setText(dataObjectHolder.nameTextView.getText());
-        mMaskedTileDataObjectHolder.maskedNamePlateTextView.setText(dataObjectHolder.namePlateTextView.getText());
-        mMaskedTileDataObjectHolder.maskedTimePassedTextView.setText(dataObjectHolder.timePassedTextView.getText());
-        mMaskedTileDataObjectHolder.maskedLocationTextView.setText(dataObjectHolder.locationTextView.getText());
+        long start = ScrollMetrics.begin();
 
-        /** Get the name plate letter character **/
-        String namePlateLetter = mMaskedTileDataObjectHolder.maskedNamePlateTextView.getText().toString().toUpperCase().substring(0,1);
+        /** Show the same precomputed bind model on masked tile view **/
+        mMaskedTileDataObjectHolder.bind(dataObjectHolder.mBindModel);
 
-        /** Color name plate character holder {@link TextView} background**/
-        CircleDrawable circleDrawable = new CircleDrawable(mContext.getResources().getColor(LetterColorMapping.letterToColorIdMapping.get(namePlateLetter)));
+        ScrollMetrics.end(ScrollMetrics.SECTION_IMITATE, start);
+    }
 
-        /** Set the colored background **/
-        mMaskedTileDataObjectHolder.maskedNamePlateTextView.setBackgroundDrawable(circleDrawable);
+    /**
+     * To be called right after the list jumped to another position without scrolling,
+     * e.g. with {@link LinearLayoutManager#scrollToPositionWithOffset(int, int)}. Masked
+     * tile view and visibility of the first item are synced as soon as the new position
+     * is laid out, before it is drawn, instead of waiting for the next scroll.
+     */
+    public void onJump(){
+        scheduleStackSync();
+    }
 
+    /**
+     * Rebinds masked tile view with data of the item at the top of the list.
+     * Used when that item changes without the list being scrolled.
+     */
+    private void refreshMaskedTileView(){
+        mMaskedTileDataObjectHolder.bind(getTopBindModel());
+    }
+
+    /**
+     * @return whether the item at the top of the list, as last seen, is in a range of positions.
+     */
+    private boolean isTopPositionIn(int positionStart, int itemCount){
+        int topPosition = mStackEffectEngine.getTopPosition();
+        return topPosition != StackEffectEngine.NO_POSITION && topPosition >= positionStart && topPosition < positionStart + itemCount;
+    }
+
+    /**
+     * @return bind model of the item at the top of the list, as last seen.
+     */
+    private TileBindModel getTopBindModel(){
+        return ((MyRecyclerViewAdapter) mRecyclerView.getAdapter()).getBindModel(mStackEffectEngine.getTopPosition());
+    }
+
+    /**
+     * Syncs the stack effect (masked tile view and visibility of first item)
+     * once pending adapter changes are laid out.
+     */
+    private void scheduleStackSync(){
+        mStackResetPending = true;
+        scheduleTopVisibilitySync();
+    }
+
+    /**
+     * Hides the child view of the item at the top again once pending adapter changes
+     * are laid out, e.g. after the top item was rebound in place.
+     */
+    private void scheduleTopVisibilitySync(){
+        if (!mStackSyncPending) {
+            mStackSyncPending = true;
+            mRecyclerView.getViewTreeObserver().addOnPreDrawListener(mStackSyncListener);
+        }
     }
 }
@@ -16,6 +16,7 @@
 package com.pabhinav.zsrv.zstacklistview;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
@@ -24,6 +25,10 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class is the adapter for {@link RecyclerView}.
@@ -57,9 +62,33 @@ import java.util.ArrayList;
 public class MyRecyclerViewAdapter extends RecyclerView.Adapter<MyRecyclerViewAdapter.DataObjectHolder> {
 
     /**
-     * {@link ArrayList} of {@link DataObject} data model objects.
+     * Typed change payloads, see {@link #updateItem(int, DataObject)}. A payload
+     * updates only the views showing the changed field.
      */
-    private ArrayList<DataObject> mDataset;
+    public enum ItemChange {
+
+        /** Name changed : name plate letter, its color, and name **/
+        NAME,
+
+        /** Location changed **/
+        LOCATION,
+
+        /** Check in time changed, or its time passed label went stale **/
+        TIME_PASSED,
+
+        /** Nothing changed, texts skipped by a lightweight bind are due, see {@link #setLightweightBinding(boolean)} **/
+        TEXTS,
+
+        /** Avatar changed, see {@link AvatarLoader} **/
+        AVATAR
+    }
+
+    /**
+     * {@link List} of {@link DataObject} data model objects, either an {@link ArrayList},
+     * a {@link PagedDataList} where null elements are rows not loaded yet, a
+     * {@link RowStoreList}, or a {@link FilteredDataList} of search results.
+     */
+    private List<DataObject> mDataset;
 
     /**
      * Callback interface for listening to click events.
@@ -76,17 +105,180 @@ public class MyRecyclerViewAdapter extends RecyclerView.Adapter<MyRecyclerViewAd
      */
     private LinearLayoutManager mLinearLayoutManager;
 
+    /**
+     * Adapter position of the item hidden at the top of the list, as last seen by
+     * {@link MyRecyclerOnScrollListener}, see {@link #setStackTopPosition(int)}.
+     */
+    private int mStackTopPosition = StackEffectEngine.NO_POSITION;
+
+    /**
+     * Resolved name plate letter colors.
+     */
+    private LetterColorMapping mLetterColorMapping;
+
+    /**
+     * Bind model shown for rows which are not loaded yet.
+     */
+    private TileBindModel mPlaceholderBindModel;
+
+    /**
+     * Whether list items are inflated as a flattened {@link TileView},
+     * instead of the tile layout made of separate {@link TextView}s.
+     */
+    private boolean mUseFlatTileView;
+
+    /**
+     * Source of tiles inflated ahead of time, may be null.
+     */
+    private TileViewPrewarmer mTileViewPrewarmer;
+
+    /**
+     * Incremented for every list given to {@link #submitList(List)}, so that
+     * diffs computed for an older list are discarded.
+     */
+    private final AtomicInteger mSubmitGeneration = new AtomicInteger();
+
+    /**
+     * Incremented on every structural modification done with {@link #addItem(DataObject, int)}
+     * and {@link #deleteItem(int)}, so that diffs against an outdated data set are computed again.
+     */
+    private int mDatasetVersion;
+
+    /**
+     * Whether alphabet sections of the data set are maintained, see {@link #getSectionIndex()}.
+     */
+    private boolean mSectionIndexEnabled;
+
+    /**
+     * Alphabet sections of the data set, null while being indexed.
+     */
+    private SectionIndex mSectionIndex;
+
+    /**
+     * Incremented whenever the data set is indexed again, so that an outdated index is discarded.
+     */
+    private int mSectionIndexGeneration;
+
+    /**
+     * Whether tiles are bound lightweight, see {@link #setLightweightBinding(boolean)}.
+     */
+    private boolean mLightweightBinding;
+
+    /**
+     * Whether some tile was bound lightweight since texts were last caught up.
+     */
+    private boolean mHasDeferredTexts;
+
+    /**
+     * Background preparations of bind models ahead of the scroll, see {@link #prefetch(int, int)}.
+     */
+    private final List<Future<?>> mPrefetchFutures = new ArrayList<>();
+
+    /**
+     * Loads avatars shown on name plates.
+     */
+    private final AvatarLoader mAvatarLoader;
+
+    /**
+     * Notified when rows are added, updated or deleted, may be null.
+     */
+    private OnRowsChangedListener mOnRowsChangedListener;
+
+    /**
+     * Forwards diff results to this adapter as range notifications.
+     */
+    private final ListDiffer.ListUpdateCallback mListUpdateCallback = new ListDiffer.ListUpdateCallback() {
+        @Override
+        public void onInserted(int position, int count) {
+            notifyItemRangeInserted(position, count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            notifyItemRangeRemoved(position, count);
+        }
+
+        @Override
+        public void onChanged(int position, int count) {
+            notifyItemRangeChanged(position, count);
+        }
+    };
+
     /**
      * Constructor for this class
      *
      * @param context of the calling activity
-     * @param myDataset {@link ArrayList} of {@link DataObject} objects.
+     * @param myDataset {@link ArrayList} of {@link DataObject} objects, null elements being
+     *                  placeholders, e.g. skeleton tiles shown until rows are loaded.
      * @param linearLayoutManager used for vertical alignment of list items.
      */
     public MyRecyclerViewAdapter(Context context, ArrayList<DataObject> myDataset, LinearLayoutManager linearLayoutManager) {
-        mContext = context;
+        this(context, linearLayoutManager);
         mDataset = myDataset;
+
+        /** Prepare bind models off the main thread, before the rows are bound **/
+        projectInBackground(myDataset.toArray(new DataObject[myDataset.size()]));
+    }
+
+    /**
+     * Constructor for this class, for rows loaded page by page.
+     * <p>
+     *     Only a bounded window of pages around the bound rows is kept in memory
+     *     (see {@link PagedDataList}), rows not loaded yet show placeholders.
+     *     {@link #addItem(DataObject, int)} and {@link #deleteItem(int)} are not
+     *     supported with a paged source.
+     * </p>
+     *
+     * @param context of the calling activity
+     * @param pagedDataSource source loading rows page by page.
+     * @param linearLayoutManager used for vertical alignment of list items.
+     */
+    public MyRecyclerViewAdapter(Context context, PagedDataSource pagedDataSource, LinearLayoutManager linearLayoutManager) {
+        this(context, linearLayoutManager);
+        PagedDataList pagedDataList = new PagedDataList(pagedDataSource, PagedDataList.DEFAULT_PAGE_SIZE,
+                PagedDataList.DEFAULT_MAX_PAGES, mLetterColorMapping);
+
+        /** Rebind placeholders once their page is loaded **/
+        pagedDataList.setOnPageLoadedListener(new PagedDataList.OnPageLoadedListener() {
+            @Override
+            public void onPageLoaded(int startPosition, int itemCount) {
+                notifyItemRangeChanged(startPosition, itemCount);
+            }
+        });
+        mDataset = pagedDataList;
+    }
+
+    /**
+     * Common initialization of both constructors.
+     *
+     * @param context of the calling activity
+     * @param linearLayoutManager used for vertical alignment of list items.
+     */
+    private MyRecyclerViewAdapter(Context context, LinearLayoutManager linearLayoutManager) {
+        mContext = context;
         mLinearLayoutManager = linearLayoutManager;
+        mLetterColorMapping = LetterColorResources.get(context);
+        mPlaceholderBindModel = TileBindModel.placeholder(mLetterColorMapping);
+        mAvatarLoader = AvatarLoader.get(context);
+
+        /** Item ids identify the same person across updates, so views can be kept **/
+        setHasStableIds(true);
+    }
+
+    /**
+     * Computes {@link TileBindModel} projections on a background thread.
+     * Rows bound before their projection is ready are projected on demand.
+     *
+     * @param dataObjects data model objects which just entered this adapter.
+     */
+    private void projectInBackground(final DataObject[] dataObjects) {
+        final LetterColorMapping letterColorMapping = mLetterColorMapping;
+        ListExecutors.background().execute(new Runnable() {
+            @Override
+            public void run() {
+                TileBindModel.projectAll(dataObjects, letterColorMapping);
+            }
+        });
     }
 
     /**
@@ -107,8 +299,17 @@ public class MyRecyclerViewAdapter extends RecyclerView.Adapter<MyRecyclerViewAd
      */
     @Override
     public DataObjectHolder onCreateViewHolder(ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.tile, parent, false);
-        return new DataObjectHolder(view);
+        long start = ScrollMetrics.begin();
+
+        /** Prefer a tile inflated ahead of time, off the main thread **/
+        View view = (mTileViewPrewarmer != null) ? mTileViewPrewarmer.poll() : null;
+        if (view == null) {
+            view = LayoutInflater.from(parent.getContext()).inflate(getTileLayoutResId(), parent, false);
+        }
+        DataObjectHolder holder = new DataObjectHolder(view, mAvatarLoader);
+
+        ScrollMetrics.end(ScrollMetrics.SECTION_CREATE, start);
+        return holder;
     }
 
     /**
@@ -128,25 +329,274 @@ public class MyRecyclerViewAdapter extends RecyclerView.Adapter<MyRecyclerViewAd
      */
     @Override
     public void onBindViewHolder(DataObjectHolder holder, int position) {
+        long start = ScrollMetrics.begin();
 
-        /** Get the name plate letter **/
-        String namePlateLetter = mDataset.get(position).getName().substring(0,1).toUpperCase();
+        /** update holder view data, with precomputed bind model, without texts while flinging **/
+        if (mLightweightBinding) {
+            holder.bindLightweight(getBindModel(position));
+            mHasDeferredTexts = true;
+        } else {
+            holder.bind(getBindModel(position));
+        }
 
-        /** Need to use {@link CircleDrawable} for rendering background of name plate letter holding {@link TextView} **/
-        CircleDrawable circleDrawable = new CircleDrawable(mContext.getResources().getColor(LetterColorMapping.letterToColorIdMapping.get(namePlateLetter)));
+        /** Let all children become visible, except for the child at the top, as last seen (no layout query per bind) **/
+        if (position > mStackTopPosition) {
+            holder.mItemView.setAlpha(1);
+        }
 
-        /** update holder view data **/
-        holder.namePlateTextView.setText(namePlateLetter);
-        holder.nameTextView.setText(String.format("%s%s", namePlateLetter, mDataset.get(position).getName().substring(1)));
-        holder.locationTextView.setText(mDataset.get(position).getLocation());
-        holder.timePassedTextView.setText(mDataset.get(position).getTimePassed());
-        holder.namePlateTextView.setBackgroundDrawable(circleDrawable);
+        ScrollMetrics.end(ScrollMetrics.SECTION_BIND, start);
+    }
 
-        /** Let all children become visible, except for the child with index position 0 **/
-        int childIndex = position - mLinearLayoutManager.findFirstVisibleItemPosition();
-        if (childIndex > 0) {
-            holder.mItemView.setAlpha(1);
+    /**
+     * Called by RecyclerView to display the data at the specified position, with
+     * change payloads given when the item was notified as changed.
+     * <p>
+     *     If all payloads are {@link ItemChange}s, only the views showing changed
+     *     fields are updated. Otherwise, it is a full bind.
+     * </p>
+     *
+     * @param holder view holder to update.
+     * @param position The position of the item within the adapter's data set.
+     * @param payloads merged payloads of change notifications, empty for a full bind.
+     */
+    @Override
+    public void onBindViewHolder(DataObjectHolder holder, int position, List<Object> payloads) {
+        if (payloads.isEmpty() || !allItemChanges(payloads)) {
+            onBindViewHolder(holder, position);
+            return;
         }
+        long start = ScrollMetrics.begin();
+
+        TileBindModel bindModel = getBindModel(position);
+        for (int i = 0; i < payloads.size(); i++) {
+            holder.bindChange(bindModel, (ItemChange) payloads.get(i));
+        }
+
+        ScrollMetrics.end(ScrollMetrics.SECTION_BIND, start);
+    }
+
+    /**
+     * A tile bound lightweight may be attached again without being rebound, e.g. when
+     * it is scrolled back in from the views cache : catch up its texts if lightweight
+     * binding is over.
+     */
+    @Override
+    public void onViewAttachedToWindow(DataObjectHolder holder) {
+        super.onViewAttachedToWindow(holder);
+        int position = holder.getAdapterPosition();
+        if (holder.mTextsDeferred && !mLightweightBinding && position != RecyclerView.NO_POSITION) {
+            holder.bind(getBindModel(position));
+        }
+    }
+
+    /**
+     * Cancel the avatar request of a recycled tile, its avatar may go back to the bitmap pool.
+     */
+    @Override
+    public void onViewRecycled(DataObjectHolder holder) {
+        super.onViewRecycled(holder);
+        mAvatarLoader.release(holder);
+    }
+
+    /**
+     * A holder dropped instead of recycled, e.g. while it is animated, is not reused :
+     * release its avatar all the same.
+     */
+    @Override
+    public boolean onFailedToRecycleView(DataObjectHolder holder) {
+        mAvatarLoader.release(holder);
+        return super.onFailedToRecycleView(holder);
+    }
+
+    /**
+     * Setter function for the position of the item at the top of the list, which is
+     * hidden behind masked tile view : tiles bound below it are made visible. Kept by
+     * {@link MyRecyclerOnScrollListener} from its {@link StackEffectEngine}, so that
+     * binding does not query the layout manager.
+     *
+     * @param stackTopPosition adapter position of the top item, or {@link StackEffectEngine#NO_POSITION}.
+     */
+    public void setStackTopPosition(int stackTopPosition) {
+        mStackTopPosition = stackTopPosition;
+    }
+
+    /**
+     * @return loader of avatars shown on name plates, e.g. to show the avatar of the masked tile view too.
+     */
+    public AvatarLoader getAvatarLoader() {
+        return mAvatarLoader;
+    }
+
+    /**
+     * Switch lightweight binding, e.g. while the list is flung past a velocity threshold
+     * (see {@link LightweightBindingSwitcher}). Tiles bound meanwhile show only their name
+     * plate letter and color : no text is set nor laid out for rows which are on screen
+     * for a few frames only, nor is any avatar decoded for them. Texts are bound when lightweight binding is switched off,
+     * with a single {@link ItemChange#TEXTS} change notification over visible rows.
+     * <p>
+     *     Masked tile view is always bound in full, from the bind model of the top item.
+     * </p>
+     *
+     * @param lightweightBinding true to bind initial and color only.
+     */
+    public void setLightweightBinding(boolean lightweightBinding) {
+        if (mLightweightBinding == lightweightBinding) {
+            return;
+        }
+        mLightweightBinding = lightweightBinding;
+        if (lightweightBinding || !mHasDeferredTexts) {
+            return;
+        }
+        mHasDeferredTexts = false;
+
+        /** Tiles whose texts are not deferred ignore it, see {@link DataObjectHolder#bindChange(TileBindModel, ItemChange)} **/
+        int first = mLinearLayoutManager.findFirstVisibleItemPosition();
+        int last = mLinearLayoutManager.findLastVisibleItemPosition();
+        if (first != RecyclerView.NO_POSITION && last >= first) {
+            notifyItemRangeChanged(first, last - first + 1, ItemChange.TEXTS);
+        }
+    }
+
+    /**
+     * @return whether tiles are bound lightweight.
+     */
+    public boolean isLightweightBinding() {
+        return mLightweightBinding;
+    }
+
+    /**
+     * Make rows of a range ready before they are bound, e.g. ahead of a fling (see
+     * {@link ScrollPrefetcher}) : pages of a paged data set are loaded, other rows get
+     * their bind model prepared, on a background thread. Rows of a read only view are
+     * read there directly. Rows of a modifiable list are read on the main thread only :
+     * those of the range not projected yet, e.g. submitted moments ago or projected
+     * with an outdated letter color mapping, are handed over.
+     *
+     * @param fromPosition position of the first row.
+     * @param toPosition position of the last row, at least fromPosition.
+     */
+    public void prefetch(final int fromPosition, final int toPosition) {
+        if (mDataset instanceof PagedDataList) {
+            ((PagedDataList) mDataset).prefetch(fromPosition, toPosition);
+            return;
+        }
+        final LetterColorMapping letterColorMapping = mLetterColorMapping;
+        final List<DataObject> rows;
+        final int first;
+        final int last;
+        if (isReadOnlyView(mDataset)) {
+
+            /** Read only views may be read from any thread, a replaced one is just prepared in vain **/
+            rows = mDataset;
+            first = Math.max(0, fromPosition);
+            last = Math.min(toPosition, rows.size() - 1);
+        } else {
+            rows = new ArrayList<>();
+            for (int position = Math.max(0, fromPosition), end = Math.min(toPosition, mDataset.size() - 1); position <= end; position++) {
+                DataObject dataObject = mDataset.get(position);
+                if (dataObject != null && (dataObject.mBindModel == null
+                        || dataObject.mBindModel.mLetterColorMapping != letterColorMapping)) {
+                    rows.add(dataObject);
+                }
+            }
+            if (rows.isEmpty()) {
+                return;
+            }
+            first = 0;
+            last = rows.size() - 1;
+        }
+        for (int i = mPrefetchFutures.size() - 1; i >= 0; i--) {
+            if (mPrefetchFutures.get(i).isDone()) {
+                mPrefetchFutures.remove(i);
+            }
+        }
+        mPrefetchFutures.add(ListExecutors.background().submit(new Runnable() {
+            @Override
+            public void run() {
+                for (int position = first; position <= last; position++) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+                    DataObject dataObject = rows.get(position);
+                    if (dataObject != null) {
+                        TileBindModel.of(dataObject, letterColorMapping);
+                    }
+                }
+            }
+        }));
+    }
+
+    /**
+     * Cancel preparation of rows requested with {@link #prefetch(int, int)}, e.g. when
+     * scroll direction reverses.
+     */
+    public void cancelPrefetch() {
+        if (mDataset instanceof PagedDataList) {
+            ((PagedDataList) mDataset).cancelPrefetch();
+        }
+        for (int i = 0; i < mPrefetchFutures.size(); i++) {
+            mPrefetchFutures.get(i).cancel(true);
+        }
+        mPrefetchFutures.clear();
+    }
+
+    /**
+     * @return whether every payload is an {@link ItemChange}.
+     */
+    static boolean allItemChanges(List<Object> payloads) {
+        for (int i = 0; i < payloads.size(); i++) {
+            if (!(payloads.get(i) instanceof ItemChange)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stable id of the item at a position. Rows not loaded yet get a negative
+     * id of their own, real ids are never negative.
+     * <p>
+     *     A placeholder id is {@code -2 - position}, below {@link RecyclerView#NO_ID}.
+     *     It is only stable while the placeholder stays at its position : a placeholder
+     *     stands for whichever row is loaded there, which is unknown until its page is.
+     *     Once loaded, the row is notified as changed and rebound with its real id, the
+     *     same way skeleton placeholders are replaced in place by the first rows (see
+     *     {@link DataObject#ITEM_CALLBACK}). A paged source takes no row changes, so its
+     *     placeholders never shift.
+     * </p>
+     *
+     * @param position The position of the item within the adapter's data set.
+     * @return stable id of the item.
+     */
+    @Override
+    public long getItemId(int position) {
+
+        /** Read the id column, not to materialize rows which are not bound **/
+        if (mDataset instanceof RowStoreList) {
+            return ((RowStoreList) mDataset).getStore().getId(position);
+        }
+        DataObject dataObject = mDataset.get(position);
+        return (dataObject == null) ? -2 - position : dataObject.getId();
+    }
+
+    /**
+     * @param position The position of the item within the adapter's data set.
+     * @return data model object at the position, null if it is not loaded yet.
+     */
+    DataObject getItem(int position) {
+        return mDataset.get(position);
+    }
+
+    /**
+     * Fetch bind model of the item at a position.
+     *
+     * @param position The position of the item within the adapter's data set.
+     * @return precomputed bind model, usually already prepared in background,
+     *         or a placeholder if the item is not loaded yet.
+     */
+    TileBindModel getBindModel(int position) {
+        DataObject dataObject = mDataset.get(position);
+        return (dataObject == null) ? mPlaceholderBindModel : TileBindModel.of(dataObject, mLetterColorMapping);
     }
 
     /**
@@ -155,7 +605,7 @@ public class MyRecyclerViewAdapter extends RecyclerView.Adapter<MyRecyclerViewAd
      *
      * @author pabhinav (pabhinav@iitrpr.ac.in)
      */
-    public static class DataObjectHolder extends RecyclerView.ViewHolder implements View.OnClickListener {
+    public static class DataObjectHolder extends RecyclerView.ViewHolder implements View.OnClickListener, AvatarLoader.Target {
 
         /**
          * {@link TextView} used for describing list item.
@@ -167,24 +617,159 @@ public class MyRecyclerViewAdapter extends RecyclerView.Adapter<MyRecyclerViewAd
          */
         View mItemView;
 
+        /**
+         * Root view when list item is a flattened {@link TileView}, null otherwise.
+         */
+        TileView mTileView;
+
+        /**
+         * Bind model this holder is currently showing.
+         */
+        TileBindModel mBindModel;
+
+        /**
+         * Time bucket of the time passed label shown, see {@link TimePassedTicker}.
+         */
+        int mTimePassedBucket = RelativeTimeFormatter.NO_BUCKET;
+
+        /**
+         * Whether texts were skipped by a lightweight bind, see {@link #bindLightweight(TileBindModel)}.
+         */
+        boolean mTextsDeferred;
+
+        /**
+         * Loads avatars shown on the name plate.
+         */
+        private final AvatarLoader mAvatarLoader;
+
         /**
          * Constructor initializing View elements
          *
          * @param itemView the root {@link View} object.
+         * @param avatarLoader loads avatars shown on the name plate.
          */
-        public DataObjectHolder(View itemView) {
+        public DataObjectHolder(View itemView, AvatarLoader avatarLoader) {
             super(itemView);
 
             mItemView = itemView;
-            nameTextView = (TextView)itemView.findViewById(R.id.name_text_view);
-            locationTextView = (TextView)itemView.findViewById(R.id.place);
-            timePassedTextView = (TextView)itemView.findViewById(R.id.time_passed_out);
-            namePlateTextView = (TextView)itemView.findViewById(R.id.name_plate_text_view);
+            mAvatarLoader = avatarLoader;
+            if (itemView instanceof TileView) {
+                mTileView = (TileView) itemView;
+            } else {
+                nameTextView = (TextView) itemView.findViewById(R.id.name_text_view);
+                locationTextView = (TextView) itemView.findViewById(R.id.place);
+                timePassedTextView = (TextView) itemView.findViewById(R.id.time_passed_out);
+                namePlateTextView = (TextView) itemView.findViewById(R.id.name_plate_text_view);
+            }
 
             /** Need to register click events on main view **/
             itemView.setOnClickListener(this);
         }
 
+        /**
+         * Update views with precomputed display values.
+         *
+         * @param bindModel bind ready projection of the item at this holder's position.
+         */
+        void bind(TileBindModel bindModel) {
+            mBindModel = bindModel;
+            mTextsDeferred = false;
+            long now = System.currentTimeMillis();
+            mTimePassedBucket = bindModel.timePassedBucket(now);
+            if (mTileView != null) {
+                mTileView.bind(bindModel);
+            } else {
+                namePlateTextView.setText(bindModel.namePlateLetter);
+                nameTextView.setText(bindModel.displayName);
+                locationTextView.setText(bindModel.location);
+                timePassedTextView.setText(bindModel.timePassed(now));
+
+                /** Shared {@link CircleDrawable} state renders background of name plate letter holding {@link TextView} **/
+                NamePlateDrawableCache.applyNamePlate(namePlateTextView, bindModel.namePlateColor);
+            }
+            mAvatarLoader.load(bindModel.avatarUri, this, true);
+        }
+
+        /**
+         * Update name plate letter and its color only, and empty texts, which are bound later.
+         * An avatar is shown only if it is already in memory. The bind model is kept, so
+         * that masked tile view imitating this tile is complete.
+         *
+         * @param bindModel bind ready projection of the item at this holder's position.
+         */
+        void bindLightweight(TileBindModel bindModel) {
+            mBindModel = bindModel;
+            mTextsDeferred = true;
+            if (mTileView != null) {
+                mTileView.bindLightweight(bindModel);
+            } else {
+                namePlateTextView.setText(bindModel.namePlateLetter);
+                nameTextView.setText(null);
+                locationTextView.setText(null);
+                timePassedTextView.setText(null);
+                NamePlateDrawableCache.applyNamePlate(namePlateTextView, bindModel.namePlateColor);
+            }
+            mAvatarLoader.load(bindModel.avatarUri, this, false);
+        }
+
+        /**
+         * Show an avatar instead of the name plate letter, or the letter again.
+         *
+         * @param avatar bitmap of the name plate size, or null to show the letter.
+         */
+        @Override
+        public void setAvatar(Bitmap avatar) {
+            if (mTileView != null) {
+                mTileView.setAvatar(avatar);
+                return;
+            }
+            namePlateTextView.setText((avatar != null || mBindModel == null) ? "" : mBindModel.namePlateLetter);
+            NamePlateDrawableCache.applyAvatar(namePlateTextView, avatar);
+        }
+
+        /**
+         * Update only the views showing a changed field. A tile whose texts were
+         * deferred is bound in full on any change.
+         *
+         * @param bindModel bind ready projection of the item, after the change.
+         * @param change changed field.
+         */
+        void bindChange(TileBindModel bindModel, ItemChange change) {
+            if (mTextsDeferred) {
+                bind(bindModel);
+                return;
+            }
+            if (change == ItemChange.TEXTS) {
+                return;
+            }
+            mBindModel = bindModel;
+            if (change == ItemChange.AVATAR) {
+                mAvatarLoader.load(bindModel.avatarUri, this, true);
+                return;
+            }
+            long now = System.currentTimeMillis();
+            mTimePassedBucket = bindModel.timePassedBucket(now);
+
+            /** A flattened tile only lays out texts which changed, binding it in full is as cheap **/
+            if (mTileView != null) {
+                mTileView.bind(bindModel);
+                return;
+            }
+            switch (change) {
+                case NAME:
+                    namePlateTextView.setText(NamePlateDrawableCache.hasAvatar(namePlateTextView) ? "" : bindModel.namePlateLetter);
+                    nameTextView.setText(bindModel.displayName);
+                    NamePlateDrawableCache.applyNamePlate(namePlateTextView, bindModel.namePlateColor);
+                    break;
+                case LOCATION:
+                    locationTextView.setText(bindModel.location);
+                    break;
+                case TIME_PASSED:
+                    timePassedTextView.setText(bindModel.timePassed(now));
+                    break;
+            }
+        }
+
         @Override
         public void onClick(View v) {
 
@@ -193,6 +778,33 @@ public class MyRecyclerViewAdapter extends RecyclerView.Adapter<MyRecyclerViewAd
         }
     }
 
+    /**
+     * Choose how list items are inflated. Has to be called before {@link RecyclerView}
+     * creates any view holder.
+     *
+     * @param useFlatTileView true to draw each list item with a single {@link TileView}.
+     */
+    public void setUseFlatTileView(boolean useFlatTileView) {
+        mUseFlatTileView = useFlatTileView;
+    }
+
+    /**
+     * @return layout resource of list items.
+     */
+    public int getTileLayoutResId() {
+        return mUseFlatTileView ? R.layout.tile_flat : R.layout.tile;
+    }
+
+    /**
+     * Set source of tiles inflated ahead of time. It has to inflate the layout
+     * given by {@link #getTileLayoutResId()}.
+     *
+     * @param tileViewPrewarmer pre warmer, or null to always inflate on demand.
+     */
+    public void setTileViewPrewarmer(TileViewPrewarmer tileViewPrewarmer) {
+        mTileViewPrewarmer = tileViewPrewarmer;
+    }
+
     /**
      * Setter function for callback interface.
      *
@@ -209,8 +821,70 @@ public class MyRecyclerViewAdapter extends RecyclerView.Adapter<MyRecyclerViewAd
      * @param index position at which item is to be added.
      */
     public void addItem(DataObject dataObj, int index) {
-        mDataset.add(dataObj);
+        projectInBackground(new DataObject[] {dataObj});
+        mDataset.add(index, dataObj);
+        mDatasetVersion++;
+        if (mSectionIndex != null) {
+            mSectionIndex.onInserted(dataObj);
+        } else {
+            indexSectionsInBackground();
+        }
         notifyItemInserted(index);
+        notifyRowsChanged();
+    }
+
+    /**
+     * Replaces an item with an updated version of it (same id), notifying
+     * which fields changed, so that only their views are updated. Not supported
+     * with a paged source.
+     *
+     * @param index position of the item.
+     * @param dataObj updated item model object.
+     */
+    public void updateItem(int index, DataObject dataObj) {
+        DataObject old = mDataset.set(index, dataObj);
+        mDatasetVersion++;
+        if (mSectionIndex != null) {
+            mSectionIndex.onRemoved(old);
+            mSectionIndex.onInserted(dataObj);
+        } else {
+            indexSectionsInBackground();
+        }
+        notifyItemUpdated(index, old, dataObj);
+        notifyRowsChanged();
+    }
+
+    /**
+     * Notifies which fields of an item changed.
+     *
+     * @param index position of the item.
+     * @param old previous version of the item, may be null.
+     * @param dataObj updated item model object.
+     */
+    private void notifyItemUpdated(int index, DataObject old, DataObject dataObj) {
+        if (old == null || old.getId() != dataObj.getId()) {
+            notifyItemChanged(index);
+            return;
+        }
+        if (old.hasSameContent(dataObj)) {
+            return;
+        }
+        if (!equal(old.getName(), dataObj.getName())) {
+            notifyItemChanged(index, ItemChange.NAME);
+        }
+        if (!equal(old.getLocation(), dataObj.getLocation())) {
+            notifyItemChanged(index, ItemChange.LOCATION);
+        }
+        if (old.getCheckInTime() != dataObj.getCheckInTime()) {
+            notifyItemChanged(index, ItemChange.TIME_PASSED);
+        }
+        if (!equal(old.getAvatarUri(), dataObj.getAvatarUri())) {
+            notifyItemChanged(index, ItemChange.AVATAR);
+        }
+    }
+
+    private static boolean equal(String lhs, String rhs) {
+        return (lhs == null) ? (rhs == null) : lhs.equals(rhs);
     }
 
     /**
@@ -219,8 +893,322 @@ public class MyRecyclerViewAdapter extends RecyclerView.Adapter<MyRecyclerViewAd
      * @param index position at which item is to be deleted.
      */
     public void deleteItem(int index) {
-        mDataset.remove(index);
+        DataObject removed = mDataset.remove(index);
+        mDatasetVersion++;
+        if (mSectionIndex != null) {
+            mSectionIndex.onRemoved(removed);
+        } else {
+            indexSectionsInBackground();
+        }
         notifyItemRemoved(index);
+        notifyRowsChanged();
+    }
+
+    /**
+     * Applies a batch of row changes at once, e.g. drained by {@link RowIngestor} : the data
+     * set is walked once, and insertions and removals are notified as ranges, so that
+     * however many rows changed, they are laid out in a single pass. Replaced rows are
+     * notified with {@link ItemChange} payloads, as with {@link #updateItem(int, DataObject)}.
+     * A read only view (stored or filtered rows) is copied into a modifiable list first.
+     * Not supported with a paged source.
+     *
+     * @param batch changes to apply.
+     * @param order order of the data set, in which inserted rows are merged, null to
+     *              append them.
+     */
+    public void applyChanges(RowChangeBatch batch, Comparator<DataObject> order) {
+        if (mDataset instanceof PagedDataList) {
+            throw new UnsupportedOperationException("Row changes are not supported with a paged source");
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        /** Rows filtered by a search : changes go to all rows, which are filtered again by the listener **/
+        if (mDataset instanceof FilteredDataList) {
+            applyChangesToSource(batch, order);
+            return;
+        }
+        RowChangeBatch.Result result = batch.applyTo(mDataset, order);
+
+        /** Swap rows first, observers may read them as updates are dispatched **/
+        mDataset = result.getRows();
+        mDatasetVersion++;
+        final List<DataObject> changedRows = new ArrayList<>();
+        result.dispatchUpdatesTo(new RowChangeBatch.Callback() {
+            @Override
+            public void onInserted(int position, List<DataObject> rows) {
+                changedRows.addAll(rows);
+                if (mSectionIndex != null) {
+                    for (int i = 0; i < rows.size(); i++) {
+                        mSectionIndex.onInserted(rows.get(i));
+                    }
+                }
+                notifyItemRangeInserted(position, rows.size());
+            }
+
+            @Override
+            public void onRemoved(int position, List<DataObject> rows) {
+                if (mSectionIndex != null) {
+                    for (int i = 0; i < rows.size(); i++) {
+                        mSectionIndex.onRemoved(rows.get(i));
+                    }
+                }
+                notifyItemRangeRemoved(position, rows.size());
+            }
+
+            @Override
+            public void onReplaced(int position, DataObject oldRow, DataObject newRow) {
+                changedRows.add(newRow);
+                if (mSectionIndex != null) {
+                    mSectionIndex.onRemoved(oldRow);
+                    mSectionIndex.onInserted(newRow);
+                }
+                notifyItemUpdated(position, oldRow, newRow);
+            }
+        });
+        if (mSectionIndex == null) {
+            indexSectionsInBackground();
+        }
+        projectInBackground(changedRows.toArray(new DataObject[changedRows.size()]));
+        notifyRowsChanged();
+    }
+
+    /**
+     * Merges changes into all rows while a search result is shown. The result itself is
+     * left as it is, and replaced once the listener has filtered the changed rows again.
+     */
+    private void applyChangesToSource(RowChangeBatch batch, Comparator<DataObject> order) {
+        RowChangeBatch.Result result = batch.applyTo(((FilteredDataList) mDataset).getSource(), order);
+        final List<DataObject> changedRows = new ArrayList<>();
+        result.dispatchUpdatesTo(new RowChangeBatch.Callback() {
+            @Override
+            public void onInserted(int position, List<DataObject> rows) {
+                changedRows.addAll(rows);
+            }
+
+            @Override
+            public void onRemoved(int position, List<DataObject> rows) {
+            }
+
+            @Override
+            public void onReplaced(int position, DataObject oldRow, DataObject newRow) {
+                changedRows.add(newRow);
+            }
+        });
+        projectInBackground(changedRows.toArray(new DataObject[changedRows.size()]));
+        if (mOnRowsChangedListener != null) {
+            mOnRowsChangedListener.onRowsChanged(result.getRows());
+        }
+    }
+
+    /**
+     * Set listener notified when rows are added, updated or deleted, e.g. to keep a
+     * snapshot of them up to date. Lists given to {@link #submitList(List)} are not notified.
+     *
+     * @param onRowsChangedListener listener, or null.
+     */
+    public void setOnRowsChangedListener(OnRowsChangedListener onRowsChangedListener) {
+        mOnRowsChangedListener = onRowsChangedListener;
+    }
+
+    private void notifyRowsChanged() {
+        if (mOnRowsChangedListener != null) {
+            mOnRowsChangedListener.onRowsChanged(getRows());
+        }
+    }
+
+    /**
+     * All rows of the data set, whether shown or filtered out by a search.
+     *
+     * @return rows, the source of a {@link FilteredDataList} shown.
+     */
+    public List<DataObject> getRows() {
+        return (mDataset instanceof FilteredDataList) ? ((FilteredDataList) mDataset).getSource() : mDataset;
+    }
+
+    /**
+     * Position of the item with a stable id, e.g. to scroll back to a saved anchor.
+     * Rows of a paged source are neither filtered nor reordered, nor read not to load
+     * their pages : the hinted position is trusted.
+     *
+     * @param id stable id of the item, see {@link #getItemId(int)}.
+     * @param hintPosition position where the item was last seen, checked first.
+     * @return position of the item, or {@link RecyclerView#NO_POSITION} if it is not in the data set.
+     */
+    public int findPosition(long id, int hintPosition) {
+        int itemCount = getItemCount();
+        if (mDataset instanceof PagedDataList) {
+            return (hintPosition >= 0 && hintPosition < itemCount) ? hintPosition : RecyclerView.NO_POSITION;
+        }
+        if (hintPosition >= 0 && hintPosition < itemCount && getItemId(hintPosition) == id) {
+            return hintPosition;
+        }
+        for (int position = 0; position < itemCount; position++) {
+            if (getItemId(position) == id) {
+                return position;
+            }
+        }
+        return RecyclerView.NO_POSITION;
+    }
+
+    /**
+     * Enables maintenance of alphabet sections of the data set, e.g. for {@link LetterRailView}.
+     * Sections are indexed in background whenever the list is replaced, then kept up to date
+     * by {@link #addItem(DataObject, int)}, {@link #updateItem(int, DataObject)} and
+     * {@link #deleteItem(int)}. Not supported with a paged source.
+     *
+     * @param enabled whether sections are maintained.
+     */
+    public void setSectionIndexEnabled(boolean enabled) {
+        mSectionIndexEnabled = enabled;
+        indexSectionsInBackground();
+    }
+
+    /**
+     * Alphabet sections of the data set. Positions of sections are right as long as
+     * rows are sorted with {@link SectionIndex#SECTION_ORDER}.
+     *
+     * @return sections, or null if not enabled or still being indexed.
+     */
+    public SectionIndex getSectionIndex() {
+        return mSectionIndex;
+    }
+
+    /**
+     * Indexes alphabet sections of the current data set on a background thread,
+     * if enabled. Until done, {@link #getSectionIndex()} returns null.
+     */
+    private void indexSectionsInBackground() {
+        final int generation = ++mSectionIndexGeneration;
+        mSectionIndex = null;
+        if (!mSectionIndexEnabled || mDataset instanceof PagedDataList) {
+            return;
+        }
+
+        /** Snapshot, so that the main thread stays free to modify the data set meanwhile **/
+        final List<DataObject> rows = isReadOnlyView(mDataset) ? mDataset : new ArrayList<>(mDataset);
+        ListExecutors.background().execute(new Runnable() {
+            @Override
+            public void run() {
+                final SectionIndex sectionIndex = SectionIndex.build(rows);
+                ListExecutors.mainThread().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == mSectionIndexGeneration) {
+                            mSectionIndex = sectionIndex;
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Replaces the whole list, e.g. with a refreshed feed, notifying only what changed.
+     * <p>
+     *     The difference against the current list is computed on a background thread
+     *     (see {@link ListDiffer}), along with bind models of the new rows. It is then
+     *     applied on the main thread as coalesced range notifications, so unchanged
+     *     tiles are not rebound and the stack effect is kept. A diff still being computed
+     *     when a newer list is submitted is discarded.
+     * </p>
+     * <p>
+     *     The given list must not be modified afterwards. With a paged source, the list is
+     *     replaced without diffing.
+     * </p>
+     * <p>
+     *     A {@link RowStoreList} or a {@link FilteredDataList} also replaces the list without
+     *     diffing, as diffing would materialize all of its rows, or cost as much as the list
+     *     is large when most rows are filtered out : its rows are projected when bound instead.
+     *     Items can then not be added, updated or deleted, until a modifiable list is submitted.
+     * </p>
+     *
+     * @param newList rows to show.
+     */
+    public void submitList(List<DataObject> newList) {
+        submitList(newList, null);
+    }
+
+    /**
+     * Same as {@link #submitList(List)}, running a callback once the list is shown.
+     *
+     * @param newList rows to show.
+     * @param commitCallback run on the main thread once rows are swapped in and notified,
+     *                       never run if a newer list is submitted meanwhile; may be null.
+     */
+    public void submitList(final List<DataObject> newList, final Runnable commitCallback) {
+        final int generation = mSubmitGeneration.incrementAndGet();
+
+        /** Stored or filtered rows are shown as they are **/
+        if (isReadOnlyView(newList)) {
+            mDataset = newList;
+            mDatasetVersion++;
+            indexSectionsInBackground();
+            notifyDataSetChanged();
+            if (commitCallback != null) {
+                commitCallback.run();
+            }
+            return;
+        }
+
+        /** Paged rows are mostly not loaded, stored or filtered ones not materialized, nothing to diff against **/
+        if (mDataset instanceof PagedDataList || isReadOnlyView(mDataset)) {
+            mDataset = new ArrayList<>(newList);
+            mDatasetVersion++;
+            projectInBackground(newList.toArray(new DataObject[newList.size()]));
+            indexSectionsInBackground();
+            notifyDataSetChanged();
+            if (commitCallback != null) {
+                commitCallback.run();
+            }
+            return;
+        }
+
+        /** Snapshot, so that the main thread stays free to modify the data set meanwhile **/
+        final List<DataObject> oldList = new ArrayList<>(mDataset);
+        final int datasetVersion = mDatasetVersion;
+        final LetterColorMapping letterColorMapping = mLetterColorMapping;
+
+        ListExecutors.background().execute(new Runnable() {
+            @Override
+            public void run() {
+                if (generation != mSubmitGeneration.get()) {
+                    return;
+                }
+                final List<DataObject> adoptedList = new ArrayList<>(newList);
+                TileBindModel.projectAll(adoptedList, letterColorMapping);
+                final ListDiffer.DiffResult diffResult = ListDiffer.calculateDiff(oldList, adoptedList, DataObject.ITEM_CALLBACK);
+
+                ListExecutors.mainThread().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        /** A newer list was submitted meanwhile **/
+                        if (generation != mSubmitGeneration.get()) {
+                            return;
+                        }
+                        /** Data set was modified meanwhile, diff again against its current state **/
+                        if (datasetVersion != mDatasetVersion) {
+                            submitList(adoptedList, commitCallback);
+                            return;
+                        }
+                        mDataset = adoptedList;
+                        indexSectionsInBackground();
+                        diffResult.dispatchUpdatesTo(mListUpdateCallback);
+                        if (commitCallback != null) {
+                            commitCallback.run();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * @return whether a list is a read only view over rows held elsewhere.
+     */
+    private static boolean isReadOnlyView(List<DataObject> list) {
+        return list instanceof RowStoreList || list instanceof FilteredDataList;
     }
 
     /**
@@ -240,4 +1228,17 @@ public class MyRecyclerViewAdapter extends RecyclerView.Adapter<MyRecyclerViewAd
         void onItemClick(int position, View v);
     }
 
+    /**
+     * Callback Interface used to notify that rows were added, updated or deleted.
+     */
+    public interface OnRowsChangedListener {
+
+        /**
+         * @param rows all rows after the change, see {@link #getRows()}. Modifiable lists
+         *             are modified in place by later changes. While a search result is
+         *             shown, these rows are not shown until filtered again.
+         */
+        void onRowsChanged(List<DataObject> rows);
+    }
+
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import android.graphics.Bitmap;
+import android.util.SparseArray;
+import android.view.View;
+
+/**
+ * Cache of name plate {@link CircleDrawable.CircleState} objects, keyed by resolved color.
+ * <p>
+ *     Name plate colors come from {@link LetterColorMapping}, so there is at most
+ *     one cached state per letter color, no matter how long the list is. A state
+ *     only depends on its color, so it stays valid across configuration changes :
+ *     a mapping rebuilt from new {@link android.content.res.Resources} at most adds
+ *     the states of its new colors, and nothing needs to be dropped.
+ * </p>
+ * <p>
+ *     Each name plate {@link View} gets its own {@link CircleDrawable} only once,
+ *     on its first bind. Every later bind just swaps the shared state of that
+ *     drawable, so binding on the scroll path does not allocate.
+ * </p>
+ * <p>
+ *     Must only be used from the main thread.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public class NamePlateDrawableCache {
+
+    /**
+     * {@link SparseArray} mapping resolved color to its shared {@link CircleDrawable.CircleState}.
+     */
+    private static final SparseArray<CircleDrawable.CircleState> sCircleStates = new SparseArray<>();
+
+    /**
+     * Fetch the shared state for a color, creating it on first use.
+     *
+     * @param color resolved ARGB color of the name plate.
+     * @return shared {@link CircleDrawable.CircleState} for this color.
+     */
+    public static CircleDrawable.CircleState getCircleState(int color) {
+        CircleDrawable.CircleState circleState = sCircleStates.get(color);
+        if (circleState == null) {
+            circleState = new CircleDrawable.CircleState(color);
+            sCircleStates.put(color, circleState);
+        }
+        return circleState;
+    }
+
+    /**
+     * Set name plate background of given color on the view.
+     * <p>
+     *     If the view already has a {@link CircleDrawable} background, its state is
+     *     swapped in place, else a drawable sharing the cached state is set once.
+     * </p>
+     *
+     * @param namePlateView {@link View} rendering the name plate letter.
+     * @param color resolved ARGB color of the name plate.
+     */
+    @SuppressWarnings("deprecation")
+    public static void applyNamePlate(View namePlateView, int color) {
+        CircleDrawable.CircleState circleState = getCircleState(color);
+        if (namePlateView.getBackground() instanceof CircleDrawable) {
+            ((CircleDrawable) namePlateView.getBackground()).setCircleState(circleState);
+        } else {
+            namePlateView.setBackgroundDrawable(circleState.newDrawable());
+        }
+    }
+
+    /**
+     * Show an avatar on the name plate background set by {@link #applyNamePlate(View, int)},
+     * instead of its color.
+     *
+     * @param namePlateView {@link View} rendering the name plate letter.
+     * @param avatar bitmap clipped to the name plate circle, null to show the color.
+     */
+    public static void applyAvatar(View namePlateView, Bitmap avatar) {
+        if (namePlateView.getBackground() instanceof CircleDrawable) {
+            ((CircleDrawable) namePlateView.getBackground()).setAvatar(avatar);
+        }
+    }
+
+    /**
+     * @param namePlateView {@link View} rendering the name plate letter.
+     * @return whether an avatar is shown instead of the name plate color.
+     */
+    public static boolean hasAvatar(View namePlateView) {
+        return namePlateView.getBackground() instanceof CircleDrawable
+                && ((CircleDrawable) namePlateView.getBackground()).hasAvatar();
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Prefix search index over names of list rows.
+ * <p>
+ *     Names are lower cased and dictionary encoded : each row holds the code of its
+ *     name, and every distinct name is indexed once. The index is a sorted array of
+ *     word starts of distinct names (a suffix array restricted to word boundaries),
+ *     so a query matches any word of a name, e.g. "mes" matches "Lionel Messi". A
+ *     query is answered with two binary searches, giving the range of matching word
+ *     starts, then a scan of the row codes against the matching names.
+ * </p>
+ * <p>
+ *     Queries narrow incrementally : when a query extends the previous one, both
+ *     binary searches are restricted to the previous range, and only rows which
+ *     matched before are scanned again. See {@link #search(String, Match, CancellationSignal)}.
+ * </p>
+ * <p>
+ *     Building and searching are meant to run on a background thread. Once built,
+ *     an index is immutable and thread safe. This class has no Android dependency.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public final class NameSearchIndex {
+
+    /** Number of rows scanned between two cancellation checks **/
+    private static final int CANCELLATION_CHECK_INTERVAL = 4096;
+
+    /** Offset of a word start in its name is packed in the lowest bits of an entry **/
+    private static final int OFFSET_BITS = 16;
+    private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+
+    /**
+     * Tells a long running search that its result is not wanted anymore.
+     */
+    public interface CancellationSignal {
+        boolean isCanceled();
+    }
+
+    /**
+     * Result of a query : sorted positions of matching rows, along with what is
+     * needed to narrow it further. Immutable.
+     */
+    public static final class Match {
+
+        /** Normalized query **/
+        final String query;
+
+        /** Range of matching entries **/
+        final int entryStart;
+        final int entryEnd;
+
+        /** Positions of matching rows, ascending **/
+        final int[] positions;
+
+        Match(String query, int entryStart, int entryEnd, int[] positions) {
+            this.query = query;
+            this.entryStart = entryStart;
+            this.entryEnd = entryEnd;
+            this.positions = positions;
+        }
+
+        /**
+         * @return positions of matching rows, ascending. Must not be modified.
+         */
+        public int[] getPositions() {
+            return positions;
+        }
+    }
+
+    /** Lower cased distinct names, indexed by code **/
+    private final String[] mNames;
+
+    /** Name code of each row, {@link StringDictionary#NULL_CODE} for rows with no name **/
+    private final int[] mRowCodes;
+
+    /** Word starts of distinct names, code and offset packed, sorted by text from the word start **/
+    private final long[] mEntries;
+
+    private NameSearchIndex(String[] names, int[] rowCodes, long[] entries) {
+        mNames = names;
+        mRowCodes = rowCodes;
+        mEntries = entries;
+    }
+
+    /**
+     * Builds an index over names of rows. Null rows are never matched.
+     *
+     * @param rows rows to index, not modified meanwhile.
+     * @param cancellationSignal checked while building, may be null.
+     * @return index, or null if canceled.
+     */
+    public static NameSearchIndex build(List<DataObject> rows, CancellationSignal cancellationSignal) {
+        StringDictionary dictionary = new StringDictionary();
+        int[] rowCodes = new int[rows.size()];
+        int wordCount = 0;
+        for (int i = 0; i < rowCodes.length; i++) {
+            if (i % CANCELLATION_CHECK_INTERVAL == 0 && isCanceled(cancellationSignal)) {
+                return null;
+            }
+            DataObject dataObject = rows.get(i);
+            String name = (dataObject == null) ? null : dataObject.getName();
+            int distinctCount = dictionary.size();
+            rowCodes[i] = dictionary.encode(normalize(name));
+            if (dictionary.size() > distinctCount) {
+                wordCount += countWords(dictionary.decode(rowCodes[i]));
+            }
+        }
+
+        String[] names = new String[dictionary.size()];
+        long[] entries = new long[wordCount];
+        int entryCount = 0;
+        for (int code = 0; code < names.length; code++) {
+            String name = dictionary.decode(code);
+            names[code] = name;
+            int length = Math.min(name.length(), (int) OFFSET_MASK);
+            for (int offset = 0; offset < length; offset++) {
+                if (isWordStart(name, offset)) {
+                    entries[entryCount++] = ((long) code << OFFSET_BITS) | offset;
+                }
+            }
+        }
+        if (isCanceled(cancellationSignal)) {
+            return null;
+        }
+
+        NameSearchIndex index = new NameSearchIndex(names, rowCodes, entries);
+        index.sortEntries(new long[entries.length], 0, entries.length);
+        return index;
+    }
+
+    /**
+     * Normalizes names and queries, so that search is case insensitive.
+     *
+     * @param text name or query, may be null.
+     * @return lower cased and trimmed text, or null.
+     */
+    public static String normalize(String text) {
+        return (text == null) ? null : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return number of indexed rows.
+     */
+    public int size() {
+        return mRowCodes.length;
+    }
+
+    /**
+     * Finds rows with a name word starting with a query.
+     *
+     * @param query text typed, normalized with {@link #normalize(String)} here. An empty
+     *              query matches all rows with a name.
+     * @param previous result of a previous query on this index, may be null. If the query
+     *                 extends it, only its matches are searched again.
+     * @param cancellationSignal checked while searching, may be null.
+     * @return matching rows, or null if canceled.
+     */
+    public Match search(String query, Match previous, CancellationSignal cancellationSignal) {
+        query = normalize(query);
+        if (query == null) {
+            query = "";
+        }
+        boolean narrowing = previous != null && query.startsWith(previous.query);
+        int low = narrowing ? previous.entryStart : 0;
+        int high = narrowing ? previous.entryEnd : mEntries.length;
+
+        int entryStart = lowerBound(query, low, high);
+        int entryEnd = upperBound(query, entryStart, high);
+
+        /** Names with a word matching the query **/
+        BitSet matchingCodes = new BitSet(mNames.length);
+        for (int i = entryStart; i < entryEnd; i++) {
+            matchingCodes.set((int) (mEntries[i] >>> OFFSET_BITS));
+        }
+
+        int candidateCount = narrowing ? previous.positions.length : mRowCodes.length;
+        int[] positions = new int[Math.min(candidateCount, 64)];
+        int count = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            if (i % CANCELLATION_CHECK_INTERVAL == 0 && isCanceled(cancellationSignal)) {
+                return null;
+            }
+            int position = narrowing ? previous.positions[i] : i;
+            int code = mRowCodes[position];
+            if (code != StringDictionary.NULL_CODE && matchingCodes.get(code)) {
+                if (count == positions.length) {
+                    positions = Arrays.copyOf(positions, Math.min(candidateCount, count * 2));
+                }
+                positions[count++] = position;
+            }
+        }
+        return new Match(query, entryStart, entryEnd, Arrays.copyOf(positions, count));
+    }
+
+    /**
+     * @return first entry in [low, high) not before the query.
+     */
+    private int lowerBound(String query, int low, int high) {
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (comparePrefix(mEntries[middle], query) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return first entry in [low, high) after all entries starting with the query.
+     */
+    private int upperBound(String query, int low, int high) {
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (comparePrefix(mEntries[middle], query) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compares the text of an entry, cut to the length of a query, with the query.
+     *
+     * @return negative, zero or positive when the entry is before, starts with or is after the query.
+     */
+    private int comparePrefix(long entry, String query) {
+        String name = mNames[(int) (entry >>> OFFSET_BITS)];
+        int offset = (int) (entry & OFFSET_MASK);
+        int length = Math.min(name.length() - offset, query.length());
+        for (int i = 0; i < length; i++) {
+            int difference = name.charAt(offset + i) - query.charAt(i);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return (length == query.length()) ? 0 : -1;
+    }
+
+    /**
+     * Compares the texts of two entries.
+     */
+    private int compareEntries(long lhs, long rhs) {
+        String lhsName = mNames[(int) (lhs >>> OFFSET_BITS)];
+        String rhsName = mNames[(int) (rhs >>> OFFSET_BITS)];
+        int lhsOffset = (int) (lhs & OFFSET_MASK);
+        int rhsOffset = (int) (rhs & OFFSET_MASK);
+        int lhsLength = lhsName.length() - lhsOffset;
+        int rhsLength = rhsName.length() - rhsOffset;
+        int length = Math.min(lhsLength, rhsLength);
+        for (int i = 0; i < length; i++) {
+            int difference = lhsName.charAt(lhsOffset + i) - rhsName.charAt(rhsOffset + i);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return lhsLength - rhsLength;
+    }
+
+    /**
+     * Merge sort of entries in [from, to), avoiding boxing of a comparator based sort.
+     */
+    private void sortEntries(long[] buffer, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sortEntries(buffer, from, middle);
+        sortEntries(buffer, middle, to);
+        if (compareEntries(mEntries[middle - 1], mEntries[middle]) <= 0) {
+            return;
+        }
+        System.arraycopy(mEntries, from, buffer, from, to - from);
+        for (int i = from, left = from, right = middle; i < to; i++) {
+            if (right >= to || (left < middle && compareEntries(buffer[left], buffer[right]) <= 0)) {
+                mEntries[i] = buffer[left++];
+            } else {
+                mEntries[i] = buffer[right++];
+            }
+        }
+    }
+
+    private static int countWords(String name) {
+        int count = 0;
+        for (int offset = 0, length = Math.min(name.length(), (int) OFFSET_MASK); offset < length; offset++) {
+            if (isWordStart(name, offset)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean isWordStart(String name, int offset) {
+        return !Character.isWhitespace(name.charAt(offset))
+                && (offset == 0 || Character.isWhitespace(name.charAt(offset - 1)));
+    }
+
+    private static boolean isCanceled(CancellationSignal cancellationSignal) {
+        return cancellationSignal != null && cancellationSignal.isCanceled();
+    }
+}
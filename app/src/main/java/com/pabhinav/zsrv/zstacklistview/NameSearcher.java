@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import android.support.v7.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Type to filter over names of a list using {@link MyRecyclerViewAdapter}.
+ * <p>
+ *     A {@link NameSearchIndex} is built over the rows on a background thread, and
+ *     every query is searched there too, narrowing the previous result when the query
+ *     is extended. Results are published to the adapter as a {@link FilteredDataList},
+ *     holding positions only, and the list goes back to its top. The stack effect
+ *     follows, as with any other data set change.
+ * </p>
+ * <p>
+ *     Each query supersedes the previous one : a search still running when a newer
+ *     query is typed is canceled, and its result never published. Queries typed before
+ *     the index is built are searched once it is.
+ * </p>
+ * <p>
+ *     Rows changed while a result is shown are given with {@link #updateSource(List)} :
+ *     the index is built again and the query searched again, in place, so that neither
+ *     the result nor all rows shown once the query is cleared are outdated.
+ * </p>
+ * <p>
+ *     Must only be used from the main thread.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public class NameSearcher {
+
+    /** List whose rows are filtered **/
+    private final RecyclerView mRecyclerView;
+
+    /** Incremented for every source, so that an outdated build is canceled **/
+    private final AtomicInteger mIndexGeneration = new AtomicInteger();
+
+    /** Incremented for every query, so that an outdated search is canceled **/
+    private final AtomicInteger mQueryGeneration = new AtomicInteger();
+
+    /** All rows, shown when the query is empty **/
+    private List<DataObject> mSource;
+
+    /** Index over the source, null until built **/
+    private NameSearchIndex mIndex;
+
+    /** Last result, searched with {@link #mIndex}, null if none **/
+    private NameSearchIndex.Match mMatch;
+
+    /** Whether the adapter shows a result rather than all rows **/
+    private boolean mFiltered;
+
+    /** Last query typed **/
+    private String mQuery = "";
+
+    /**
+     * Constructor for this class.
+     *
+     * @param recyclerView list using {@link MyRecyclerViewAdapter}.
+     */
+    public NameSearcher(RecyclerView recyclerView) {
+        mRecyclerView = recyclerView;
+    }
+
+    /**
+     * Sets rows to search, starting to index them in background.
+     *
+     * @param source rows also submitted to the adapter, not modified afterwards.
+     */
+    public void setSource(List<DataObject> source) {
+        mFiltered = false;
+        index(source, true);
+    }
+
+    /**
+     * Sets rows changed since they were given, searching the query again once they are
+     * indexed. Unlike {@link #setSource(List)}, the list keeps its scroll position.
+     *
+     * @param source all rows, as the adapter has them now. A modifiable list is copied.
+     */
+    public void updateSource(List<DataObject> source) {
+        index((source instanceof RowStoreList) ? source : new ArrayList<>(source), false);
+    }
+
+    /**
+     * Indexes rows in background, then searches the query again.
+     *
+     * @param source rows, not modified afterwards.
+     * @param scrollToTop whether the list goes back to its top if a result is published.
+     */
+    private void index(final List<DataObject> source, final boolean scrollToTop) {
+        final int generation = mIndexGeneration.incrementAndGet();
+        mSource = source;
+        mIndex = null;
+        mMatch = null;
+
+        ListExecutors.background().execute(new Runnable() {
+            @Override
+            public void run() {
+                final NameSearchIndex index = NameSearchIndex.build(source, newCancellationSignal(mIndexGeneration, generation));
+                if (index == null) {
+                    return;
+                }
+                ListExecutors.mainThread().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != mIndexGeneration.get()) {
+                            return;
+                        }
+                        mIndex = index;
+                        search(mQuery, scrollToTop);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Filters the list with a query, replacing the previous one.
+     *
+     * @param query text typed, empty to show all rows.
+     */
+    public void search(String query) {
+        search(query, true);
+    }
+
+    private void search(String query, final boolean scrollToTop) {
+        mQuery = (query == null) ? "" : query;
+        final int generation = mQueryGeneration.incrementAndGet();
+        if (mIndex == null) {
+            return;
+        }
+
+        /** Back to all rows, unless already shown **/
+        if (NameSearchIndex.normalize(mQuery).isEmpty()) {
+            if (mFiltered) {
+                mMatch = null;
+                mFiltered = false;
+                publish(mSource, scrollToTop);
+            }
+            return;
+        }
+
+        final NameSearchIndex index = mIndex;
+        final NameSearchIndex.Match previous = mMatch;
+        final List<DataObject> source = mSource;
+        final String searchedQuery = mQuery;
+        ListExecutors.background().execute(new Runnable() {
+            @Override
+            public void run() {
+                final NameSearchIndex.Match match = index.search(searchedQuery, previous,
+                        newCancellationSignal(mQueryGeneration, generation));
+                if (match == null) {
+                    return;
+                }
+                ListExecutors.mainThread().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != mQueryGeneration.get() || index != mIndex) {
+                            return;
+                        }
+                        mMatch = match;
+                        mFiltered = true;
+                        publish(new FilteredDataList(source, match.getPositions()), scrollToTop);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Cancels indexing and searches in progress, e.g. when the list goes away.
+     */
+    public void cancel() {
+        mIndexGeneration.incrementAndGet();
+        mQueryGeneration.incrementAndGet();
+    }
+
+    private void publish(List<DataObject> rows, boolean scrollToTop) {
+        ((MyRecyclerViewAdapter) mRecyclerView.getAdapter()).submitList(rows);
+        if (scrollToTop) {
+            mRecyclerView.scrollToPosition(0);
+        }
+    }
+
+    private static NameSearchIndex.CancellationSignal newCancellationSignal(final AtomicInteger generations,
+                                                                            final int generation) {
+        return new NameSearchIndex.CancellationSignal() {
+            @Override
+            public boolean isCanceled() {
+                return generation != generations.get();
+            }
+        };
+    }
+}
@@ -0,0 +1,353 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import android.util.Log;
+import android.util.SparseArray;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * Read only {@link List} view over a {@link PagedDataSource}, holding only a
+ * bounded window of pages in memory.
+ * <p>
+ *     Pages of fixed size are loaded on {@link ListExecutors#background()}, and their
+ *     {@link TileBindModel} projections are prepared there too. {@link #get(int)}
+ *     returns null (a placeholder) for rows whose page is not loaded yet, and
+ *     moves the window of pages around the requested position : the page of that
+ *     position and its neighbours get loaded, pages too far away are dropped.
+ * </p>
+ * <p>
+ *     {@link MyRecyclerViewAdapter} calls {@link #get(int)} while binding, so the
+ *     window follows the rows around the visible range. Once a page is loaded,
+ *     {@link OnPageLoadedListener} is notified so that placeholders get rebound.
+ * </p>
+ * <p>
+ *     Pages ahead of a fast scroll can be loaded early with {@link #prefetch(int, int)}
+ *     (see {@link ScrollPrefetcher}) : they are kept outside of the window until
+ *     {@link #cancelPrefetch()}, or until another range is prefetched.
+ * </p>
+ * <p>
+ *     Must only be used from the main thread. Structural modification is not
+ *     supported.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public class PagedDataList extends AbstractList<DataObject> {
+
+    /** Default number of rows in a page **/
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    /** Default maximum number of pages in memory **/
+    public static final int DEFAULT_MAX_PAGES = 5;
+
+    /** Callback notified on the main thread whenever a page is loaded **/
+    public interface OnPageLoadedListener {
+        void onPageLoaded(int startPosition, int itemCount);
+    }
+
+    /** Source of rows **/
+    private final PagedDataSource mPagedDataSource;
+
+    /** Number of rows in a page **/
+    private final int mPageSize;
+
+    /** Pages kept on either side of the page in use **/
+    private final int mWindowRadius;
+
+    /** Total number of rows **/
+    private final int mCount;
+
+    /** Mapping used to prepare bind models along with pages **/
+    private final LetterColorMapping mLetterColorMapping;
+
+    /** Loaded pages, keyed by page index **/
+    private final SparseArray<DataObject[]> mPages = new SparseArray<>();
+
+    /** Pages being loaded, keyed by page index **/
+    private final SparseArray<Future<?>> mLoadingPages = new SparseArray<>();
+
+    /** Page index the window is currently centered on **/
+    private int mCenterPage = -1;
+
+    /** Range of pages prefetched, kept even outside of the window, empty if last is below first **/
+    private int mPrefetchFirstPage = 0;
+    private int mPrefetchLastPage = -1;
+
+    /** Notified whenever a page is loaded **/
+    private OnPageLoadedListener mOnPageLoadedListener;
+
+    /**
+     * Constructor for this class.
+     *
+     * @param pagedDataSource source of rows.
+     * @param pageSize number of rows in a page.
+     * @param maxPages maximum number of pages in memory, at least 3.
+     * @param letterColorMapping mapping used to prepare bind models.
+     */
+    public PagedDataList(PagedDataSource pagedDataSource, int pageSize, int maxPages, LetterColorMapping letterColorMapping) {
+        if (pageSize <= 0 || maxPages < 3) {
+            throw new IllegalArgumentException("Invalid page size " + pageSize + " or max pages " + maxPages);
+        }
+        mPagedDataSource = pagedDataSource;
+        mPageSize = pageSize;
+        mWindowRadius = (maxPages - 1) / 2;
+        mCount = pagedDataSource.getCount();
+        mLetterColorMapping = letterColorMapping;
+    }
+
+    /**
+     * Setter function for page loaded callback.
+     *
+     * @param onPageLoadedListener notified whenever a page is loaded.
+     */
+    public void setOnPageLoadedListener(OnPageLoadedListener onPageLoadedListener) {
+        mOnPageLoadedListener = onPageLoadedListener;
+    }
+
+    /**
+     * Fetch a row, moving the window of pages to it.
+     *
+     * @param position position of the row.
+     * @return the row, or null if its page is not loaded yet.
+     */
+    @Override
+    public DataObject get(int position) {
+        if (position < 0 || position >= mCount) {
+            throw new IndexOutOfBoundsException("Position " + position + ", size " + mCount);
+        }
+        int pageIndex = position / mPageSize;
+        moveWindowTo(pageIndex);
+        DataObject[] page = mPages.get(pageIndex);
+        if (page == null) {
+
+            /** Page of the center which failed to load, or was not loaded yet : load it again **/
+            loadPage(pageIndex);
+            return null;
+        }
+        return page[position - pageIndex * mPageSize];
+    }
+
+    /**
+     * Fetch a row without moving the window of pages.
+     *
+     * @param position position of the row.
+     * @return the row, or null if its page is not loaded.
+     */
+    public DataObject peek(int position) {
+        int pageIndex = position / mPageSize;
+        DataObject[] page = mPages.get(pageIndex);
+        return (page == null) ? null : page[position - pageIndex * mPageSize];
+    }
+
+    @Override
+    public int size() {
+        return mCount;
+    }
+
+    /**
+     * @return number of rows in a page.
+     */
+    public int getPageSize() {
+        return mPageSize;
+    }
+
+    /**
+     * Loads pages of a range of rows ahead of time, e.g. ahead of a fling. Pages of
+     * the range are kept until another range is prefetched or prefetching is cancelled,
+     * even if the window does not reach them yet : callers bound the range to their
+     * memory budget. Pages of the previous range out of the window are dropped.
+     *
+     * @param fromPosition position of the first row to prefetch.
+     * @param toPosition position of the last row to prefetch, at least fromPosition.
+     */
+    public void prefetch(int fromPosition, int toPosition) {
+        fromPosition = Math.max(0, fromPosition);
+        toPosition = Math.min(mCount - 1, toPosition);
+        if (fromPosition > toPosition) {
+            return;
+        }
+        int firstPage = fromPosition / mPageSize;
+        int lastPage = toPosition / mPageSize;
+        if (firstPage != mPrefetchFirstPage || lastPage != mPrefetchLastPage) {
+            mPrefetchFirstPage = firstPage;
+            mPrefetchLastPage = lastPage;
+            dropPagesOutOfWindow();
+        }
+        for (int pageIndex = firstPage; pageIndex <= lastPage; pageIndex++) {
+            loadPage(pageIndex);
+        }
+    }
+
+    /**
+     * Forget the range of pages prefetched, cancelling loads of its pages out of the
+     * window, e.g. when scroll direction reverses.
+     */
+    public void cancelPrefetch() {
+        mPrefetchFirstPage = 0;
+        mPrefetchLastPage = -1;
+        dropPagesOutOfWindow();
+    }
+
+    /**
+     * Centers the window on a page : loads it and its direct neighbours,
+     * and drops pages which fell out of the window.
+     *
+     * @param pageIndex page index to center on.
+     */
+    private void moveWindowTo(int pageIndex) {
+
+        /** Fast path, nothing changes while rows of the same page are requested **/
+        if (pageIndex == mCenterPage) {
+            return;
+        }
+        mCenterPage = pageIndex;
+        dropPagesOutOfWindow();
+
+        /** Requested page first, then its neighbours in both directions **/
+        loadPage(pageIndex);
+        loadPage(pageIndex + 1);
+        loadPage(pageIndex - 1);
+    }
+
+    /**
+     * Drops loaded and loading pages out of window, except prefetched ones.
+     */
+    private void dropPagesOutOfWindow() {
+        for (int i = mPages.size() - 1; i >= 0; i--) {
+            if (!isKept(mPages.keyAt(i))) {
+                mPages.removeAt(i);
+            }
+        }
+        for (int i = mLoadingPages.size() - 1; i >= 0; i--) {
+            if (!isKept(mLoadingPages.keyAt(i))) {
+                mLoadingPages.valueAt(i).cancel(true);
+                mLoadingPages.removeAt(i);
+            }
+        }
+    }
+
+    /**
+     * @return whether a page is within the window, or prefetched.
+     */
+    private boolean isKept(int pageIndex) {
+        return Math.abs(pageIndex - mCenterPage) <= mWindowRadius
+                || (pageIndex >= mPrefetchFirstPage && pageIndex <= mPrefetchLastPage);
+    }
+
+    /**
+     * Loads a page on a background thread, unless it is loaded or being loaded.
+     *
+     * @param pageIndex page index to load.
+     */
+    private void loadPage(int pageIndex) {
+        int startPosition = pageIndex * mPageSize;
+        if (pageIndex < 0 || startPosition >= mCount
+                || mPages.get(pageIndex) != null || mLoadingPages.get(pageIndex) != null) {
+            return;
+        }
+        PageLoad pageLoad = new PageLoad(pageIndex, startPosition, Math.min(mPageSize, mCount - startPosition));
+        pageLoad.mFuture = ListExecutors.background().submit(pageLoad);
+        mLoadingPages.put(pageIndex, pageLoad.mFuture);
+    }
+
+    /**
+     * Forgets a page which failed to load, on the main thread, so that it is loaded
+     * again the next time one of its rows is requested. Its rows stay placeholders
+     * meanwhile.
+     *
+     * @param pageLoad load which failed.
+     */
+    private void onPageFailed(PageLoad pageLoad) {
+
+        /** Only forget this load, not a newer one of the same page **/
+        if (mLoadingPages.get(pageLoad.mPageIndex) == pageLoad.mFuture) {
+            mLoadingPages.remove(pageLoad.mPageIndex);
+        }
+    }
+
+    /**
+     * Publishes a loaded page, on the main thread.
+     *
+     * @param pageLoad load which completed.
+     * @param page rows of the loaded page.
+     */
+    private void onPageLoaded(PageLoad pageLoad, DataObject[] page) {
+
+        /** Page was dropped out of window meanwhile, and maybe requested again **/
+        int pageIndex = pageLoad.mPageIndex;
+        if (mLoadingPages.get(pageIndex) != pageLoad.mFuture) {
+            return;
+        }
+        mLoadingPages.remove(pageIndex);
+        mPages.put(pageIndex, page);
+        if (mOnPageLoadedListener != null) {
+            mOnPageLoadedListener.onPageLoaded(pageIndex * mPageSize, page.length);
+        }
+    }
+
+    /**
+     * Loading of a page on a background thread.
+     */
+    private class PageLoad implements Runnable {
+
+        final int mPageIndex;
+
+        final int mStartPosition;
+
+        final int mLoadSize;
+
+        /** Set on the main thread once submitted, identifies this load in {@link #mLoadingPages} **/
+        Future<?> mFuture;
+
+        PageLoad(int pageIndex, int startPosition, int loadSize) {
+            mPageIndex = pageIndex;
+            mStartPosition = startPosition;
+            mLoadSize = loadSize;
+        }
+
+        @Override
+        public void run() {
+            List<DataObject> rows;
+            try {
+                rows = mPagedDataSource.loadRange(mStartPosition, mLoadSize);
+            } catch (RuntimeException e) {
+                Log.e("Paged data list : ", "Cannot load page " + mPageIndex, e);
+                ListExecutors.mainThread().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        onPageFailed(PageLoad.this);
+                    }
+                });
+                return;
+            }
+            final DataObject[] page = rows.toArray(new DataObject[mLoadSize]);
+            TileBindModel.projectAll(page, mLetterColorMapping);
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            ListExecutors.mainThread().execute(new Runnable() {
+                @Override
+                public void run() {
+                    onPageLoaded(PageLoad.this, page);
+                }
+            });
+        }
+    }
+}
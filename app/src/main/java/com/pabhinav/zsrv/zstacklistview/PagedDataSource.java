@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import java.util.List;
+
+/**
+ * Source of list rows, loaded a page at a time.
+ * <p>
+ *     Plug an implementation into {@link MyRecyclerViewAdapter} (through
+ *     {@link PagedDataList}) to show lists far larger than what should be
+ *     kept in memory at once.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public interface PagedDataSource {
+
+    /**
+     * Total number of rows. Called on the main thread, so it has to be cheap.
+     *
+     * @return number of rows in this source.
+     */
+    int getCount();
+
+    /**
+     * Loads a range of rows. Always called on a background thread.
+     *
+     * @param startPosition position of the first row to load.
+     * @param loadSize number of rows to load, never past {@link #getCount()}.
+     * @return loaded rows, exactly loadSize of them.
+     */
+    List<DataObject> loadRange(int startPosition, int loadSize);
+}
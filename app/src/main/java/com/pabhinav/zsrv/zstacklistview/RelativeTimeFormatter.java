@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Formats time passed since an epoch timestamp ("Now", "5min ago", "yesterday", ...).
+ * <p>
+ *     Ages are split into a fixed set of time buckets (one per minute in the first hour,
+ *     one per hour in the first day, then yesterday, days, months and years), each with
+ *     its label formatted once, up front. Formatting is then a binary search over bucket
+ *     start ages, with no allocation, and two timestamps in the same bucket share the
+ *     same {@link String} instance.
+ * </p>
+ * <p>
+ *     Buckets also tell when a label goes stale : see {@link #nextChangeMillis(long, long)},
+ *     used by {@link TimePassedTicker} to re-render only rows whose bucket changed.
+ *     Immutable and thread safe, this class has no Android dependency.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public final class RelativeTimeFormatter {
+
+    /** Timestamp of rows with no time, formatted as an empty label **/
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    /** Bucket of {@link #NO_TIME} **/
+    public static final int NO_BUCKET = -1;
+
+    /** Durations, in milliseconds **/
+    private static final long MINUTE = 60 * 1000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+    private static final long MONTH = 30 * DAY;
+    private static final long YEAR = 365 * DAY;
+
+    /** Shared instance **/
+    private static final RelativeTimeFormatter sDefault = new RelativeTimeFormatter();
+
+    /** Age at which each bucket starts, ascending **/
+    private final long[] mBucketStartAges;
+
+    /** Label of each bucket **/
+    private final String[] mBucketLabels;
+
+    /**
+     * @return shared formatter.
+     */
+    public static RelativeTimeFormatter getDefault() {
+        return sDefault;
+    }
+
+    private RelativeTimeFormatter() {
+        List<Long> startAges = new ArrayList<>();
+        List<String> labels = new ArrayList<>();
+
+        add(startAges, labels, 0, "Now");
+        for (int minutes = 1; minutes < 60; minutes++) {
+            add(startAges, labels, minutes * MINUTE, minutes + "min ago");
+        }
+        for (int hours = 1; hours < 24; hours++) {
+            add(startAges, labels, hours * HOUR, hours + "hr ago");
+        }
+        add(startAges, labels, DAY, "yesterday");
+        for (int days = 2; days < 30; days++) {
+            add(startAges, labels, days * DAY, days + "days ago");
+        }
+        /** 12 months of 30 days are short of a year, the last days of it are still 11 months **/
+        for (int months = 1; months < 12; months++) {
+            add(startAges, labels, months * MONTH, months + "month ago");
+        }
+        for (int years = 1; years < 10; years++) {
+            add(startAges, labels, years * YEAR, years + "year ago");
+        }
+        add(startAges, labels, 10 * YEAR, "long time ago");
+
+        mBucketStartAges = new long[startAges.size()];
+        for (int i = 0; i < mBucketStartAges.length; i++) {
+            mBucketStartAges[i] = startAges.get(i);
+        }
+        mBucketLabels = labels.toArray(new String[labels.size()]);
+    }
+
+    private static void add(List<Long> startAges, List<String> labels, long startAge, String label) {
+        startAges.add(startAge);
+        labels.add(label);
+    }
+
+    /**
+     * Bucket of the time passed since a timestamp. Timestamps in the future are "Now".
+     *
+     * @param timeMillis epoch timestamp, or {@link #NO_TIME}.
+     * @param nowMillis current epoch time.
+     * @return bucket, or {@link #NO_BUCKET}.
+     */
+    public int bucketOf(long timeMillis, long nowMillis) {
+        if (timeMillis == NO_TIME) {
+            return NO_BUCKET;
+        }
+        long age = Math.max(0, nowMillis - timeMillis);
+        int index = Arrays.binarySearch(mBucketStartAges, age);
+
+        /** Not a bucket start : insertion point is the next bucket **/
+        return (index >= 0) ? index : -index - 2;
+    }
+
+    /**
+     * @param bucket bucket returned by {@link #bucketOf(long, long)}.
+     * @return label of the bucket, empty for {@link #NO_BUCKET}.
+     */
+    public String label(int bucket) {
+        return (bucket == NO_BUCKET) ? "" : mBucketLabels[bucket];
+    }
+
+    /**
+     * Label of the time passed since a timestamp.
+     *
+     * @param timeMillis epoch timestamp, or {@link #NO_TIME}.
+     * @param nowMillis current epoch time.
+     * @return cached label.
+     */
+    public String format(long timeMillis, long nowMillis) {
+        return label(bucketOf(timeMillis, nowMillis));
+    }
+
+    /**
+     * Time at which the label of a timestamp changes next.
+     *
+     * @param timeMillis epoch timestamp, or {@link #NO_TIME}.
+     * @param nowMillis current epoch time.
+     * @return epoch time of the next bucket change, or {@link Long#MAX_VALUE} if the label never changes.
+     */
+    public long nextChangeMillis(long timeMillis, long nowMillis) {
+        int bucket = bucketOf(timeMillis, nowMillis);
+        if (bucket == NO_BUCKET || bucket == mBucketStartAges.length - 1) {
+            return Long.MAX_VALUE;
+        }
+
+        /** Also right for timestamps in the future, which stay "Now" until they are a minute old **/
+        return timeMillis + mBucketStartAges[bucket + 1];
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Batch of row changes keyed by id, merged into a list in a single pass.
+ * <p>
+ *     Changes to the same id coalesce, the last one wins : a row put then removed
+ *     is removed, a row removed then put is put. Putting a row replaces the row
+ *     with the same id, or inserts it if there is none. A row put with unchanged
+ *     content (see {@link DataObject#hasSameContent(DataObject)}) leaves the list as is.
+ * </p>
+ * <p>
+ *     {@link #applyTo(List, Comparator)} walks the list once, replacing and removing
+ *     matched rows and merging inserted rows at their place in a given order (or
+ *     appending them, in the order they were put). The resulting {@link Result} holds
+ *     the new list, and replays coalesced range updates, like {@link ListDiffer.DiffResult}.
+ * </p>
+ * <p>
+ *     Not thread safe, see {@link RowIngestor} for producers on several threads.
+ *     This class has no Android dependency.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public class RowChangeBatch {
+
+    /**
+     * Callback receiving updates of a {@link Result}.
+     */
+    public interface Callback {
+
+        /** Rows inserted at a position **/
+        void onInserted(int position, List<DataObject> rows);
+
+        /** Rows removed at a position **/
+        void onRemoved(int position, List<DataObject> rows);
+
+        /** Row at a position replaced with a newer version of it **/
+        void onReplaced(int position, DataObject oldRow, DataObject newRow);
+    }
+
+    /** Update types, as stored in {@link Result} **/
+    private static final int TYPE_INSERT = 0;
+    private static final int TYPE_REMOVE = 1;
+    private static final int TYPE_REPLACE = 2;
+
+    /** Rows put, by id, in the order they were first put **/
+    private final Map<Long, DataObject> mPuts = new LinkedHashMap<>();
+
+    /** Ids of rows removed **/
+    private final Set<Long> mRemovals = new HashSet<>();
+
+    /**
+     * Insert a row, or replace the row with the same id.
+     *
+     * @param row row to put.
+     */
+    public void put(DataObject row) {
+        mRemovals.remove(row.getId());
+        mPuts.put(row.getId(), row);
+    }
+
+    /**
+     * Remove the row with an id, if any.
+     *
+     * @param id id of the row to remove.
+     */
+    public void remove(long id) {
+        mPuts.remove(id);
+        mRemovals.add(id);
+    }
+
+    /**
+     * @return whether there is no change.
+     */
+    public boolean isEmpty() {
+        return mPuts.isEmpty() && mRemovals.isEmpty();
+    }
+
+    /**
+     * @return number of changes, after coalescing.
+     */
+    public int size() {
+        return mPuts.size() + mRemovals.size();
+    }
+
+    /**
+     * Merge changes into a list, which is not modified. Null rows (placeholders) are kept.
+     *
+     * @param rows rows currently shown, sorted with order if given.
+     * @param order order in which inserted rows are merged, null to append them. A
+     *              replaced row which does not compare equal to its older version is
+     *              moved, i.e. removed then inserted.
+     * @return new list and its updates.
+     */
+    public Result applyTo(List<DataObject> rows, Comparator<DataObject> order) {
+
+        /** Rows put which are not in the list yet, or moved, are inserted **/
+        Set<Long> presentIds = new HashSet<>();
+        List<DataObject> inserts = new ArrayList<>();
+        for (int i = 0, size = rows.size(); i < size; i++) {
+            DataObject row = rows.get(i);
+            DataObject put = (row == null) ? null : mPuts.get(row.getId());
+            if (put != null) {
+                presentIds.add(row.getId());
+                if (isMoved(row, put, order)) {
+                    inserts.add(put);
+                }
+            }
+        }
+        for (DataObject put : mPuts.values()) {
+            if (!presentIds.contains(put.getId())) {
+                inserts.add(put);
+            }
+        }
+        if (order != null) {
+            Collections.sort(inserts, order);
+        }
+
+        /** Merge, each update position being valid at the time it is replayed **/
+        Builder builder = new Builder(rows.size() + inserts.size());
+        int insertIndex = 0;
+        for (int i = 0, size = rows.size(); i < size; i++) {
+            DataObject row = rows.get(i);
+            if (row == null) {
+                builder.keep(null);
+                continue;
+            }
+            while (order != null && insertIndex < inserts.size() && order.compare(inserts.get(insertIndex), row) < 0) {
+                builder.insert(inserts.get(insertIndex++));
+            }
+            DataObject put = mPuts.get(row.getId());
+            if (mRemovals.contains(row.getId()) || (put != null && isMoved(row, put, order))) {
+                builder.remove(row);
+            } else if (put != null && !put.hasSameContent(row)) {
+                builder.replace(row, put);
+            } else {
+                builder.keep(row);
+            }
+        }
+        while (insertIndex < inserts.size()) {
+            builder.insert(inserts.get(insertIndex++));
+        }
+        return builder.build();
+    }
+
+    private static boolean isMoved(DataObject oldRow, DataObject newRow, Comparator<DataObject> order) {
+        return order != null && order.compare(oldRow, newRow) != 0;
+    }
+
+    /**
+     * Builds a {@link Result}, coalescing consecutive insertions and removals into ranges.
+     */
+    private static class Builder {
+
+        private final ArrayList<DataObject> mRows;
+        private final List<Update> mUpdates = new ArrayList<>();
+
+        /** Pending range of insertions or removals, type is -1 if none **/
+        private int mRunType = -1;
+        private int mRunPosition;
+        private List<DataObject> mRunRows;
+
+        Builder(int capacity) {
+            mRows = new ArrayList<>(capacity);
+        }
+
+        void keep(DataObject row) {
+            flushRun();
+            mRows.add(row);
+        }
+
+        void replace(DataObject oldRow, DataObject newRow) {
+            flushRun();
+            mRows.add(newRow);
+            mUpdates.add(new Update(TYPE_REPLACE, mRows.size() - 1, Collections.singletonList(oldRow), newRow));
+        }
+
+        void insert(DataObject row) {
+            startRun(TYPE_INSERT);
+            mRows.add(row);
+            mRunRows.add(row);
+        }
+
+        void remove(DataObject row) {
+            startRun(TYPE_REMOVE);
+            mRunRows.add(row);
+        }
+
+        private void startRun(int type) {
+            if (mRunType != type) {
+                flushRun();
+                mRunType = type;
+                mRunPosition = mRows.size();
+                mRunRows = new ArrayList<>();
+            }
+        }
+
+        private void flushRun() {
+            if (mRunType != -1) {
+                mUpdates.add(new Update(mRunType, mRunPosition, mRunRows, null));
+                mRunType = -1;
+                mRunRows = null;
+            }
+        }
+
+        Result build() {
+            flushRun();
+            return new Result(mRows, mUpdates);
+        }
+    }
+
+    /**
+     * A range update : rows inserted or removed, or a row replaced by a new one.
+     */
+    private static final class Update {
+
+        final int type;
+        final int position;
+        final List<DataObject> rows;
+        final DataObject newRow;
+
+        Update(int type, int position, List<DataObject> rows, DataObject newRow) {
+            this.type = type;
+            this.position = position;
+            this.rows = rows;
+            this.newRow = newRow;
+        }
+    }
+
+    /**
+     * List with changes merged in, and the updates leading to it.
+     */
+    public static class Result {
+
+        private final ArrayList<DataObject> mRows;
+        private final List<Update> mUpdates;
+
+        private Result(ArrayList<DataObject> rows, List<Update> updates) {
+            mRows = rows;
+            mUpdates = updates;
+        }
+
+        /**
+         * @return new list, with changes merged in.
+         */
+        public ArrayList<DataObject> getRows() {
+            return mRows;
+        }
+
+        /**
+         * @return number of updates, after coalescing.
+         */
+        public int getUpdateCount() {
+            return mUpdates.size();
+        }
+
+        /**
+         * Replays updates, each position being valid at the time it is dispatched.
+         *
+         * @param callback receiver of updates.
+         */
+        public void dispatchUpdatesTo(Callback callback) {
+            for (int i = 0; i < mUpdates.size(); i++) {
+                Update update = mUpdates.get(i);
+                switch (update.type) {
+                    case TYPE_INSERT:
+                        callback.onInserted(update.position, update.rows);
+                        break;
+                    case TYPE_REMOVE:
+                        callback.onRemoved(update.position, update.rows);
+                        break;
+                    default:
+                        callback.onReplaced(update.position, update.rows.get(0), update.newRow);
+                        break;
+                }
+            }
+        }
+    }
+}
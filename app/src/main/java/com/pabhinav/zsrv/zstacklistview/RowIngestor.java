@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Thread safe front end for live row changes from background producers (feeds).
+ * <p>
+ *     Producers put or remove rows from any thread : changes go to a lock free
+ *     queue, and the first change after a drain schedules the next one. Once per
+ *     frame (with {@link Choreographer} on api level 16 and above), the main thread
+ *     drains the queue, coalesces changes by id into a {@link RowChangeBatch}, and
+ *     applies it with {@link MyRecyclerViewAdapter#applyChanges(RowChangeBatch, Comparator)}.
+ *     However many changes arrive in a burst, the main thread does a single pass over
+ *     the data set and a single layout per frame.
+ * </p>
+ * <p>
+ *     Changes are only queued until {@link #start()} is called, once the initial rows
+ *     are in the adapter : changes applied to skeleton tiles would be lost when those
+ *     rows are submitted.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public class RowIngestor {
+
+    /** Adapter changes are applied to **/
+    private final MyRecyclerViewAdapter mAdapter;
+
+    /** Order of the data set, in which inserted rows are merged, null to append them **/
+    private final Comparator<DataObject> mOrder;
+
+    /** Changes waiting for the next drain **/
+    private final ConcurrentLinkedQueue<Change> mChanges = new ConcurrentLinkedQueue<>();
+
+    /** Whether a drain is scheduled, set by the producer enqueuing the first change after a drain **/
+    private final AtomicBoolean mDrainScheduled = new AtomicBoolean();
+
+    /** Main thread handler, frame callbacks can only be posted from there **/
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    /** Whether changes are applied, see {@link #start()}, touched on the main thread only **/
+    private boolean mStarted;
+
+    /** Whether changes are discarded, see {@link #release()} **/
+    private volatile boolean mReleased;
+
+    /** Drains changes on the main thread **/
+    private final Runnable mDrainRunnable = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    /** Schedules a drain on next frame, on the main thread **/
+    private final Runnable mScheduleDrainRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                FrameScheduler.postFrameCallback(mDrainRunnable);
+            } else {
+                drain();
+            }
+        }
+    };
+
+    /**
+     * Constructor for this class.
+     *
+     * @param adapter adapter changes are applied to.
+     * @param order order of the data set, in which inserted rows are merged (e.g.
+     *              {@link SectionIndex#SECTION_ORDER}), null to append them.
+     */
+    public RowIngestor(MyRecyclerViewAdapter adapter, Comparator<DataObject> order) {
+        mAdapter = adapter;
+        mOrder = order;
+    }
+
+    /**
+     * Insert a row, or replace the row with the same id. May be called from any thread.
+     *
+     * @param row row to put.
+     */
+    public void put(DataObject row) {
+        enqueue(new Change(row.getId(), row));
+    }
+
+    /**
+     * Remove the row with an id, if any. May be called from any thread.
+     *
+     * @param id id of the row to remove.
+     */
+    public void remove(long id) {
+        enqueue(new Change(id, null));
+    }
+
+    /**
+     * Start applying changes, queued ones first. To be called on the main thread
+     * once the initial rows are in the adapter.
+     */
+    public void start() {
+        mStarted = true;
+        if (!mChanges.isEmpty() && mDrainScheduled.compareAndSet(false, true)) {
+            mHandler.post(mScheduleDrainRunnable);
+        }
+    }
+
+    /**
+     * Discard pending and later changes, e.g. when the activity is destroyed.
+     */
+    public void release() {
+        mReleased = true;
+        mChanges.clear();
+        mHandler.removeCallbacks(mScheduleDrainRunnable);
+    }
+
+    private void enqueue(Change change) {
+        if (mReleased) {
+            return;
+        }
+        mChanges.offer(change);
+        if (mDrainScheduled.compareAndSet(false, true)) {
+            mHandler.post(mScheduleDrainRunnable);
+        }
+    }
+
+    /**
+     * Coalesces queued changes and applies them, on the main thread.
+     */
+    private void drain() {
+
+        /** Changes queued from now on schedule another drain, at worst an empty one **/
+        mDrainScheduled.set(false);
+
+        /** Changes stay queued until initial rows are in, see {@link #start()} **/
+        if (mReleased || !mStarted) {
+            return;
+        }
+        RowChangeBatch batch = new RowChangeBatch();
+        Change change;
+        while ((change = mChanges.poll()) != null) {
+            if (change.row != null) {
+                batch.put(change.row);
+            } else {
+                batch.remove(change.id);
+            }
+        }
+        mAdapter.applyChanges(batch, mOrder);
+    }
+
+    /**
+     * A queued change : a row put, or an id removed.
+     */
+    private static final class Change {
+
+        final long id;
+
+        /** Row put, null for a removal **/
+        final DataObject row;
+
+        Change(long id, DataObject row) {
+            this.id = id;
+            this.row = row;
+        }
+    }
+
+    /**
+     * Posts runnables to the next frame.
+     * Kept in its own class, so that {@link Choreographer} is never loaded below api level 16.
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static class FrameScheduler {
+
+        static void postFrameCallback(final Runnable runnable) {
+            Choreographer.getInstance().postFrameCallback(new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    runnable.run();
+                }
+            });
+        }
+    }
+}
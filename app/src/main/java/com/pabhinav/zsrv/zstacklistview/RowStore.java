@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+/**
+ * Random access storage of list rows, read field by field without a
+ * {@link DataObject} per row, e.g. {@link ColumnarDataStore} or {@link MappedDataFile}.
+ * <p>
+ *     {@link RowStoreList} exposes such a store to {@link MyRecyclerViewAdapter}.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public interface RowStore {
+
+    /**
+     * @return number of rows.
+     */
+    int size();
+
+    /**
+     * @param row index of the row.
+     * @return stable id of the row, see {@link DataObject#getId()}.
+     */
+    long getId(int row);
+
+    /**
+     * @param row index of the row.
+     * @return new materialized copy of the row.
+     */
+    DataObject toDataObject(int row);
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Read only {@link List} view over a {@link RowStore}.
+ * <p>
+ *     {@link DataObject}s are materialized on demand, when {@link MyRecyclerViewAdapter}
+ *     binds a row, and kept in a small direct mapped cache indexed by position : rows
+ *     around the visible range keep the same instance, along with its cached
+ *     {@link TileBindModel}, while the bulk of the rows stays in the store.
+ * </p>
+ * <p>
+ *     Rows appended to the store after this view was created are not part of it.
+ *     Rows may be read from any thread, e.g. to build a {@link NameSearchIndex} in
+ *     background. Structural modification is not supported.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public class RowStoreList extends AbstractList<DataObject> {
+
+    /** Number of materialized rows kept, a power of two above a few screens of tiles **/
+    private static final int CACHE_SIZE = 256;
+
+    /** Store holding the rows **/
+    private final RowStore mStore;
+
+    /** Number of rows in this view **/
+    private final int mSize;
+
+    /** Materialized rows, slot of a position is its lowest bits **/
+    private final CachedRow[] mCachedRows = new CachedRow[CACHE_SIZE];
+
+    /**
+     * Constructor for this class.
+     *
+     * @param store rows of this list.
+     */
+    public RowStoreList(RowStore store) {
+        mStore = store;
+        mSize = store.size();
+    }
+
+    /**
+     * @return store holding the rows, e.g. to read a single column without
+     *         materializing rows.
+     */
+    public RowStore getStore() {
+        return mStore;
+    }
+
+    @Override
+    public DataObject get(int position) {
+        if (position < 0 || position >= mSize) {
+            throw new IndexOutOfBoundsException("Position " + position + ", size " + mSize);
+        }
+        int slot = position & (CACHE_SIZE - 1);
+        CachedRow cachedRow = mCachedRows[slot];
+        if (cachedRow == null || cachedRow.position != position) {
+            cachedRow = new CachedRow(position, mStore.toDataObject(position));
+            mCachedRows[slot] = cachedRow;
+        }
+        return cachedRow.dataObject;
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Materialized row along with its position. Immutable, so that threads racing
+     * on a slot see either entry whole, at worst materializing a row twice.
+     */
+    private static final class CachedRow {
+
+        final int position;
+
+        final DataObject dataObject;
+
+        CachedRow(int position, DataObject dataObject) {
+            this.position = position;
+            this.dataObject = dataObject;
+        }
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.os.Build;
+import android.support.v7.widget.RecyclerView;
+import android.view.Choreographer;
+import android.view.WindowManager;
+
+/**
+ * Scroll performance metrics of the list, collected on the main thread.
+ * <p>
+ *     Two kinds of metrics are kept :
+ *
+ *          1) Latency of list hot paths ({@link #SECTION_CREATE}, {@link #SECTION_BIND},
+ *             {@link #SECTION_SCROLL} and {@link #SECTION_IMITATE}), each in its own
+ *             {@link LatencyHistogram}. Hot paths are wrapped as :
+ *
+ *                  long start = ScrollMetrics.begin();
+ *                  ...
+ *                  ScrollMetrics.end(ScrollMetrics.SECTION_BIND, start);
+ *
+ *          2) Frames drawn while the list scrolls or flings, using {@link Choreographer}
+ *             frame callbacks (api level 16 and above). A frame arriving later than one
+ *             refresh interval after the previous one is janky, and every refresh interval
+ *             missed in between counts as a dropped frame.
+ * </p>
+ * <p>
+ *     Disabled by default. When disabled, {@link #begin()} and {@link #end(int, long)}
+ *     only read a flag, and no frame callback is posted. Use {@link #snapshot()} and
+ *     {@link #reset()} to read metrics, or {@link #setListener(Listener)} to be handed
+ *     a snapshot every time the list stops scrolling.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public final class ScrollMetrics {
+
+    /** Hot paths measured **/
+    public static final int SECTION_CREATE = 0;
+    public static final int SECTION_BIND = 1;
+    public static final int SECTION_SCROLL = 2;
+    public static final int SECTION_IMITATE = 3;
+    public static final int SECTION_COUNT = 4;
+
+    /** Refresh interval assumed when display does not tell, 60 fps **/
+    private static final long DEFAULT_FRAME_INTERVAL_NANOS = 16666667L;
+
+    /**
+     * Receives metrics, e.g. to forward them to telemetry.
+     */
+    public interface Listener {
+
+        /**
+         * Called on the main thread when the list stops scrolling.
+         *
+         * @param snapshot metrics collected since the last {@link #reset()}.
+         */
+        void onScrollSettled(Snapshot snapshot);
+    }
+
+    /** Whether metrics are collected **/
+    private static volatile boolean sEnabled;
+
+    /** Latency histograms, one per section **/
+    private static final LatencyHistogram[] sHistograms = new LatencyHistogram[SECTION_COUNT];
+    static {
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            sHistograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /** Frame counters **/
+    private static long sFrameCount;
+    private static long sJankyFrameCount;
+    private static long sDroppedFrameCount;
+
+    /** Receiver of snapshots, may be null **/
+    private static Listener sListener;
+
+    private ScrollMetrics() {
+    }
+
+    /**
+     * Enable or disable collection. Call it from the main thread.
+     *
+     * @param enabled true to collect metrics.
+     */
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+    }
+
+    /**
+     * @return whether metrics are collected.
+     */
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * Set receiver of snapshots. It is held statically : it should not hold an
+     * activity, and should be cleared once its list goes away.
+     *
+     * @param listener listener, or null.
+     */
+    public static void setListener(Listener listener) {
+        sListener = listener;
+    }
+
+    /**
+     * Start measuring a hot path.
+     *
+     * @return start time to hand to {@link #end(int, long)}, 0 when disabled.
+     */
+    public static long begin() {
+        return sEnabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Finish measuring a hot path.
+     *
+     * @param section one of the SECTION constants.
+     * @param startNanos value returned by {@link #begin()}.
+     */
+    public static void end(int section, long startNanos) {
+        if (startNanos != 0 && sEnabled) {
+            sHistograms[section].recordValue(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Count frames of a list while it scrolls. Call it once per list.
+     *
+     * @param recyclerView list to track.
+     */
+    public static void track(RecyclerView recyclerView) {
+        final FrameTracker frameTracker = (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN)
+                ? new FrameTracker(frameIntervalNanos(recyclerView.getContext())) : null;
+
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+                boolean scrolling = newState != RecyclerView.SCROLL_STATE_IDLE;
+                if (frameTracker != null) {
+                    frameTracker.setTracking(scrolling && sEnabled);
+                }
+                if (!scrolling && sEnabled && sListener != null) {
+                    sListener.onScrollSettled(snapshot());
+                }
+            }
+        });
+    }
+
+    /**
+     * @return copy of metrics collected since the last {@link #reset()}.
+     */
+    public static Snapshot snapshot() {
+        LatencyHistogram[] histograms = new LatencyHistogram[SECTION_COUNT];
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            histograms[i] = sHistograms[i].copy();
+        }
+        return new Snapshot(sFrameCount, sJankyFrameCount, sDroppedFrameCount, histograms);
+    }
+
+    /**
+     * Forget all collected metrics.
+     */
+    public static void reset() {
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            sHistograms[i].reset();
+        }
+        sFrameCount = 0;
+        sJankyFrameCount = 0;
+        sDroppedFrameCount = 0;
+    }
+
+    /**
+     * Account a frame drawn while scrolling.
+     *
+     * @param frameIntervalNanos time since the previous frame.
+     * @param refreshIntervalNanos refresh interval of the display.
+     */
+    static void onFrame(long frameIntervalNanos, long refreshIntervalNanos) {
+        sFrameCount++;
+
+        /** Refresh intervals missed, rounded, so that vsync jitter is not counted **/
+        long dropped = (frameIntervalNanos + refreshIntervalNanos / 2) / refreshIntervalNanos - 1;
+        if (dropped > 0) {
+            sJankyFrameCount++;
+            sDroppedFrameCount += dropped;
+        }
+    }
+
+    private static long frameIntervalNanos(Context context) {
+        WindowManager windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        float refreshRate = (windowManager != null) ? windowManager.getDefaultDisplay().getRefreshRate() : 0;
+        return (refreshRate >= 1) ? (long) (1000000000L / refreshRate) : DEFAULT_FRAME_INTERVAL_NANOS;
+    }
+
+    /**
+     * Posts a {@link Choreographer} frame callback every frame while tracking.
+     * Kept in its own class, so that {@link Choreographer} is never loaded below api level 16.
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static class FrameTracker implements Choreographer.FrameCallback {
+
+        private final long mRefreshIntervalNanos;
+        private boolean mTracking;
+        private long mLastFrameTimeNanos;
+
+        FrameTracker(long refreshIntervalNanos) {
+            mRefreshIntervalNanos = refreshIntervalNanos;
+        }
+
+        void setTracking(boolean tracking) {
+            if (tracking == mTracking) {
+                return;
+            }
+            mTracking = tracking;
+            if (tracking) {
+                mLastFrameTimeNanos = 0;
+                Choreographer.getInstance().postFrameCallback(this);
+            } else {
+                Choreographer.getInstance().removeFrameCallback(this);
+            }
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!mTracking) {
+                return;
+            }
+            if (mLastFrameTimeNanos != 0 && sEnabled) {
+                onFrame(frameTimeNanos - mLastFrameTimeNanos, mRefreshIntervalNanos);
+            }
+            mLastFrameTimeNanos = frameTimeNanos;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    /**
+     * Immutable copy of collected metrics.
+     */
+    public static final class Snapshot {
+
+        private final long mFrameCount;
+        private final long mJankyFrameCount;
+        private final long mDroppedFrameCount;
+        private final LatencyHistogram[] mHistograms;
+
+        Snapshot(long frameCount, long jankyFrameCount, long droppedFrameCount, LatencyHistogram[] histograms) {
+            mFrameCount = frameCount;
+            mJankyFrameCount = jankyFrameCount;
+            mDroppedFrameCount = droppedFrameCount;
+            mHistograms = histograms;
+        }
+
+        /**
+         * @return frames drawn while scrolling.
+         */
+        public long getFrameCount() {
+            return mFrameCount;
+        }
+
+        /**
+         * @return frames drawn later than one refresh interval after the previous one.
+         */
+        public long getJankyFrameCount() {
+            return mJankyFrameCount;
+        }
+
+        /**
+         * @return refresh intervals missed while scrolling.
+         */
+        public long getDroppedFrameCount() {
+            return mDroppedFrameCount;
+        }
+
+        /**
+         * @param section one of the SECTION constants.
+         * @return latencies of the section, in nanoseconds. Do not modify it.
+         */
+        public LatencyHistogram getLatency(int section) {
+            return mHistograms[section];
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder("ScrollMetrics{frames=").append(mFrameCount)
+                    .append(", janky=").append(mJankyFrameCount)
+                    .append(", dropped=").append(mDroppedFrameCount);
+            String[] names = {"create", "bind", "scroll", "imitate"};
+            for (int i = 0; i < SECTION_COUNT; i++) {
+                builder.append(", ").append(names[i])
+                        .append("(n=").append(mHistograms[i].getTotalCount())
+                        .append(", p50=").append(mHistograms[i].getValueAtPercentile(50) / 1000).append("us")
+                        .append(", p99=").append(mHistograms[i].getValueAtPercentile(99) / 1000).append("us)");
+            }
+            return builder.append('}').toString();
+        }
+    }
+}
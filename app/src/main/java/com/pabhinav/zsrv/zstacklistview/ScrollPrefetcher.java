@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import android.os.SystemClock;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+/**
+ * Makes rows ready ahead of the scroll, so that rows scrolling in at fling speed
+ * do not pay their load and projection on the frame they appear.
+ * <p>
+ *     Scroll velocity and direction are estimated from scroll amounts (see
+ *     {@link ScrollVelocityTracker}). Rows which would scroll in within
+ *     {@link #LOOKAHEAD_MILLIS} at that velocity, past the last visible row in
+ *     scroll direction, are handed to {@link MyRecyclerViewAdapter#prefetch(int, int)},
+ *     which loads their pages or prepares their bind models in background. Rows are
+ *     requested again only once the range reaches past the rows last requested.
+ * </p>
+ * <p>
+ *     The number of rows ahead is capped by a memory budget. When scroll direction
+ *     reverses, preparation still running ahead of the old direction is cancelled.
+ *     Works with any layout manager, only children of the list are looked at.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public class ScrollPrefetcher extends RecyclerView.OnScrollListener {
+
+    /** Default memory budget of rows prefetched ahead of the scroll **/
+    public static final int DEFAULT_MEMORY_BUDGET_BYTES = 64 * 1024;
+
+    /** Rough footprint of a row with its texts and bind model **/
+    private static final int ESTIMATED_ROW_BYTES = 512;
+
+    /** How far ahead of the scroll rows are made ready, in scroll time **/
+    private static final long LOOKAHEAD_MILLIS = 500;
+
+    /** Rows made ready ahead of any scroll, however slow **/
+    private static final int MIN_ROWS_AHEAD = 4;
+
+    /** List whose rows are prefetched **/
+    private final RecyclerView mRecyclerView;
+
+    /** Adapter of the list, preparing rows **/
+    private final MyRecyclerViewAdapter mAdapter;
+
+    /** Height of a tile, in pixels **/
+    private final int mTileHeight;
+
+    /** Most rows ahead of the scroll, within memory budget **/
+    private final int mMaxRowsAhead;
+
+    /** Scroll velocity, measured while the list is scrolled by touch or flung **/
+    private final ScrollVelocityTracker mVelocityTracker = new ScrollVelocityTracker(ScrollVelocityTracker.DEFAULT_SAMPLE_MILLIS);
+
+    /** Current scroll state of the list **/
+    private int mScrollState = RecyclerView.SCROLL_STATE_IDLE;
+
+    /** Scroll direction rows were last prefetched for, 1 towards the end of the list, -1 towards its start, 0 if none **/
+    private int mDirection;
+
+    /** Farthest position requested in {@link #mDirection}, or {@link RecyclerView#NO_POSITION} **/
+    private int mRequestedPosition = RecyclerView.NO_POSITION;
+
+    /**
+     * Rows requested before a data set change are not the same rows anymore.
+     */
+    private final RecyclerView.AdapterDataObserver mDataSetObserver = new RecyclerView.AdapterDataObserver() {
+        @Override
+        public void onChanged() {
+            mRequestedPosition = RecyclerView.NO_POSITION;
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            mRequestedPosition = RecyclerView.NO_POSITION;
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            mRequestedPosition = RecyclerView.NO_POSITION;
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            mRequestedPosition = RecyclerView.NO_POSITION;
+        }
+    };
+
+    /**
+     * Constructor for this class. {@link MyRecyclerViewAdapter} has to be set on the
+     * {@link RecyclerView} before.
+     *
+     * @param recyclerView list whose rows are prefetched.
+     * @param memoryBudgetBytes memory budget of rows prefetched ahead of the scroll,
+     *                          e.g. {@link #DEFAULT_MEMORY_BUDGET_BYTES}.
+     */
+    public ScrollPrefetcher(RecyclerView recyclerView, int memoryBudgetBytes) {
+        mRecyclerView = recyclerView;
+        mAdapter = (MyRecyclerViewAdapter) recyclerView.getAdapter();
+        mTileHeight = recyclerView.getResources().getDimensionPixelSize(R.dimen.tile_height);
+        mMaxRowsAhead = Math.max(MIN_ROWS_AHEAD, memoryBudgetBytes / ESTIMATED_ROW_BYTES);
+        mAdapter.registerAdapterDataObserver(mDataSetObserver);
+    }
+
+    /**
+     * Stop observing the adapter, e.g. when the list goes away, and cancel preparation
+     * still running. The prefetcher is not to be used afterwards.
+     */
+    public void release() {
+        mAdapter.unregisterAdapterDataObserver(mDataSetObserver);
+        mAdapter.cancelPrefetch();
+    }
+
+    @Override
+    public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+        super.onScrollStateChanged(recyclerView, newState);
+        mScrollState = newState;
+
+        /** Rows prepared stay ready, next scroll is measured from scratch **/
+        if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+            mVelocityTracker.reset();
+        }
+    }
+
+    @Override
+    public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+        super.onScrolled(recyclerView, dx, dy);
+        if (mScrollState == RecyclerView.SCROLL_STATE_IDLE || dy == 0
+                || !mVelocityTracker.onScrolled(SystemClock.uptimeMillis(), dy)) {
+            return;
+        }
+        float velocity = mVelocityTracker.getVelocity();
+        int direction = (velocity > 0) ? 1 : (velocity < 0) ? -1 : 0;
+        if (direction == 0) {
+            return;
+        }
+
+        /** Rows ahead of the old direction are behind now **/
+        if (direction != mDirection) {
+            if (mDirection != 0) {
+                mAdapter.cancelPrefetch();
+            }
+            mDirection = direction;
+            mRequestedPosition = RecyclerView.NO_POSITION;
+        }
+        prefetchAhead(Math.abs(velocity));
+    }
+
+    /**
+     * Requests rows which would scroll in within {@link #LOOKAHEAD_MILLIS}, past the
+     * last visible row in scroll direction. The whole range is requested, so that a
+     * paged data set keeps all of its pages, rows already prepared are cheap to skip.
+     *
+     * @param speed scroll speed, in pixels per second.
+     */
+    private void prefetchAhead(float speed) {
+        int childCount = mRecyclerView.getChildCount();
+        int itemCount = mAdapter.getItemCount();
+        if (childCount == 0 || itemCount == 0) {
+            return;
+        }
+
+        /** Children are in layout order, the edge child is the last one scrolling in **/
+        View edgeChild = mRecyclerView.getChildAt((mDirection > 0) ? childCount - 1 : 0);
+        int edgePosition = mRecyclerView.getChildAdapterPosition(edgeChild);
+        if (edgePosition == RecyclerView.NO_POSITION) {
+            return;
+        }
+        int rowsAhead = (int) Math.ceil(speed * LOOKAHEAD_MILLIS / 1000f / mTileHeight);
+        rowsAhead = Math.min(mMaxRowsAhead, Math.max(MIN_ROWS_AHEAD, rowsAhead));
+
+        int from = edgePosition + mDirection;
+        int to = Math.max(0, Math.min(itemCount - 1, edgePosition + mDirection * rowsAhead));
+        if ((to - from) * mDirection < 0
+                || (mRequestedPosition != RecyclerView.NO_POSITION && (to - mRequestedPosition) * mDirection <= 0)) {
+            return;
+        }
+        mAdapter.prefetch(Math.min(from, to), Math.max(from, to));
+        mRequestedPosition = to;
+    }
+}
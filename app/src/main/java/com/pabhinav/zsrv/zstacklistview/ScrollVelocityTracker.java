@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+/**
+ * Estimates scroll velocity from the scroll amounts a list reports, e.g. in
+ * {@link android.support.v7.widget.RecyclerView.OnScrollListener#onScrolled}.
+ * <p>
+ *     Scroll amounts are accumulated over samples lasting at least a given time
+ *     (about a frame), so that several callbacks within the same millisecond do
+ *     not make up a huge velocity. The first amount after a {@link #reset()} only
+ *     starts a sample, since the time it was accumulated over is unknown.
+ * </p>
+ * <p>
+ *     Times are given by the caller (e.g. {@link android.os.SystemClock#uptimeMillis()}),
+ *     so this class has no Android dependency. Not thread safe.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public class ScrollVelocityTracker {
+
+    /** Default shortest sample duration, about a frame **/
+    public static final long DEFAULT_SAMPLE_MILLIS = 16;
+
+    /** Shortest sample duration **/
+    private final long mSampleMillis;
+
+    /** Whether a sample is started **/
+    private boolean mSampling;
+
+    /** Start time of the current sample, and pixels scrolled since **/
+    private long mSampleStartTime;
+    private int mSampleDy;
+
+    /** Velocity measured over the last complete sample **/
+    private float mVelocity;
+
+    /**
+     * Constructor for this class.
+     *
+     * @param sampleMillis shortest sample duration, in milliseconds.
+     */
+    public ScrollVelocityTracker(long sampleMillis) {
+        if (sampleMillis <= 0) {
+            throw new IllegalArgumentException("Invalid sample duration " + sampleMillis);
+        }
+        mSampleMillis = sampleMillis;
+    }
+
+    /**
+     * Add a scroll amount.
+     *
+     * @param timeMillis time of the scroll.
+     * @param dy scrolled pixels, positive towards the end of the list.
+     * @return whether a sample was completed, and {@link #getVelocity()} updated.
+     */
+    public boolean onScrolled(long timeMillis, int dy) {
+        if (!mSampling) {
+            mSampling = true;
+            mSampleStartTime = timeMillis;
+            mSampleDy = 0;
+            return false;
+        }
+        mSampleDy += dy;
+        long elapsed = timeMillis - mSampleStartTime;
+        if (elapsed < mSampleMillis) {
+            return false;
+        }
+        mVelocity = mSampleDy * 1000f / elapsed;
+        mSampleStartTime = timeMillis;
+        mSampleDy = 0;
+        return true;
+    }
+
+    /**
+     * @return velocity over the last complete sample, in pixels per second,
+     *         positive towards the end of the list, 0 if none.
+     */
+    public float getVelocity() {
+        return mVelocity;
+    }
+
+    /**
+     * Forget samples, e.g. once the list settles.
+     */
+    public void reset() {
+        mSampling = false;
+        mSampleDy = 0;
+        mVelocity = 0;
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Alphabet sections of a list sorted by name, e.g. for a fast scroller.
+ * <p>
+ *     A section per initial from 'A' to 'Z', using the same initial as the name plate
+ *     (see {@link LetterColorMapping#namePlateCodePoint(CharSequence)}), preceded by
+ *     a "#" section for every other initial. Only the number of rows of each section
+ *     is kept, along with its start position : jumping to a section is a single array
+ *     read, and an insertion or deletion updates a few dozen ints, whatever the size
+ *     of the list.
+ * </p>
+ * <p>
+ *     Start positions are right as long as the list is sorted with {@link #SECTION_ORDER}.
+ *     Not thread safe, this class has no Android dependency.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public final class SectionIndex {
+
+    /** Section of names not starting with a latin letter **/
+    public static final int OTHER_SECTION = 0;
+
+    /** Number of sections, "#" then 'A' to 'Z' **/
+    public static final int SECTION_COUNT = LetterColorMapping.LETTER_COUNT + 1;
+
+    /** Label of each section **/
+    private static final String[] SECTION_LABELS = new String[SECTION_COUNT];
+
+    static {
+        SECTION_LABELS[OTHER_SECTION] = "#";
+        for (int i = 1; i < SECTION_COUNT; i++) {
+            SECTION_LABELS[i] = String.valueOf((char) ('A' + i - 1));
+        }
+    }
+
+    /**
+     * Order of rows for which sections are contiguous : by section, then by name
+     * ignoring case. Rows not loaded yet (null) come last.
+     */
+    public static final Comparator<DataObject> SECTION_ORDER = new Comparator<DataObject>() {
+        @Override
+        public int compare(DataObject lhs, DataObject rhs) {
+            if (lhs == null || rhs == null) {
+                return (lhs == null) ? ((rhs == null) ? 0 : 1) : -1;
+            }
+            int difference = sectionOf(lhs) - sectionOf(rhs);
+            if (difference != 0) {
+                return difference;
+            }
+            String lhsName = (lhs.getName() == null) ? "" : lhs.getName();
+            String rhsName = (rhs.getName() == null) ? "" : rhs.getName();
+            return String.CASE_INSENSITIVE_ORDER.compare(lhsName, rhsName);
+        }
+    };
+
+    /** Number of rows in each section **/
+    private final int[] mCounts = new int[SECTION_COUNT];
+
+    /** Start position of each section, plus the total number of rows **/
+    private final int[] mStarts = new int[SECTION_COUNT + 1];
+
+    /**
+     * Counts rows of each section.
+     *
+     * @param rows rows sorted with {@link #SECTION_ORDER}.
+     * @return new index.
+     */
+    public static SectionIndex build(List<DataObject> rows) {
+        SectionIndex sectionIndex = new SectionIndex();
+        for (int i = 0, size = rows.size(); i < size; i++) {
+            sectionIndex.mCounts[sectionOf(rows.get(i))]++;
+        }
+        sectionIndex.updateStarts();
+        return sectionIndex;
+    }
+
+    /**
+     * @param dataObject row, null if not loaded yet.
+     * @return section of the row.
+     */
+    public static int sectionOf(DataObject dataObject) {
+        int codePoint = (dataObject == null) ? LetterColorMapping.NO_INITIAL
+                : LetterColorMapping.namePlateCodePoint(dataObject.getName());
+        return (codePoint >= 'A' && codePoint <= 'Z') ? codePoint - 'A' + 1 : OTHER_SECTION;
+    }
+
+    /**
+     * @param section section, in [0, {@link #SECTION_COUNT}).
+     * @return label of the section, "#" or a letter.
+     */
+    public static String getSectionLabel(int section) {
+        return SECTION_LABELS[section];
+    }
+
+    /**
+     * Accounts for a row inserted at its sorted position.
+     *
+     * @param dataObject inserted row.
+     */
+    public void onInserted(DataObject dataObject) {
+        mCounts[sectionOf(dataObject)]++;
+        updateStarts();
+    }
+
+    /**
+     * Accounts for a removed row.
+     *
+     * @param dataObject removed row.
+     */
+    public void onRemoved(DataObject dataObject) {
+        int section = sectionOf(dataObject);
+        if (mCounts[section] > 0) {
+            mCounts[section]--;
+            updateStarts();
+        }
+    }
+
+    /**
+     * @param section section, in [0, {@link #SECTION_COUNT}).
+     * @return position of the first row of the section. For an empty section, it is
+     *         the start of the next section, and the number of rows after the last one.
+     */
+    public int getPositionForSection(int section) {
+        return mStarts[section];
+    }
+
+    /**
+     * @param section section, in [0, {@link #SECTION_COUNT}).
+     * @return number of rows in the section.
+     */
+    public int getCount(int section) {
+        return mCounts[section];
+    }
+
+    /**
+     * @param position position of a row.
+     * @return section of the row at this position.
+     */
+    public int getSectionForPosition(int position) {
+        int low = 0;
+        int high = SECTION_COUNT - 1;
+
+        /** Last section starting at or before the position **/
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (mStarts[middle] <= position) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return total number of rows.
+     */
+    public int size() {
+        return mStarts[SECTION_COUNT];
+    }
+
+    private void updateStarts() {
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            mStarts[i + 1] = mStarts[i] + mCounts[i];
+        }
+    }
+}
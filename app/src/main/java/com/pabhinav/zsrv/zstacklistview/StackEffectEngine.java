@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+/**
+ * State machine behind the masked tile stacking effect.
+ * <p>
+ *     {@link MyRecyclerOnScrollListener} feeds it the layout state once per scroll
+ *     callback : adapter position and top of the first child view. It then tells
+ *     its {@link Callback} what to do, only when something actually changed :
+ *
+ *          1) When the top position changes, the masked tile view has to imitate
+ *             the new top item. If the list was scrolled down, the previous top
+ *             item (now second child) has to become visible again.
+ *          2) The top item is hidden (masked tile view shows through), except when
+ *             the list is scrolled to its very top.
+ * </p>
+ * <p>
+ *     While the top item stays the same, a scroll callback is two int comparisons,
+ *     with no allocation and no view access. This class has no Android dependency.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public final class StackEffectEngine {
+
+    /** Top position before any layout state was seen, or after {@link #reset()} **/
+    public static final int NO_POSITION = -1;
+
+    /**
+     * Callback applying stacking effect on views.
+     */
+    public interface Callback {
+
+        /**
+         * The item at the top of the list changed, the masked tile view has to imitate it.
+         *
+         * @param topPosition adapter position of the new top item.
+         */
+        void onTopItemChanged(int topPosition);
+
+        /**
+         * Show or hide the child view at an index.
+         *
+         * @param childIndex index (not position) of the child view.
+         * @param visible whether child view has to be visible.
+         */
+        void setChildVisible(int childIndex, boolean visible);
+    }
+
+    /** Callback applying stacking effect **/
+    private final Callback mCallback;
+
+    /** Adapter position of the top item last seen **/
+    private int mTopPosition = NO_POSITION;
+
+    /** Whether the top item is currently hidden, valid only while {@link #mTopVisibilityKnown} **/
+    private boolean mTopHidden;
+
+    /** Whether visibility of the current top child view was set already **/
+    private boolean mTopVisibilityKnown;
+
+    /**
+     * Constructor for this class.
+     *
+     * @param callback callback applying stacking effect on views.
+     */
+    public StackEffectEngine(Callback callback) {
+        mCallback = callback;
+    }
+
+    /**
+     * Feed layout state after a scroll or layout.
+     *
+     * @param topPosition adapter position of the first child view.
+     * @param topChildTop top of the first child view, relative to its parent.
+     */
+    public void onLayoutState(int topPosition, int topChildTop) {
+        if (topPosition < 0) {
+            return;
+        }
+
+        if (topPosition != mTopPosition) {
+
+            /** Scrolling down, make visible the previous top item, which is now at index = 1 **/
+            if (mTopPosition != NO_POSITION && topPosition < mTopPosition) {
+                mCallback.setChildVisible(1, true);
+            }
+            mTopPosition = topPosition;
+            mTopVisibilityKnown = false;
+            mCallback.onTopItemChanged(topPosition);
+        }
+
+        /** Very top of the list reached, all items on the same elevation **/
+        boolean hidden = !(topPosition == 0 && topChildTop == 0);
+        if (!mTopVisibilityKnown || hidden != mTopHidden) {
+            mTopHidden = hidden;
+            mTopVisibilityKnown = true;
+            mCallback.setChildVisible(0, !hidden);
+        }
+    }
+
+    /**
+     * @return adapter position of the top item, or {@link #NO_POSITION}.
+     */
+    public int getTopPosition() {
+        return mTopPosition;
+    }
+
+    /**
+     * Forget visibility of the top child view, so that it is applied again on the next
+     * layout state, e.g. after the top item got rebound, possibly on another child view.
+     * The top item is not imitated again.
+     */
+    public void invalidateTopVisibility() {
+        mTopVisibilityKnown = false;
+    }
+
+    /**
+     * Forget all state, so that the next layout state is applied in full,
+     * e.g. after adapter changes.
+     */
+    public void reset() {
+        mTopPosition = NO_POSITION;
+        mTopVisibilityKnown = false;
+    }
+}
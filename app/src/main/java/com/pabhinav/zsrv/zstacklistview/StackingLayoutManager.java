@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import android.content.Context;
+import android.support.v4.view.ViewCompat;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+/**
+ * {@link LinearLayoutManager} laying out tiles with stacking effect by itself.
+ * <p>
+ *     Tiles are laid out as a plain vertical list, then the first visible tile is
+ *     pinned at the top of {@link RecyclerView} using translation, while the tiles
+ *     below keep sliding over it. {@link RecyclerView} draws its children in index
+ *     order, so the pinned tile is always drawn below the tile sliding over it.
+ *     Once the sliding tile fully covers it, the pinned tile is scrolled out of its
+ *     real bounds, gets recycled, and the sliding tile becomes the pinned one.
+ * </p>
+ * <p>
+ *     Compared to the masked tile view approach (see {@link MyRecyclerOnScrollListener}),
+ *     there is no invisible but still drawn first item, no second view hierarchy to keep
+ *     in sync and nothing to copy on scroll. Since the pinned tile is a regular child
+ *     (only translated), it keeps receiving click events.
+ * </p>
+ * <p>
+ *     The pinned tile loses its elevation (using translation z), so that the shadow of
+ *     the tile sliding over it is cast on it. At the very top of the list, nothing is
+ *     pinned and all tiles are on the same elevation.
+ * </p>
+ * <p>
+ *     Item animations also move tiles with translation : while they run, translations
+ *     are left alone, and tiles are stacked again once they end.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public class StackingLayoutManager extends LinearLayoutManager {
+
+    /**
+     * List this layout manager is attached to, null while detached.
+     */
+    private RecyclerView mRecyclerView;
+
+    /**
+     * Whether stacking waits for item animations to end.
+     */
+    private boolean mStackingPending;
+
+    /**
+     * Stacks tiles once item animations end.
+     */
+    private final RecyclerView.ItemAnimator.ItemAnimatorFinishedListener mAnimationsFinishedListener =
+            new RecyclerView.ItemAnimator.ItemAnimatorFinishedListener() {
+                @Override
+                public void onAnimationsFinished() {
+                    mStackingPending = false;
+                    mApplyStacking.run();
+                }
+            };
+
+    /**
+     * Stacks tiles, unless item animations run.
+     */
+    private final Runnable mApplyStacking = new Runnable() {
+        @Override
+        public void run() {
+            if (mRecyclerView != null) {
+                applyStacking();
+            }
+        }
+    };
+
+    /**
+     * Stacks tiles right after the frame starting item animations of a layout, so that
+     * stacking is deferred until they end.
+     */
+    private final Runnable mStackAfterAnimationsStart = new Runnable() {
+        @Override
+        public void run() {
+            if (mRecyclerView != null) {
+                mRecyclerView.post(mApplyStacking);
+            }
+        }
+    };
+
+    /**
+     * Constructor for this class, laying out a vertical list.
+     *
+     * @param context {@link Context} of the calling activity.
+     */
+    public StackingLayoutManager(Context context) {
+        super(context, VERTICAL, false);
+    }
+
+    @Override
+    public void onAttachedToWindow(RecyclerView view) {
+        super.onAttachedToWindow(view);
+        mRecyclerView = view;
+    }
+
+    @Override
+    public void onDetachedFromWindow(RecyclerView view, RecyclerView.Recycler recycler) {
+        super.onDetachedFromWindow(view, recycler);
+        mRecyclerView = null;
+    }
+
+    /**
+     * Lay out all relevant child views, then pin the first one.
+     */
+    @Override
+    public void onLayoutChildren(RecyclerView.Recycler recycler, RecyclerView.State state) {
+        super.onLayoutChildren(recycler, state);
+        applyStacking();
+
+        /** Animations of this layout start on the next animation frame, and reset translations as they end **/
+        if (state.willRunSimpleAnimations() && mRecyclerView != null) {
+            ViewCompat.postOnAnimation(mRecyclerView, mStackAfterAnimationsStart);
+        }
+    }
+
+    /**
+     * Scroll vertically, then pin the first child view, which may have changed.
+     */
+    @Override
+    public int scrollVerticallyBy(int dy, RecyclerView.Recycler recycler, RecyclerView.State state) {
+        int scrolled = super.scrollVerticallyBy(dy, recycler, state);
+        applyStacking();
+        return scrolled;
+    }
+
+    /**
+     * Translates the first child view back to the top of {@link RecyclerView} and
+     * resets translation of every other child, which may be a recycled pinned view.
+     * While item animations run, nothing is done until they end.
+     */
+    private void applyStacking() {
+        RecyclerView.ItemAnimator itemAnimator = (mRecyclerView == null) ? null : mRecyclerView.getItemAnimator();
+        if (itemAnimator != null && itemAnimator.isRunning()) {
+            if (!mStackingPending) {
+                mStackingPending = true;
+                itemAnimator.isRunning(mAnimationsFinishedListener);
+            }
+            return;
+        }
+        int childCount = getChildCount();
+        int parentTop = getPaddingTop();
+        for (int i = 0; i < childCount; i++) {
+            View child = getChildAt(i);
+            int offset = (i == 0) ? Math.max(0, parentTop - getDecoratedTop(child)) : 0;
+            child.setTranslationY(offset);
+            ViewCompat.setTranslationZ(child, (offset > 0) ? -ViewCompat.getElevation(child) : 0);
+        }
+    }
+}
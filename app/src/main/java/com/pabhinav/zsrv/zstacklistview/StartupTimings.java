@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+/**
+ * Timestamps of the startup phases of {@link MainActivity}.
+ * <p>
+ *     Phases, in the order they normally happen :
+ *
+ *          1) Create : activity creation started.
+ *          2) First draw : first frame with (skeleton) tiles about to be drawn.
+ *          3) Data ready : real rows loaded, projected and swapped into the list.
+ *
+ *     Times are given by the caller (e.g. {@link android.os.SystemClock#uptimeMillis()}),
+ *     so this class has no Android dependency. Each phase is recorded only once.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public final class StartupTimings {
+
+    /** Value of phases not reached yet **/
+    public static final long NOT_REACHED = -1;
+
+    /** Phase timestamps, in milliseconds **/
+    private long mCreateTime = NOT_REACHED;
+    private long mFirstDrawTime = NOT_REACHED;
+    private long mDataReadyTime = NOT_REACHED;
+
+    /**
+     * Record start of activity creation.
+     *
+     * @param timeMillis current time, in milliseconds.
+     */
+    public void markCreate(long timeMillis) {
+        if (mCreateTime == NOT_REACHED) {
+            mCreateTime = timeMillis;
+        }
+    }
+
+    /**
+     * Record the first frame being drawn.
+     *
+     * @param timeMillis current time, in milliseconds.
+     */
+    public void markFirstDraw(long timeMillis) {
+        if (mFirstDrawTime == NOT_REACHED) {
+            mFirstDrawTime = timeMillis;
+        }
+    }
+
+    /**
+     * Record real rows being shown by the list.
+     *
+     * @param timeMillis current time, in milliseconds.
+     */
+    public void markDataReady(long timeMillis) {
+        if (mDataReadyTime == NOT_REACHED) {
+            mDataReadyTime = timeMillis;
+        }
+    }
+
+    /**
+     * @return time of activity creation, or {@link #NOT_REACHED}.
+     */
+    public long getCreateTime() {
+        return mCreateTime;
+    }
+
+    /**
+     * @return time of the first draw, or {@link #NOT_REACHED}.
+     */
+    public long getFirstDrawTime() {
+        return mFirstDrawTime;
+    }
+
+    /**
+     * @return time real rows were shown, or {@link #NOT_REACHED}.
+     */
+    public long getDataReadyTime() {
+        return mDataReadyTime;
+    }
+
+    /**
+     * @return milliseconds from creation to first draw, or {@link #NOT_REACHED}.
+     */
+    public long getTimeToFirstDraw() {
+        return since(mCreateTime, mFirstDrawTime);
+    }
+
+    /**
+     * @return milliseconds from creation to real rows shown, or {@link #NOT_REACHED}.
+     */
+    public long getTimeToDataReady() {
+        return since(mCreateTime, mDataReadyTime);
+    }
+
+    private static long since(long start, long end) {
+        return (start == NOT_REACHED || end == NOT_REACHED) ? NOT_REACHED : end - start;
+    }
+
+    @Override
+    public String toString() {
+        return "StartupTimings{firstDraw=" + getTimeToFirstDraw() + "ms, dataReady=" + getTimeToDataReady() + "ms}";
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Dictionary of distinct strings, each mapped to a small int code.
+ * <p>
+ *     Used by {@link ColumnarDataStore} : columns hold codes, and every distinct
+ *     value is kept once, however many rows share it. Codes are given in order
+ *     of first appearance, starting at 0.
+ * </p>
+ * <p>
+ *     Not thread safe. Filled on one thread, it may be read from another once
+ *     handed over, e.g. through an executor.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public final class StringDictionary {
+
+    /** Code of null strings **/
+    public static final int NULL_CODE = -1;
+
+    /** Initial capacity of the values array **/
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Code of each distinct value **/
+    private final HashMap<String, Integer> mCodes = new HashMap<>();
+
+    /** Distinct values, indexed by code **/
+    private String[] mValues = new String[INITIAL_CAPACITY];
+
+    /** Number of distinct values **/
+    private int mSize;
+
+    /**
+     * Code of a string, adding it to this dictionary if new.
+     *
+     * @param value string to encode, may be null.
+     * @return code of the string, or {@link #NULL_CODE}.
+     */
+    public int encode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = mCodes.get(value);
+        if (code != null) {
+            return code;
+        }
+        if (mSize == mValues.length) {
+            mValues = Arrays.copyOf(mValues, mSize * 2);
+        }
+        mValues[mSize] = value;
+        mCodes.put(value, mSize);
+        return mSize++;
+    }
+
+    /**
+     * @param code code returned by {@link #encode(String)}.
+     * @return shared instance of the encoded string, or null for {@link #NULL_CODE}.
+     */
+    public String decode(int code) {
+        return (code == NULL_CODE) ? null : mValues[code];
+    }
+
+    /**
+     * @return number of distinct strings.
+     */
+    public int size() {
+        return mSize;
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import java.util.List;
+
+/**
+ * Bind ready projection of {@link DataObject}.
+ * <p>
+ *     Holds everything a list tile shows, already computed : name plate letter,
+ *     resolved name plate color, capitalized display name and location. Time passed
+ *     depends on the current time, its label is looked up from {@link RelativeTimeFormatter}
+ *     cache at bind time. Binding a tile with it involves no string work.
+ * </p>
+ * <p>
+ *     Projections are cached on their {@link DataObject} and are immutable, so
+ *     they can be prepared on a background thread (see {@link #projectAll(DataObject[], LetterColorMapping)})
+ *     and safely read on the main thread. A {@link DataObject} is immutable too, an
+ *     updated row is a new instance, projected anew.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public final class TileBindModel {
+
+    /** Letter shown on the name plate **/
+    public final String namePlateLetter;
+
+    /** Resolved ARGB color of the name plate **/
+    public final int namePlateColor;
+
+    /** Name with capitalized initial **/
+    public final String displayName;
+
+    /** Location shown below name **/
+    public final String location;
+
+    /** Epoch time of last check in, or {@link RelativeTimeFormatter#NO_TIME} **/
+    public final long checkInTime;
+
+    /** Uri of the avatar shown instead of the name plate letter, see {@link AvatarLoader}, null if none **/
+    public final String avatarUri;
+
+    /** Mapping the name plate color was resolved with **/
+    final LetterColorMapping mLetterColorMapping;
+
+    /**
+     * Constructor for this class.
+     *
+     * @param namePlateLetter letter shown on the name plate.
+     * @param namePlateColor resolved ARGB color of the name plate.
+     * @param displayName name with capitalized initial.
+     * @param location location shown below name.
+     * @param checkInTime epoch time of last check in.
+     * @param avatarUri uri of the avatar, may be null.
+     * @param letterColorMapping mapping the name plate color was resolved with.
+     */
+    private TileBindModel(String namePlateLetter, int namePlateColor, String displayName, String location,
+                          long checkInTime, String avatarUri, LetterColorMapping letterColorMapping) {
+        this.namePlateLetter = namePlateLetter;
+        this.namePlateColor = namePlateColor;
+        this.displayName = displayName;
+        this.location = location;
+        this.checkInTime = checkInTime;
+        this.avatarUri = avatarUri;
+        this.mLetterColorMapping = letterColorMapping;
+    }
+
+    /**
+     * Computes all display values of a {@link DataObject}.
+     *
+     * @param dataObject data model to project.
+     * @param letterColorMapping mapping used to resolve name plate color.
+     * @return new bind ready projection.
+     */
+    static TileBindModel project(DataObject dataObject, LetterColorMapping letterColorMapping) {
+        String name = (dataObject.getName() == null) ? "" : dataObject.getName();
+        int namePlateCodePoint = LetterColorMapping.namePlateCodePoint(name);
+        String namePlateLetter = LetterColorMapping.namePlateLetter(namePlateCodePoint);
+
+        /** Initial may be a surrogate pair, so skip as many chars as it takes in name **/
+        int initialLength = (namePlateCodePoint == LetterColorMapping.NO_INITIAL) ? 0 : Character.charCount(name.codePointAt(0));
+
+        return new TileBindModel(namePlateLetter, letterColorMapping.colorForCodePoint(namePlateCodePoint),
+                namePlateLetter + name.substring(initialLength), dataObject.getLocation(), dataObject.getCheckInTime(),
+                dataObject.getAvatarUri(), letterColorMapping);
+    }
+
+    /**
+     * Label of time passed since last check in.
+     *
+     * @param nowMillis current epoch time.
+     * @return cached label, e.g. "5min ago".
+     */
+    public String timePassed(long nowMillis) {
+        return RelativeTimeFormatter.getDefault().format(checkInTime, nowMillis);
+    }
+
+    /**
+     * Time bucket of the label returned by {@link #timePassed(long)}, the label
+     * only changes when the bucket does.
+     *
+     * @param nowMillis current epoch time.
+     * @return time bucket.
+     */
+    public int timePassedBucket(long nowMillis) {
+        return RelativeTimeFormatter.getDefault().bucketOf(checkInTime, nowMillis);
+    }
+
+    /**
+     * Bind model shown for rows which are not loaded yet : empty
+     * texts on a name plate of fallback color.
+     *
+     * @param letterColorMapping mapping providing the fallback color.
+     * @return new placeholder bind model.
+     */
+    public static TileBindModel placeholder(LetterColorMapping letterColorMapping) {
+        return new TileBindModel("", letterColorMapping.getFallbackColor(), "", "", RelativeTimeFormatter.NO_TIME, null, letterColorMapping);
+    }
+
+    /**
+     * Fetch the projection of a {@link DataObject}, computing and caching
+     * it only if there is no valid cached one.
+     *
+     * @param dataObject data model to project.
+     * @param letterColorMapping mapping used to resolve name plate color.
+     * @return bind ready projection.
+     */
+    public static TileBindModel of(DataObject dataObject, LetterColorMapping letterColorMapping) {
+        TileBindModel bindModel = dataObject.mBindModel;
+        if (bindModel == null || bindModel.mLetterColorMapping != letterColorMapping) {
+            bindModel = project(dataObject, letterColorMapping);
+            dataObject.mBindModel = bindModel;
+        }
+        return bindModel;
+    }
+
+    /**
+     * Computes and caches projections of all given data objects.
+     * Meant to run on a background thread.
+     *
+     * @param dataObjects data models to project, null elements (placeholders) are skipped.
+     * @param letterColorMapping mapping used to resolve name plate color.
+     */
+    public static void projectAll(DataObject[] dataObjects, LetterColorMapping letterColorMapping) {
+        for (DataObject dataObject : dataObjects) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            if (dataObject != null) {
+                of(dataObject, letterColorMapping);
+            }
+        }
+    }
+
+    /**
+     * Same as {@link #projectAll(DataObject[], LetterColorMapping)}, for a list
+     * which is not modified while projecting.
+     *
+     * @param dataObjects data models to project.
+     * @param letterColorMapping mapping used to resolve name plate color.
+     */
+    public static void projectAll(List<DataObject> dataObjects, LetterColorMapping letterColorMapping) {
+        for (int i = 0, size = dataObjects.size(); i < size; i++) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            DataObject dataObject = dataObjects.get(i);
+            if (dataObject != null) {
+                of(dataObject, letterColorMapping);
+            }
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.text.BoringLayout;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.View;
+import android.view.accessibility.AccessibilityEvent;
+import android.view.accessibility.AccessibilityNodeInfo;
+
+/**
+ * Flattened list tile, a single {@link View} drawing name plate, name,
+ * location and time passed directly on {@link Canvas}.
+ * <p>
+ *     It follows the same visual spec as tile.xml (72dp high, 50dp name plate
+ *     with 11dp margin, 20sp white name with 14sp gray location below it, 12sp
+ *     gray time passed at the bottom right corner), without inflating and
+ *     measuring a {@link android.widget.RelativeLayout} of five views.
+ * </p>
+ * <p>
+ *     Text layouts are cached per text, and only rebuilt when the text or the
+ *     width changes. Name plate is drawn with a {@link CircleDrawable} sharing
+ *     its state through {@link NamePlateDrawableCache}. Click events are handled
+ *     by the view itself, and accessibility services get the same texts as with
+ *     separate {@link android.widget.TextView}s.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public class TileView extends View {
+
+    /** Colors of tile.xml texts **/
+    private static final int NAME_COLOR = Color.WHITE;
+    private static final int SECONDARY_COLOR = 0xFFAAAAAA;
+    private static final int NAME_PLATE_TEXT_COLOR = Color.BLACK;
+
+    /** Dimensions of tile.xml, in pixels **/
+    private final int mDefaultHeight;
+    private final int mNamePlateSize;
+    private final int mNamePlateMargin;
+    private final int mTextLeft;
+    private final int mTextTop;
+    private final int mTextRightMargin;
+    private final int mTimePassedMargin;
+
+    /** Paint of the name plate letter **/
+    private final Paint mNamePlatePaint;
+
+    /** Name plate background **/
+    private final CircleDrawable mNamePlateDrawable;
+
+    /** Texts, along with their cached layouts **/
+    private final TextSlot mNameSlot;
+    private final TextSlot mLocationSlot;
+    private final TextSlot mTimePassedSlot;
+
+    /** Letter shown on the name plate **/
+    private String mNamePlateLetter = "";
+
+    public TileView(Context context) {
+        this(context, null);
+    }
+
+    public TileView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public TileView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+
+        mDefaultHeight = dp(72);
+        mNamePlateSize = dp(50);
+        mNamePlateMargin = dp(11);
+        mTextLeft = mNamePlateMargin * 3 + mNamePlateSize;
+        mTextTop = dp(14);
+        mTextRightMargin = dp(5);
+        mTimePassedMargin = dp(14);
+
+        mNamePlatePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mNamePlatePaint.setColor(NAME_PLATE_TEXT_COLOR);
+        mNamePlatePaint.setTextSize(sp(18));
+        mNamePlatePaint.setTextAlign(Paint.Align.CENTER);
+
+        mNamePlateDrawable = new CircleDrawable(LetterColorResources.get(context).getFallbackColor());
+        mNamePlateDrawable.setBounds(0, 0, mNamePlateSize, mNamePlateSize);
+
+        mNameSlot = new TextSlot(sp(20), NAME_COLOR);
+        mLocationSlot = new TextSlot(sp(14), SECONDARY_COLOR);
+        mTimePassedSlot = new TextSlot(sp(12), SECONDARY_COLOR);
+
+        setClickable(true);
+    }
+
+    /**
+     * Show precomputed display values.
+     *
+     * @param bindModel bind ready projection of the item shown by this tile.
+     */
+    public void bind(TileBindModel bindModel) {
+        mNamePlateLetter = bindModel.namePlateLetter;
+        mNamePlateDrawable.setCircleState(NamePlateDrawableCache.getCircleState(bindModel.namePlateColor));
+        mNameSlot.setText(bindModel.displayName);
+        mLocationSlot.setText(bindModel.location);
+        mTimePassedSlot.setText(bindModel.timePassed(System.currentTimeMillis()));
+        invalidate();
+    }
+
+    /**
+     * Show only the name plate letter and its color, texts are left empty. No text
+     * is laid out on next draw, see {@link MyRecyclerViewAdapter#setLightweightBinding(boolean)}.
+     *
+     * @param bindModel bind ready projection of the item shown by this tile.
+     */
+    public void bindLightweight(TileBindModel bindModel) {
+        mNamePlateLetter = bindModel.namePlateLetter;
+        mNamePlateDrawable.setCircleState(NamePlateDrawableCache.getCircleState(bindModel.namePlateColor));
+        mNameSlot.setText("");
+        mLocationSlot.setText("");
+        mTimePassedSlot.setText("");
+        invalidate();
+    }
+
+    /**
+     * Show an avatar on the name plate instead of its letter, see {@link AvatarLoader}.
+     *
+     * @param avatar bitmap clipped to the name plate circle, null to show the letter.
+     */
+    public void setAvatar(Bitmap avatar) {
+        if (mNamePlateDrawable.hasAvatar() || avatar != null) {
+            mNamePlateDrawable.setAvatar(avatar);
+            invalidate();
+        }
+    }
+
+    /**
+     * @return name shown by this tile.
+     */
+    public CharSequence getName() {
+        return mNameSlot.mText;
+    }
+
+    /**
+     * @return location shown by this tile.
+     */
+    public CharSequence getLocation() {
+        return mLocationSlot.mText;
+    }
+
+    /**
+     * @return time passed shown by this tile.
+     */
+    public CharSequence getTimePassed() {
+        return mTimePassedSlot.mText;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        setMeasuredDimension(getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec),
+                resolveSize(mDefaultHeight, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+
+        /** Name plate, {@link CircleDrawable} draws from the origin **/
+        int saveCount = canvas.save();
+        canvas.translate(mNamePlateMargin, mNamePlateMargin);
+        mNamePlateDrawable.draw(canvas);
+        canvas.restoreToCount(saveCount);
+        if (!mNamePlateDrawable.hasAvatar()) {
+            float namePlateCenter = mNamePlateMargin + mNamePlateSize / 2f;
+            canvas.drawText(mNamePlateLetter, namePlateCenter,
+                    namePlateCenter - (mNamePlatePaint.descent() + mNamePlatePaint.ascent()) / 2f, mNamePlatePaint);
+        }
+
+        int textWidth = getWidth() - mTextLeft - mTextRightMargin;
+        if (textWidth <= 0) {
+            return;
+        }
+
+        /** Name, with location right below it **/
+        Layout nameLayout = mNameSlot.getLayout(textWidth);
+        drawLayout(canvas, nameLayout, mTextLeft, mTextTop);
+        drawLayout(canvas, mLocationSlot.getLayout(textWidth), mTextLeft, mTextTop + nameLayout.getHeight());
+
+        /** Time passed at bottom right corner **/
+        Layout timePassedLayout = mTimePassedSlot.getLayout(textWidth);
+        drawLayout(canvas, timePassedLayout, getWidth() - mTimePassedMargin - (int) Math.ceil(timePassedLayout.getLineWidth(0)),
+                getHeight() - mTimePassedMargin - timePassedLayout.getHeight());
+    }
+
+    /**
+     * Draws a text layout with its top left corner at given coordinates.
+     */
+    private static void drawLayout(Canvas canvas, Layout layout, int left, int top) {
+        int saveCount = canvas.save();
+        canvas.translate(left, top);
+        layout.draw(canvas);
+        canvas.restoreToCount(saveCount);
+    }
+
+    @Override
+    public void onPopulateAccessibilityEvent(AccessibilityEvent event) {
+        super.onPopulateAccessibilityEvent(event);
+        event.getText().add(mNameSlot.mText);
+        event.getText().add(mLocationSlot.mText);
+        event.getText().add(mTimePassedSlot.mText);
+    }
+
+    @Override
+    public void onInitializeAccessibilityNodeInfo(AccessibilityNodeInfo info) {
+        super.onInitializeAccessibilityNodeInfo(info);
+        info.setText(getContext().getString(R.string.tile_accessibility_text,
+                mNameSlot.mText, mLocationSlot.mText, mTimePassedSlot.mText));
+    }
+
+    private int dp(float value) {
+        return Math.round(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, value, getResources().getDisplayMetrics()));
+    }
+
+    private float sp(float value) {
+        return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, value, getResources().getDisplayMetrics());
+    }
+
+    /**
+     * A single line text along with its paint and cached layout.
+     * Single line layouts are ellipsized at the end, like a {@link android.widget.TextView}
+     * running out of room.
+     */
+    private static class TextSlot {
+
+        final TextPaint mPaint;
+        CharSequence mText = "";
+        Layout mLayout;
+        int mLayoutWidth = -1;
+        BoringLayout.Metrics mMetrics = new BoringLayout.Metrics();
+
+        TextSlot(float textSize, int color) {
+            mPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+            mPaint.setTextSize(textSize);
+            mPaint.setColor(color);
+        }
+
+        /**
+         * Set text, its layout is rebuilt on next draw only if text changed.
+         */
+        void setText(CharSequence text) {
+            if (text == null) {
+                text = "";
+            }
+            if (!TextUtils.equals(text, mText)) {
+                mText = text;
+                mLayoutWidth = -1;
+            }
+        }
+
+        Layout getLayout(int width) {
+            if (mLayout != null && mLayoutWidth == width) {
+                return mLayout;
+            }
+            BoringLayout.Metrics metrics = BoringLayout.isBoring(mText, mPaint, mMetrics);
+            if (metrics != null) {
+                mMetrics = metrics;
+                mLayout = (mLayout instanceof BoringLayout)
+                        ? ((BoringLayout) mLayout).replaceOrMake(mText, mPaint, width, Layout.Alignment.ALIGN_NORMAL,
+                                1f, 0f, metrics, true, TextUtils.TruncateAt.END, width)
+                        : BoringLayout.make(mText, mPaint, width, Layout.Alignment.ALIGN_NORMAL,
+                                1f, 0f, metrics, true, TextUtils.TruncateAt.END, width);
+            } else {
+                CharSequence ellipsized = TextUtils.ellipsize(mText, mPaint, width, TextUtils.TruncateAt.END);
+                mLayout = new StaticLayout(ellipsized, 0, ellipsized.length(), mPaint, width, Layout.Alignment.ALIGN_NORMAL,
+                        1f, 0f, true, TextUtils.TruncateAt.END, width);
+            }
+            mLayoutWidth = width;
+            return mLayout;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import android.content.Context;
+import android.support.v7.widget.RecyclerView;
+import android.view.LayoutInflater;
+import android.view.View;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Inflates tile views ahead of time, on a background thread.
+ * <p>
+ *     Without it, {@link MyRecyclerViewAdapter#onCreateViewHolder} inflates a tile
+ *     on the main thread for every row of the first screen, and again for the rows
+ *     revealed by the first fling. Here, tiles are inflated by a {@link LayoutInflater}
+ *     cloned for the background thread only (inflaters are not thread safe), and
+ *     handed over through a concurrent queue :
+ *
+ *          1) {@link MyRecyclerViewAdapter#onCreateViewHolder} takes an inflated tile
+ *             from the queue, when one is ready.
+ *          2) Once all tiles are inflated, those still in the queue are wrapped in view
+ *             holders on the main thread and put in the {@link RecyclerView.RecycledViewPool},
+ *             which is sized to hold a full stacked viewport.
+ * </p>
+ * <p>
+ *     Views are never attached or measured off the main thread, only constructed.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public class TileViewPrewarmer {
+
+    /** View type of tiles, {@link MyRecyclerViewAdapter} has a single one **/
+    private static final int TILE_VIEW_TYPE = 0;
+
+    /** Tiles partially visible beyond full ones : the stacked tile and the one sliding in **/
+    private static final int EXTRA_VIEWPORT_TILES = 2;
+
+    /** Inflater used on the background thread only **/
+    private final LayoutInflater mInflater;
+
+    /** Tile layout to inflate **/
+    private final int mLayoutResId;
+
+    /** Number of tiles to inflate **/
+    private final int mCount;
+
+    /** Inflated tiles, not yet used **/
+    private final ConcurrentLinkedQueue<View> mInflatedViews = new ConcurrentLinkedQueue<>();
+
+    /** Set when inflation is no longer wanted, e.g. activity destroyed **/
+    private volatile boolean mCancelled;
+
+    /**
+     * Constructor for this class.
+     *
+     * @param context {@link Context} of the calling activity, for the tile theme.
+     * @param layoutResId tile layout to inflate.
+     * @param count number of tiles to inflate, see {@link #viewportCapacity(Context, int)}.
+     */
+    public TileViewPrewarmer(Context context, int layoutResId, int count) {
+        mInflater = LayoutInflater.from(context).cloneInContext(context);
+        mLayoutResId = layoutResId;
+        mCount = count;
+    }
+
+    /**
+     * Number of tiles needed to fill a stacked viewport : every fully visible tile,
+     * plus the stacked one and the one sliding in.
+     *
+     * @param context {@link Context} of the calling activity.
+     * @param viewportHeight height of the list, in pixels; if not laid out yet (0), screen height is used.
+     * @return number of tiles.
+     */
+    public static int viewportCapacity(Context context, int viewportHeight) {
+        if (viewportHeight <= 0) {
+            viewportHeight = context.getResources().getDisplayMetrics().heightPixels;
+        }
+        int tileHeight = context.getResources().getDimensionPixelSize(R.dimen.tile_height);
+        return (viewportHeight + tileHeight - 1) / tileHeight + EXTRA_VIEWPORT_TILES;
+    }
+
+    /**
+     * Start inflating tiles on the background thread, then seed the view pool of
+     * {@link RecyclerView} with the ones not used by then. The pool is sized to hold
+     * all of them. Call it from the main thread, once the adapter is set.
+     *
+     * @param recyclerView list to pre warm, used as parent for layout params.
+     */
+    public void prewarm(final RecyclerView recyclerView) {
+        recyclerView.getRecycledViewPool().setMaxRecycledViews(TILE_VIEW_TYPE, mCount);
+
+        ListExecutors.background().execute(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < mCount && !mCancelled; i++) {
+                    mInflatedViews.add(mInflater.inflate(mLayoutResId, recyclerView, false));
+                }
+
+                ListExecutors.mainThread().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        seedRecycledViewPool(recyclerView);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Wraps tiles still in the queue into view holders and puts them in the view pool.
+     * {@link RecyclerView.Adapter#createViewHolder} sets the view type of holders,
+     * and takes the tiles from this class through {@link #poll()}.
+     */
+    @SuppressWarnings("unchecked")
+    private void seedRecycledViewPool(RecyclerView recyclerView) {
+        RecyclerView.Adapter adapter = recyclerView.getAdapter();
+        if (mCancelled || adapter == null) {
+            mInflatedViews.clear();
+            return;
+        }
+        RecyclerView.RecycledViewPool recycledViewPool = recyclerView.getRecycledViewPool();
+        while (!mInflatedViews.isEmpty()) {
+            recycledViewPool.putRecycledView(adapter.createViewHolder(recyclerView, TILE_VIEW_TYPE));
+        }
+    }
+
+    /**
+     * Take an inflated tile, if one is ready.
+     *
+     * @return inflated tile, or null.
+     */
+    View poll() {
+        return mInflatedViews.poll();
+    }
+
+    /**
+     * Stop inflating tiles, and drop the ones not used yet.
+     */
+    public void cancel() {
+        mCancelled = true;
+        mInflatedViews.clear();
+    }
+}
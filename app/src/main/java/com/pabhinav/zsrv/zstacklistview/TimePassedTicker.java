@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v7.widget.RecyclerView;
+
+/**
+ * Keeps time passed labels of visible tiles up to date.
+ * <p>
+ *     A single ticker per list. Each tick walks the visible tiles only, and notifies
+ *     the ones whose time bucket (see {@link RelativeTimeFormatter}) changed since they
+ *     were bound, with a {@link MyRecyclerViewAdapter.ItemChange#TIME_PASSED} payload :
+ *     only their time passed view is updated, and the masked tile follows through
+ *     the same payload when the top tile is one of them. Rows scrolled in later are
+ *     bound with a fresh label anyway.
+ * </p>
+ * <p>
+ *     The next tick is scheduled at the earliest bucket change among visible tiles,
+ *     and at least once a minute, so that a list of old check ins barely wakes up.
+ * </p>
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+public class TimePassedTicker implements Runnable {
+
+    /** Longest time between two ticks, covers tiles bound after a tick was scheduled **/
+    private static final long MAX_TICK_INTERVAL_MILLIS = 60 * 1000L;
+
+    /** Shortest time between two ticks **/
+    private static final long MIN_TICK_INTERVAL_MILLIS = 1000L;
+
+    /** List whose tiles are kept up to date **/
+    private final RecyclerView mRecyclerView;
+
+    /** Main thread handler scheduling ticks **/
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    /** Whether ticks are scheduled **/
+    private boolean mStarted;
+
+    /**
+     * Constructor for this class.
+     *
+     * @param recyclerView list using {@link MyRecyclerViewAdapter}.
+     */
+    public TimePassedTicker(RecyclerView recyclerView) {
+        mRecyclerView = recyclerView;
+    }
+
+    /**
+     * Refresh stale labels right away, then keep ticking. Call it from the main thread,
+     * e.g. when the activity resumes.
+     */
+    public void start() {
+        if (!mStarted) {
+            mStarted = true;
+            run();
+        }
+    }
+
+    /**
+     * Stop ticking, e.g. when the activity pauses.
+     */
+    public void stop() {
+        mStarted = false;
+        mHandler.removeCallbacks(this);
+    }
+
+    /**
+     * A tick : notify visible tiles with a stale label, then schedule the next tick.
+     */
+    @Override
+    public void run() {
+        if (!mStarted) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long nextTick = now + MAX_TICK_INTERVAL_MILLIS;
+        RelativeTimeFormatter formatter = RelativeTimeFormatter.getDefault();
+        RecyclerView.Adapter adapter = mRecyclerView.getAdapter();
+
+        /** Visible children are in position order, notify runs of stale tiles as ranges **/
+        int staleStart = RecyclerView.NO_POSITION;
+        int staleCount = 0;
+        for (int i = 0, childCount = mRecyclerView.getChildCount(); i < childCount; i++) {
+            MyRecyclerViewAdapter.DataObjectHolder holder =
+                    (MyRecyclerViewAdapter.DataObjectHolder) mRecyclerView.getChildViewHolder(mRecyclerView.getChildAt(i));
+            int position = holder.getAdapterPosition();
+            if (holder.mBindModel == null || position == RecyclerView.NO_POSITION) {
+                continue;
+            }
+
+            /** Its label is bound fresh once lightweight binding is over **/
+            if (holder.mTextsDeferred) {
+                continue;
+            }
+            long checkInTime = holder.mBindModel.checkInTime;
+            nextTick = Math.min(nextTick, formatter.nextChangeMillis(checkInTime, now));
+            if (formatter.bucketOf(checkInTime, now) == holder.mTimePassedBucket) {
+                continue;
+            }
+            if (staleCount > 0 && position == staleStart + staleCount) {
+                staleCount++;
+            } else {
+                notifyStale(adapter, staleStart, staleCount);
+                staleStart = position;
+                staleCount = 1;
+            }
+        }
+        notifyStale(adapter, staleStart, staleCount);
+
+        mHandler.postDelayed(this, Math.max(MIN_TICK_INTERVAL_MILLIS, nextTick - now));
+    }
+
+    private static void notifyStale(RecyclerView.Adapter adapter, int positionStart, int itemCount) {
+        if (adapter != null && itemCount > 0) {
+            adapter.notifyItemRangeChanged(positionStart, itemCount, MyRecyclerViewAdapter.ItemChange.TIME_PASSED);
+        }
+    }
+}
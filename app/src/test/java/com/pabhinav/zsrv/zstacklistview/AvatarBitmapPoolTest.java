@@ -0,0 +1,73 @@
+package com.pabhinav.zsrv.zstacklistview;
+
+import android.graphics.Bitmap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link AvatarBitmapPool}.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class AvatarBitmapPoolTest {
+
+    private static final int SIZE = 4;
+
+    private final AvatarBitmapPool mPool = new AvatarBitmapPool(SIZE, 2);
+
+    @Test
+    public void pooledBitmapsAreReusedLastInFirstOut() {
+        assertNull(mPool.get());
+        Bitmap first = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+        Bitmap second = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+        mPool.put(first);
+        mPool.put(second);
+
+        assertSame(second, mPool.get());
+        assertSame(first, mPool.get());
+        assertNull(mPool.get());
+        assertFalse(first.isRecycled());
+    }
+
+    @Test
+    public void bitmapsNotFittingThePoolAreRecycled() {
+        Bitmap wrongSize = Bitmap.createBitmap(SIZE + 1, SIZE, Bitmap.Config.ARGB_8888);
+        Bitmap wrongConfig = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.RGB_565);
+        mPool.put(wrongSize);
+        mPool.put(wrongConfig);
+
+        assertTrue(wrongSize.isRecycled());
+        assertTrue(wrongConfig.isRecycled());
+        assertNull(mPool.get());
+    }
+
+    @Test
+    public void bitmapsPastTheMaximumAreRecycled() {
+        Bitmap[] bitmaps = new Bitmap[3];
+        for (int i = 0; i < bitmaps.length; i++) {
+            bitmaps[i] = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+            mPool.put(bitmaps[i]);
+        }
+
+        assertFalse(bitmaps[0].isRecycled());
+        assertFalse(bitmaps[1].isRecycled());
+        assertTrue(bitmaps[2].isRecycled());
+
+        mPool.clear();
+        assertTrue(bitmaps[0].isRecycled());
+        assertNull(mPool.get());
+    }
+
+    @Test
+    public void createsBitmapsOfPoolSizeWhenEmpty() {
+        Bitmap bitmap = mPool.getOrCreate();
+        assertEquals(SIZE, bitmap.getWidth());
+        assertEquals(SIZE, bitmap.getHeight());
+        assertEquals(Bitmap.Config.ARGB_8888, bitmap.getConfig());
+    }
+}
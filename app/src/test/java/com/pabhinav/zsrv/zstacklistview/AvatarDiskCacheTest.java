@@ -0,0 +1,98 @@
+package com.pabhinav.zsrv.zstacklistview;
+
+import android.graphics.Bitmap;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link AvatarDiskCache}.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class AvatarDiskCacheTest {
+
+    private static final int SIZE = 4;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private final AvatarBitmapPool mPool = new AvatarBitmapPool(SIZE, AvatarBitmapPool.DEFAULT_MAX_SIZE);
+
+    private Bitmap mThumbnail;
+
+    /** Length of a thumbnail file, all thumbnails being the same bitmap **/
+    private long mFileLength;
+
+    @Before
+    public void setUp() throws IOException {
+        mThumbnail = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+        AvatarDiskCache probe = new AvatarDiskCache(mFolder.newFolder(), Long.MAX_VALUE, mPool);
+        probe.put("probe", mThumbnail);
+        mFileLength = probe.fileOf("probe").length();
+        assertTrue(mFileLength > 0);
+    }
+
+    @Test
+    public void leastRecentlyUsedThumbnailsAreTrimmed() throws IOException {
+        AvatarDiskCache cache = new AvatarDiskCache(mFolder.newFolder(), 3 * mFileLength, mPool);
+        cache.put("a", mThumbnail);
+        cache.put("b", mThumbnail);
+        cache.put("c", mThumbnail);
+
+        /** b used last, then c, then a **/
+        assertTrue(cache.fileOf("a").setLastModified(1000));
+        assertTrue(cache.fileOf("b").setLastModified(3000));
+        assertTrue(cache.fileOf("c").setLastModified(2000));
+
+        /** Over budget, trimmed down to three quarters of it **/
+        cache.put("d", mThumbnail);
+
+        assertFalse(cache.fileOf("a").exists());
+        assertFalse(cache.fileOf("c").exists());
+        assertTrue(cache.fileOf("b").exists());
+        assertTrue(cache.fileOf("d").exists());
+    }
+
+    @Test
+    public void replacedThumbnailsAreCountedOnce() throws IOException {
+        AvatarDiskCache cache = new AvatarDiskCache(mFolder.newFolder(), 3 * mFileLength, mPool);
+        cache.put("a", mThumbnail);
+        cache.put("b", mThumbnail);
+        cache.put("a", mThumbnail);
+        cache.put("b", mThumbnail);
+
+        /** Exactly at budget, nothing trimmed **/
+        cache.put("c", mThumbnail);
+
+        assertTrue(cache.fileOf("a").exists());
+        assertTrue(cache.fileOf("b").exists());
+        assertTrue(cache.fileOf("c").exists());
+    }
+
+    @Test
+    public void clearDeletesThumbnailsAndResetsSize() throws IOException {
+        AvatarDiskCache cache = new AvatarDiskCache(mFolder.newFolder(), 3 * mFileLength, mPool);
+        cache.put("a", mThumbnail);
+        cache.put("b", mThumbnail);
+        cache.clear();
+        assertFalse(cache.fileOf("a").exists());
+
+        cache.put("c", mThumbnail);
+        cache.put("d", mThumbnail);
+        cache.put("e", mThumbnail);
+
+        assertTrue(cache.fileOf("c").exists());
+        assertTrue(cache.fileOf("d").exists());
+        assertTrue(cache.fileOf("e").exists());
+    }
+}
@@ -0,0 +1,64 @@
+package com.pabhinav.zsrv.zstacklistview;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ColumnarDataStore} and {@link RowStoreList}.
+ */
+public class ColumnarDataStoreTest {
+
+    @Test
+    public void repeatedValuesAreStoredOnce() {
+        ColumnarDataStore store = new ColumnarDataStore(1);
+        for (int i = 0; i < 1000; i++) {
+            store.add(i, "Name " + (i % 7), new String("Location " + (i % 3)), 1000L * i);
+        }
+
+        assertEquals(1000, store.size());
+        assertEquals(7, store.getDistinctNameCount());
+        assertEquals(3, store.getDistinctLocationCount());
+        assertSame(store.getLocation(1), store.getLocation(4));
+    }
+
+    @Test
+    public void rowsReadBackByCursorAndList() {
+        ColumnarDataStore store = new ColumnarDataStore();
+        store.add(5, "Joan Kim", "Korea", 42L);
+        store.add(new DataObject(6, "Sean White", null, RelativeTimeFormatter.NO_TIME, "content://avatars/6"));
+
+        ColumnarDataStore.Row row = store.newRow().moveTo(1);
+        assertEquals(6, row.getId());
+        assertEquals("Sean White", row.getName());
+        assertNull(row.getLocation());
+        assertEquals("content://avatars/6", row.getAvatarUri());
+        assertEquals("", row.getTimePassed(0));
+
+        List<DataObject> list = store.asList();
+        assertEquals(2, list.size());
+        assertEquals(5, list.get(0).getId());
+        assertEquals("Korea", list.get(0).getLocation());
+        assertEquals(42L, list.get(0).getCheckInTime());
+        assertNull(list.get(0).getAvatarUri());
+        assertEquals("content://avatars/6", list.get(1).getAvatarUri());
+        assertSame(list.get(0), list.get(0));
+    }
+
+    @Test
+    public void listIsFixedAtCreation() {
+        ColumnarDataStore store = new ColumnarDataStore();
+        store.add(1, "a", "b", 0);
+        List<DataObject> list = store.asList();
+        store.add(2, "c", "d", 0);
+
+        assertEquals(1, list.size());
+        try {
+            list.add(new DataObject("e", "f", 0));
+            fail();
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.pabhinav.zsrv.zstacklistview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link DataObject}.
+ */
+public class DataObjectTest {
+
+    @Test
+    public void equalityCoversIdAndContent() {
+        DataObject row = new DataObject(7, "Joan Kim", "Korea", 100);
+
+        assertEquals(row, new DataObject(7, "Joan Kim", new String("Korea"), 100));
+        assertEquals(row.hashCode(), new DataObject(7, "Joan Kim", "Korea", 100).hashCode());
+        assertNotEquals(row, new DataObject(8, "Joan Kim", "Korea", 100));
+        assertNotEquals(row, new DataObject(7, "Joan Kim", "Korea", 101));
+        assertNotEquals(row, new DataObject(7, "Joan Kim", null, 100));
+
+        assertTrue(row.hasSameContent(new DataObject(8, "Joan Kim", "Korea", 100)));
+        assertFalse(row.hasSameContent(new DataObject(7, "Joan", "Korea", 100)));
+        assertFalse(row.hasSameContent(null));
+    }
+
+    @Test
+    public void builderUpdatesCopyAndInternStrings() {
+        DataObject row = new DataObject.Builder().setId(3).setName(new String("Sean White"))
+                .setLocation(new String("Paris")).setCheckInTime(5).build();
+        DataObject duplicate = new DataObject.Builder().setName(new String("Sean White"))
+                .setLocation(new String("Paris")).build();
+
+        assertSame(row.getName(), duplicate.getName());
+        assertSame(row.getLocation(), duplicate.getLocation());
+        assertTrue(duplicate.getId() >= DataObject.GENERATED_ID_START);
+
+        DataObject updated = new DataObject.Builder(row).setCheckInTime(6).build();
+        assertEquals(3, updated.getId());
+        assertSame(row.getName(), updated.getName());
+        assertFalse(updated.hasSameContent(row));
+        assertEquals(5, row.getCheckInTime());
+    }
+
+    @Test
+    public void idsOutOfRangeAreRejected() {
+        try {
+            new DataObject(-1, "Nina Gray", "Oslo", 0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            new DataObject.Builder().setId(-1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            new DataObject.Builder().setId(DataObject.GENERATED_ID_START);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals(DataObject.GENERATED_ID_START - 1,
+                new DataObject.Builder().setId(DataObject.GENERATED_ID_START - 1).build().getId());
+
+        /** Generated ids are kept by updated versions of a row **/
+        DataObject generated = new DataObject("Nina Gray", "Oslo", 0);
+        assertEquals(generated.getId(), new DataObject.Builder(generated).setCheckInTime(1).build().getId());
+    }
+
+    @Test
+    public void constructorsInternStrings() {
+        DataObject row = new DataObject(1, new String("Nina Gray"), new String("Oslo"), 0);
+        DataObject duplicate = new DataObject(new String("Nina Gray"), new String("Oslo"), 0);
+
+        assertSame(row.getName(), duplicate.getName());
+        assertSame(row.getLocation(), duplicate.getLocation());
+    }
+}
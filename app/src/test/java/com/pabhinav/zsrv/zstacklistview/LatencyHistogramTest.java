@@ -0,0 +1,73 @@
+package com.pabhinav.zsrv.zstacklistview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link LatencyHistogram}.
+ */
+public class LatencyHistogramTest {
+
+    /** Relative error allowed by bucket resolution **/
+    private static final double RESOLUTION = 1.0 / 32;
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.getMinValue());
+        assertEquals(0, histogram.getMaxValue());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void bucketsCoverValuesWithinResolution() {
+        for (long value = 1; value < LatencyHistogram.MAX_TRACKABLE_VALUE; value = value * 3 / 2 + 1) {
+            long highest = LatencyHistogram.highestEquivalentValue(LatencyHistogram.bucketIndex(value));
+            assertTrue(highest >= value);
+            assertTrue("value " + value + " reported as " + highest, highest - value <= value * RESOLUTION);
+        }
+    }
+
+    @Test
+    public void percentilesOfUniformLatencies() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.recordValue(micros * 1000);
+        }
+
+        assertEquals(1000, histogram.getTotalCount());
+        assertEquals(1000, histogram.getMinValue());
+        assertEquals(1000000, histogram.getMaxValue());
+        assertEquals(500500, histogram.getMean(), 0.001);
+        assertEquals(500000, histogram.getValueAtPercentile(50), 500000 * RESOLUTION);
+        assertEquals(990000, histogram.getValueAtPercentile(99), 990000 * RESOLUTION);
+        assertEquals(1000000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void hugeValuesAreClamped() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordValue(Long.MAX_VALUE);
+
+        assertEquals(LatencyHistogram.MAX_TRACKABLE_VALUE, histogram.getMaxValue());
+        assertEquals(LatencyHistogram.MAX_TRACKABLE_VALUE, histogram.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void copyIsIndependentAndResetForgets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordValue(42);
+        LatencyHistogram copy = histogram.copy();
+        histogram.reset();
+        histogram.recordValue(7);
+
+        assertEquals(1, copy.getTotalCount());
+        assertEquals(42, copy.getMaxValue());
+        assertEquals(1, histogram.getTotalCount());
+        assertEquals(7, histogram.getMinValue());
+        assertEquals(7, histogram.getMaxValue());
+    }
+}
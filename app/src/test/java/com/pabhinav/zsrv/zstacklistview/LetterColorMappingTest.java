@@ -0,0 +1,131 @@
+package com.pabhinav.zsrv.zstacklistview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link LetterColorMapping}.
+ */
+public class LetterColorMappingTest {
+
+    private static final int FALLBACK_COLOR = 0xFF9E9E9E;
+
+    private int[] mLetterColors;
+    private LetterColorMapping mMapping;
+
+    @Before
+    public void setUp() {
+        mLetterColors = new int[LetterColorMapping.LETTER_COUNT];
+        for (int i = 0; i < mLetterColors.length; i++) {
+            mLetterColors[i] = 0xFF000000 | (i + 1);
+        }
+        mMapping = new LetterColorMapping(mLetterColors, FALLBACK_COLOR);
+    }
+
+    @Test
+    public void latinInitialsMapToOwnLetterColor() {
+        assertEquals(mLetterColors[0], mMapping.colorForName("Abhinav"));
+        assertEquals(mLetterColors[25], mMapping.colorForName("Zoe"));
+        for (char letter = 'A'; letter <= 'Z'; letter++) {
+            assertEquals(mLetterColors[letter - 'A'], mMapping.colorForCodePoint(letter));
+        }
+    }
+
+    @Test
+    public void lowercaseInitialsMapLikeUppercase() {
+        assertEquals('A', LetterColorMapping.namePlateCodePoint("abhinav"));
+        assertEquals(mMapping.colorForName("Abhinav"), mMapping.colorForName("abhinav"));
+        for (char letter = 'a'; letter <= 'z'; letter++) {
+            assertEquals(mLetterColors[letter - 'a'], mMapping.colorForCodePoint(letter));
+        }
+    }
+
+    @Test
+    public void digitsAndPunctuationAreHashedOntoLetterColors() {
+        for (String name : new String[] {"42 Wallaby Way", "0", "#hashtag", "(Ann)", "~", "_"}) {
+            int color = mMapping.colorForName(name);
+            assertTrue(name + " has no letter color", isLetterColor(color));
+            assertEquals(mMapping.colorForCodePoint(name.charAt(0)), color);
+        }
+    }
+
+    @Test
+    public void nonLatinInitialsAreHashedOntoLetterColors() {
+        for (String name : new String[] {"\u00C9lodie", "\u00E9lodie", "\u5F20\u4F1F", "\u0416\u0435\u043D\u044F", "\u05D3\u05D5\u05D3"}) {
+            int codePoint = LetterColorMapping.namePlateCodePoint(name);
+            assertEquals(Character.toUpperCase(name.codePointAt(0)), codePoint);
+            assertTrue(name + " has no letter color", isLetterColor(mMapping.colorForName(name)));
+        }
+        assertEquals(mMapping.colorForName("\u00C9lodie"), mMapping.colorForName("\u00E9lodie"));
+    }
+
+    @Test
+    public void surrogatePairIsOneInitial() {
+        String name = "\uD83D\uDE00 Smiley";
+        int codePoint = LetterColorMapping.namePlateCodePoint(name);
+
+        assertEquals(0x1F600, codePoint);
+        assertEquals("\uD83D\uDE00", LetterColorMapping.namePlateLetter(codePoint));
+        assertTrue(isLetterColor(mMapping.colorForCodePoint(codePoint)));
+    }
+
+    @Test
+    public void missingInitialGetsFallbackColor() {
+        assertEquals(LetterColorMapping.NO_INITIAL, LetterColorMapping.namePlateCodePoint(null));
+        assertEquals(LetterColorMapping.NO_INITIAL, LetterColorMapping.namePlateCodePoint(""));
+        assertEquals(FALLBACK_COLOR, mMapping.colorForName(null));
+        assertEquals(FALLBACK_COLOR, mMapping.colorForName(""));
+        assertEquals(FALLBACK_COLOR, mMapping.colorForCodePoint(LetterColorMapping.NO_INITIAL));
+        assertEquals("", LetterColorMapping.namePlateLetter(LetterColorMapping.NO_INITIAL));
+    }
+
+    @Test
+    public void whiteSpaceAndControlInitialsGetFallbackColor() {
+        assertEquals(FALLBACK_COLOR, mMapping.colorForName(" Ann"));
+        assertEquals(FALLBACK_COLOR, mMapping.colorForName("\tAnn"));
+        assertEquals(FALLBACK_COLOR, mMapping.colorForCodePoint(0));
+        assertEquals(FALLBACK_COLOR, mMapping.colorForCodePoint(0x7F));
+        assertEquals(FALLBACK_COLOR, mMapping.getFallbackColor());
+    }
+
+    @Test
+    public void hashedColorsAreStableAcrossInstances() {
+        LetterColorMapping other = new LetterColorMapping(mLetterColors, FALLBACK_COLOR);
+        for (int codePoint : new int[] {'0', '9', '#', 0xC9, 0x5F20, 0x1F600, Character.MAX_CODE_POINT}) {
+            assertEquals(mMapping.colorForCodePoint(codePoint), other.colorForCodePoint(codePoint));
+            assertEquals(mMapping.colorForCodePoint(codePoint), mMapping.colorForCodePoint(codePoint));
+        }
+    }
+
+    @Test
+    public void asciiLettersAreShared() {
+        assertSame(LetterColorMapping.namePlateLetter('A'), LetterColorMapping.namePlateLetter('A'));
+        assertEquals("A", LetterColorMapping.namePlateLetter('A'));
+    }
+
+    @Test
+    public void wrongNumberOfLetterColorsIsRejected() {
+        try {
+            new LetterColorMapping(new int[LetterColorMapping.LETTER_COUNT - 1], FALLBACK_COLOR);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void letterColorsAreCopied() {
+        mLetterColors[0] = 0;
+        assertEquals(0xFF000001, mMapping.colorForCodePoint('A'));
+    }
+
+    private boolean isLetterColor(int color) {
+        for (int letterColor : mLetterColors) {
+            if (letterColor == color) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,37 @@
+package com.pabhinav.zsrv.zstacklistview;
+
+import android.content.res.Resources;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link LetterColorResources}.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class LetterColorResourcesTest {
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void mappingIsResolvedFromColorResources() {
+        Resources resources = RuntimeEnvironment.application.getResources();
+        LetterColorMapping mapping = LetterColorResources.get(RuntimeEnvironment.application);
+
+        assertEquals(resources.getColor(R.color.A), mapping.colorForName("Abhinav"));
+        assertEquals(resources.getColor(R.color.Z), mapping.colorForName("zoe"));
+        assertEquals(resources.getColor(R.color.name_plate_fallback), mapping.colorForName(""));
+        assertEquals(resources.getColor(R.color.name_plate_fallback), mapping.getFallbackColor());
+    }
+
+    @Test
+    public void mappingIsResolvedOncePerResources() {
+        assertSame(LetterColorResources.get(RuntimeEnvironment.application),
+                LetterColorResources.get(RuntimeEnvironment.application));
+    }
+}
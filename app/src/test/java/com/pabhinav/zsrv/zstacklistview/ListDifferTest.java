@@ -0,0 +1,172 @@
+package com.pabhinav.zsrv.zstacklistview;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ListDiffer}.
+ */
+public class ListDifferTest {
+
+    /** Number of randomized list pairs diffed and replayed **/
+    private static final int RANDOM_RUNS = 500;
+
+    private static DataObject row(long id, String name) {
+        return new DataObject(id, name, "", 0);
+    }
+
+    private static List<DataObject> rows(long... ids) {
+        List<DataObject> rows = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            rows.add(row(id, "Row " + id));
+        }
+        return rows;
+    }
+
+    /**
+     * Replays dispatched updates on a copy of the old list, which has to end up equal to
+     * the new list. Updates come from the end of the list backwards, so items after an
+     * update position already are the last items of the new list : inserted and changed
+     * items are taken from there.
+     *
+     * @return updates dispatched, as "type position count" strings.
+     */
+    private static List<String> replay(List<DataObject> oldList, final List<DataObject> newList) {
+        final List<DataObject> replayed = new ArrayList<>(oldList);
+        final List<String> updates = new ArrayList<>();
+        ListDiffer.calculateDiff(oldList, newList, DataObject.ITEM_CALLBACK).dispatchUpdatesTo(new ListDiffer.ListUpdateCallback() {
+            @Override
+            public void onInserted(int position, int count) {
+                updates.add("insert " + position + " " + count);
+                int newEnd = newList.size() - (replayed.size() - position);
+                replayed.addAll(position, newList.subList(newEnd - count, newEnd));
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                updates.add("remove " + position + " " + count);
+                replayed.subList(position, position + count).clear();
+            }
+
+            @Override
+            public void onChanged(int position, int count) {
+                updates.add("change " + position + " " + count);
+                int newStart = newList.size() - (replayed.size() - position);
+                for (int i = 0; i < count; i++) {
+                    DataObject newItem = newList.get(newStart + i);
+                    assertTrue("changed item is another one", DataObject.ITEM_CALLBACK.areItemsTheSame(replayed.get(position + i), newItem));
+                    replayed.set(position + i, newItem);
+                }
+            }
+        });
+        assertEquals(newList, replayed);
+        return updates;
+    }
+
+    @Test
+    public void insertion() {
+        assertEquals(Arrays.asList("insert 1 2"), replay(rows(1, 2, 3), rows(1, 4, 5, 2, 3)));
+    }
+
+    @Test
+    public void removal() {
+        assertEquals(Arrays.asList("remove 1 2"), replay(rows(1, 2, 3, 4), rows(1, 4)));
+    }
+
+    @Test
+    public void moveIsRemovalAndInsertion() {
+        List<String> updates = replay(rows(1, 2, 3, 4), rows(2, 3, 4, 1));
+        assertEquals(2, updates.size());
+        assertTrue(updates.contains("remove 0 1"));
+        assertTrue(updates.contains("insert 4 1"));
+    }
+
+    @Test
+    public void contentChangeOfSameItem() {
+        List<DataObject> newList = rows(1, 2, 3);
+        newList.set(1, row(2, "Renamed"));
+        assertEquals(Arrays.asList("change 1 1"), replay(rows(1, 2, 3), newList));
+    }
+
+    @Test
+    public void adjacentChangesAreCoalesced() {
+        List<DataObject> newList = rows(1, 2, 3, 4);
+        newList.set(1, row(2, "Renamed"));
+        newList.set(2, row(3, "Renamed"));
+        assertEquals(Arrays.asList("change 1 2"), replay(rows(1, 2, 3, 4), newList));
+    }
+
+    @Test
+    public void equalListsHaveNoUpdate() {
+        assertTrue(replay(rows(1, 2, 3), rows(1, 2, 3)).isEmpty());
+    }
+
+    @Test
+    public void emptyLists() {
+        assertTrue(replay(rows(), rows()).isEmpty());
+        assertEquals(Arrays.asList("insert 0 3"), replay(rows(), rows(1, 2, 3)));
+        assertEquals(Arrays.asList("remove 0 3"), replay(rows(1, 2, 3), rows()));
+    }
+
+    @Test
+    public void placeholdersAreReplacedInPlace() {
+        List<DataObject> skeleton = new ArrayList<>(Collections.<DataObject>nCopies(3, null));
+
+        /** A placeholder is the same item as any row, whose content differs **/
+        assertEquals(Arrays.asList("change 0 3"), replay(skeleton, rows(1, 2, 3)));
+        assertEquals(Arrays.asList("insert 3 2", "change 0 3"), replay(skeleton, rows(1, 2, 3, 4, 5)));
+        assertTrue(replay(skeleton, new ArrayList<>(skeleton)).isEmpty());
+    }
+
+    @Test
+    public void randomizedUpdatesReplayToNewList() {
+        Random random = new Random(42);
+        for (int run = 0; run < RANDOM_RUNS; run++) {
+            List<DataObject> oldList = randomRows(random, random.nextInt(40));
+            List<DataObject> newList = new ArrayList<>(oldList);
+
+            /** Removals, insertions, moves and content changes, in random amounts **/
+            for (int i = random.nextInt(5); i > 0 && !newList.isEmpty(); i--) {
+                newList.remove(random.nextInt(newList.size()));
+            }
+            for (int i = random.nextInt(5); i > 0; i--) {
+                newList.add(random.nextInt(newList.size() + 1), row(1000 + run * 10 + i, "Inserted " + i));
+            }
+            for (int i = random.nextInt(3); i > 0 && !newList.isEmpty(); i--) {
+                newList.add(random.nextInt(newList.size()), newList.remove(random.nextInt(newList.size())));
+            }
+            for (int i = random.nextInt(4); i > 0 && !newList.isEmpty(); i--) {
+                int position = random.nextInt(newList.size());
+                DataObject changed = newList.get(position);
+                if (changed != null) {
+                    newList.set(position, row(changed.getId(), changed.getName() + " changed"));
+                }
+            }
+
+            try {
+                replay(oldList, newList);
+            } catch (AssertionError e) {
+                throw new AssertionError("run " + run + " : " + oldList + " -> " + newList, e);
+            }
+        }
+    }
+
+    /**
+     * @return rows of distinct ids in random order, with a few placeholders.
+     */
+    private static List<DataObject> randomRows(Random random, int size) {
+        List<DataObject> rows = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            rows.add(random.nextInt(20) == 0 ? null : row(i, "Row " + i));
+        }
+        Collections.shuffle(rows, random);
+        return rows;
+    }
+}
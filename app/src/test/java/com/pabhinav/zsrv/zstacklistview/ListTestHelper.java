@@ -0,0 +1,120 @@
+package com.pabhinav.zsrv.zstacklistview;
+
+import android.app.Activity;
+import android.view.View;
+
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Helpers shared by tests of the list.
+ */
+final class ListTestHelper {
+
+    /** Size of the simulated screen, in pixels **/
+    static final int SCREEN_WIDTH = 480;
+    static final int SCREEN_HEIGHT = 800;
+
+    /** How long to wait for background work **/
+    static final long TIMEOUT_MILLIS = 30000;
+
+    private ListTestHelper() {
+    }
+
+    /**
+     * Runs work on {@link ListExecutors#background()}, failing on any exception it throws.
+     *
+     * @param work work posting background tasks.
+     */
+    static void runDrainingBackground(Runnable work) throws InterruptedException {
+        final List<Throwable> uncaught = Collections.synchronizedList(new ArrayList<Throwable>());
+        Thread.UncaughtExceptionHandler previousHandler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+            @Override
+            public void uncaughtException(Thread thread, Throwable throwable) {
+                uncaught.add(throwable);
+            }
+        });
+        try {
+            work.run();
+            drainBackground();
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(previousHandler);
+        }
+        if (!uncaught.isEmpty()) {
+            throw new AssertionError("background task failed : " + uncaught.get(0), uncaught.get(0));
+        }
+    }
+
+    /**
+     * Waits for every task submitted to {@link ListExecutors#background()} so far to end :
+     * every thread of the pool is made to wait for the others, so each has finished its
+     * previous task. Threads a task killed meanwhile are waited for too, so that their
+     * exception has been reported.
+     */
+    static void drainBackground() throws InterruptedException {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ListExecutors.background();
+        int threadCount = executor.getCorePoolSize();
+        final CountDownLatch started = new CountDownLatch(threadCount);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Set<Thread> barrierThreads = Collections.synchronizedSet(new HashSet<Thread>());
+        for (int i = 0; i < threadCount; i++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    barrierThreads.add(Thread.currentThread());
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+        try {
+            assertTrue("background tasks still running", started.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        } finally {
+            release.countDown();
+        }
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("ZStackList #") && !barrierThreads.contains(thread)) {
+                thread.join(TIMEOUT_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Runs pending main thread work, then lays the screen out, applying pending adapter updates.
+     */
+    static void layout(Activity activity) {
+        ShadowLooper.idleMainLooper();
+        View decorView = activity.getWindow().getDecorView();
+        decorView.measure(View.MeasureSpec.makeMeasureSpec(SCREEN_WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(SCREEN_HEIGHT, View.MeasureSpec.EXACTLY));
+        decorView.layout(0, 0, SCREEN_WIDTH, SCREEN_HEIGHT);
+    }
+
+    /**
+     * Waits for rows generated in background to be swapped in.
+     */
+    static void waitForData(MainActivity activity) throws InterruptedException {
+        /** Robolectric clock does not advance by itself, use wall clock **/
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (activity.getStartupTimings().getDataReadyTime() == StartupTimings.NOT_REACHED) {
+            assertTrue("data not ready in time", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+            ShadowLooper.idleMainLooper();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.pabhinav.zsrv.zstacklistview;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link MappedDataFile} and {@link MappedDataFileWriter}.
+ */
+public class MappedDataFileTest {
+
+    private File mFile;
+
+    @Before
+    public void setUp() throws IOException {
+        mFile = File.createTempFile("rows", ".bin");
+    }
+
+    @After
+    public void tearDown() {
+        mFile.delete();
+    }
+
+    @Test
+    public void rowsRoundTrip() throws IOException {
+        ColumnarDataStore store = new ColumnarDataStore();
+        for (int i = 0; i < 1000; i++) {
+            store.add(i * 3, DummyData.dummyNameAt(i), DummyData.dummyLocationAt(i), 1000L * i);
+        }
+        store.add(5000, "Zo\u00eb \u5f20", null, RelativeTimeFormatter.NO_TIME, "file:///avatars/5000.png");
+        MappedDataFileWriter.write(mFile, store);
+
+        MappedDataFile mappedDataFile = MappedDataFile.open(mFile);
+        assertEquals(1001, mappedDataFile.size());
+        assertEquals(store.getDistinctNameCount() + store.getDistinctLocationCount() + store.getDistinctAvatarUriCount(),
+                mappedDataFile.getStringCount());
+        for (int i = 0; i < store.size(); i++) {
+            assertEquals(store.getId(i), mappedDataFile.getId(i));
+            assertEquals(store.getName(i), mappedDataFile.getName(i));
+            assertEquals(store.getLocation(i), mappedDataFile.getLocation(i));
+            assertEquals(store.getCheckInTime(i), mappedDataFile.getCheckInTime(i));
+            assertEquals(store.getAvatarUri(i), mappedDataFile.getAvatarUri(i));
+        }
+        assertNull(mappedDataFile.getLocation(1000));
+        assertNull(mappedDataFile.getAvatarUri(0));
+        assertEquals("Zo\u00eb \u5f20", mappedDataFile.asList().get(1000).getName());
+        assertEquals("file:///avatars/5000.png", mappedDataFile.asList().get(1000).getAvatarUri());
+    }
+
+    @Test
+    public void emptyListRoundTrips() throws IOException {
+        MappedDataFileWriter.write(mFile, new ArrayList<DataObject>());
+
+        List<DataObject> rows = MappedDataFile.open(mFile).asList();
+        assertEquals(0, rows.size());
+    }
+
+    @Test
+    public void avatarUriOfListRowsRoundTrips() throws IOException {
+        List<DataObject> rows = new ArrayList<>();
+        rows.add(new DataObject(1, "Joan Kim", "Korea", 0, "content://avatars/1"));
+        rows.add(new DataObject(2, "Sean White", "Korea", 0));
+        MappedDataFileWriter.write(mFile, rows);
+
+        assertEquals(rows, MappedDataFile.open(mFile).asList());
+    }
+
+    @Test
+    public void olderVersionIsRejected() throws IOException {
+        List<DataObject> rows = new ArrayList<>();
+        rows.add(new DataObject(1, "Joan Kim", "Korea", 0));
+        MappedDataFileWriter.write(mFile, rows);
+
+        /** Files written before avatar uris were stored **/
+        RandomAccessFile randomAccessFile = new RandomAccessFile(mFile, "rw");
+        randomAccessFile.seek(4);
+        randomAccessFile.writeInt(MappedDataFile.VERSION - 1);
+        randomAccessFile.close();
+
+        try {
+            MappedDataFile.open(mFile);
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void truncatedFileIsRejected() throws IOException {
+        List<DataObject> rows = new ArrayList<>();
+        rows.add(new DataObject(1, "Joan Kim", "Korea", 0));
+        MappedDataFileWriter.write(mFile, rows);
+        RandomAccessFile randomAccessFile = new RandomAccessFile(mFile, "rw");
+        randomAccessFile.setLength(randomAccessFile.length() - 1);
+        randomAccessFile.close();
+
+        try {
+            MappedDataFile.open(mFile);
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void corruptedStringBoundsAreRejected() throws IOException {
+        List<DataObject> rows = new ArrayList<>();
+        rows.add(new DataObject(1, "Joan Kim", "Korea", 0));
+        MappedDataFileWriter.write(mFile, rows);
+
+        /** Start of the name past its end **/
+        RandomAccessFile randomAccessFile = new RandomAccessFile(mFile, "rw");
+        randomAccessFile.seek(MappedDataFile.HEADER_SIZE + MappedDataFile.NAME_OFFSET);
+        int nameReference = randomAccessFile.readInt();
+        randomAccessFile.seek(MappedDataFile.HEADER_SIZE + MappedDataFile.ROW_SIZE + 4 * nameReference);
+        randomAccessFile.writeInt(1000);
+        randomAccessFile.close();
+
+        MappedDataFile mappedDataFile = MappedDataFile.open(mFile);
+        try {
+            mappedDataFile.getName(0);
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+}
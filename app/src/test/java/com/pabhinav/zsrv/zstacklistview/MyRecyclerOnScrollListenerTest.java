@@ -0,0 +1,116 @@
+package com.pabhinav.zsrv.zstacklistview;
+
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link MyRecyclerOnScrollListener}, driving the masked tile stacking effect
+ * over the list of {@link MainActivity}, including a guard against allocations on the
+ * scroll path.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class MyRecyclerOnScrollListenerTest {
+
+    /** Scroll callbacks per measured run of the allocation guard **/
+    private static final int CALLBACKS_PER_RUN = 20000;
+
+    /** Number of measured runs of the allocation guard **/
+    private static final int MEASURED_RUNS = 5;
+
+    private MainActivity mActivity;
+    private RecyclerView mRecyclerView;
+    private MyRecyclerViewAdapter mAdapter;
+    private MyRecyclerOnScrollListener mScrollListener;
+    private int mTileHeight;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        mActivity = Robolectric.buildActivity(MainActivity.class).create().start().resume().visible().get();
+        ListTestHelper.waitForData(mActivity);
+        ListTestHelper.layout(mActivity);
+        mRecyclerView = (RecyclerView) mActivity.findViewById(R.id.my_recycler_view);
+        mAdapter = (MyRecyclerViewAdapter) mRecyclerView.getAdapter();
+        mScrollListener = new MyRecyclerOnScrollListener((LinearLayoutManager) mRecyclerView.getLayoutManager(),
+                mRecyclerView, mActivity);
+        mTileHeight = mActivity.getResources().getDimensionPixelSize(R.dimen.tile_height);
+
+        /** Half way through the second tile, its item being at the top **/
+        mRecyclerView.scrollBy(0, mTileHeight + mTileHeight / 2);
+        ListTestHelper.layout(mActivity);
+        mScrollListener.onScrolled(mRecyclerView, 0, 0);
+    }
+
+    @After
+    public void tearDown() {
+        mScrollListener.release();
+    }
+
+    @Test
+    public void tilesBoundBelowTopItemAreVisible() {
+        assertEquals(0, holderAt(1).mItemView.getAlpha(), 0);
+
+        holderAt(2).mItemView.setAlpha(0);
+        mAdapter.notifyItemRangeChanged(1, 2);
+        ListTestHelper.layout(mActivity);
+
+        /** Top item as last seen by the listener stays hidden, the one below is shown **/
+        assertEquals(0, holderAt(1).mItemView.getAlpha(), 0);
+        assertEquals(1, holderAt(2).mItemView.getAlpha(), 0);
+    }
+
+    @Test
+    public void steadyStateScrollDoesNotAllocate() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        Assume.assumeTrue(allocationMXBean.isThreadAllocatedMemorySupported());
+        allocationMXBean.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+
+        /** Warm up, so that measured runs are compiled code **/
+        for (int i = 0; i < 10 * CALLBACKS_PER_RUN; i++) {
+            mScrollListener.onScrolled(mRecyclerView, 0, 1);
+        }
+
+        /**
+         * The list is scrolled between runs, within the same top item, and only scroll callbacks
+         * are measured. The JVM itself may allocate on this thread now and then, e.g. while
+         * compiling : keep the quietest run, and allow less than a byte per callback, where a
+         * single object per callback would be sixteen bytes at least.
+         */
+        long allocated = Long.MAX_VALUE;
+        for (int run = 0; run < MEASURED_RUNS; run++) {
+            mRecyclerView.scrollBy(0, (run % 2 == 0) ? 1 : -1);
+            long before = allocationMXBean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < CALLBACKS_PER_RUN; i++) {
+                mScrollListener.onScrolled(mRecyclerView, 0, 1);
+            }
+            allocated = Math.min(allocated, allocationMXBean.getThreadAllocatedBytes(threadId) - before);
+        }
+
+        assertTrue("Bytes allocated over " + CALLBACKS_PER_RUN + " scroll callbacks : " + allocated,
+                allocated < CALLBACKS_PER_RUN);
+    }
+
+    private MyRecyclerViewAdapter.DataObjectHolder holderAt(int position) {
+        MyRecyclerViewAdapter.DataObjectHolder holder =
+                (MyRecyclerViewAdapter.DataObjectHolder) mRecyclerView.findViewHolderForAdapterPosition(position);
+        assertNotNull("no holder at " + position, holder);
+        return holder;
+    }
+}
@@ -0,0 +1,128 @@
+package com.pabhinav.zsrv.zstacklistview;
+
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link MyRecyclerViewAdapter}, hosted in {@link MainActivity} so that
+ * the list is configured as it ships.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class MyRecyclerViewAdapterTest {
+
+    private MainActivity mActivity;
+    private RecyclerView mRecyclerView;
+    private MyRecyclerViewAdapter mAdapter;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        mActivity = Robolectric.buildActivity(MainActivity.class).create().start().resume().visible().get();
+        ListTestHelper.waitForData(mActivity);
+        mRecyclerView = (RecyclerView) mActivity.findViewById(R.id.my_recycler_view);
+        mAdapter = (MyRecyclerViewAdapter) mRecyclerView.getAdapter();
+        ListTestHelper.layout(mActivity);
+    }
+
+    @Test
+    public void itemChangeUpdatesSameHolderInPlace() {
+        int position = 1;
+        MyRecyclerViewAdapter.DataObjectHolder holder = holderAt(position);
+        DataObject row = mAdapter.getItem(position);
+
+        /** Left alone by a {@link MyRecyclerViewAdapter.ItemChange#LOCATION} change, overwritten by a full bind **/
+        holder.nameTextView.setText("unchanged");
+
+        mAdapter.updateItem(position, new DataObject.Builder(row).setLocation("Somewhere else").build());
+        ListTestHelper.layout(mActivity);
+
+        assertSame(holder, holderAt(position));
+        assertEquals("Somewhere else", holder.locationTextView.getText().toString());
+        assertEquals("unchanged", holder.nameTextView.getText().toString());
+    }
+
+    @Test
+    public void deferredTextsAreCaughtUpInPlace() {
+        mAdapter.setLightweightBinding(true);
+        mAdapter.notifyItemRangeChanged(0, mAdapter.getItemCount());
+        ListTestHelper.layout(mActivity);
+        MyRecyclerViewAdapter.DataObjectHolder holder = holderAt(1);
+        assertTrue(holder.mTextsDeferred);
+        assertEquals("", holder.nameTextView.getText().toString());
+
+        mAdapter.setLightweightBinding(false);
+        ListTestHelper.layout(mActivity);
+
+        assertSame(holder, holderAt(1));
+        assertFalse(holder.mTextsDeferred);
+        assertEquals(holder.mBindModel.displayName, holder.nameTextView.getText().toString());
+        assertEquals(holder.mBindModel.location, holder.locationTextView.getText().toString());
+    }
+
+    @Test
+    public void rowsChangedWhileSearchingAreKeptOnceQueryCleared() throws InterruptedException {
+        int rowCount = mAdapter.getItemCount();
+        NameSearcher nameSearcher = mActivity.getNameSearcher();
+        nameSearcher.search("Zq");
+        waitForItemCount(0);
+
+        /** Highest id a data source may give, out of the range of shipped rows **/
+        long addedId = DataObject.GENERATED_ID_START - 1;
+        RowChangeBatch batch = new RowChangeBatch();
+        batch.put(new DataObject(addedId, "Zqx Added", "Nowhere", 0));
+        mAdapter.applyChanges(batch, SectionIndex.SECTION_ORDER);
+
+        /** Filtered again with the added row **/
+        waitForItemCount(1);
+        assertEquals("Zqx Added", mAdapter.getItem(0).getName());
+
+        nameSearcher.search("");
+        waitForItemCount(rowCount + 1);
+        assertNotEquals(RecyclerView.NO_POSITION, mAdapter.findPosition(addedId, 0));
+    }
+
+    @Test
+    public void skeletonOfPlaceholdersIsProjectedSafely() throws InterruptedException {
+        ListTestHelper.runDrainingBackground(new Runnable() {
+            @Override
+            public void run() {
+                ArrayList<DataObject> skeleton = new ArrayList<>(Collections.<DataObject>nCopies(8, null));
+                new MyRecyclerViewAdapter(mActivity, skeleton, new LinearLayoutManager(mActivity));
+            }
+        });
+    }
+
+    private MyRecyclerViewAdapter.DataObjectHolder holderAt(int position) {
+        MyRecyclerViewAdapter.DataObjectHolder holder =
+                (MyRecyclerViewAdapter.DataObjectHolder) mRecyclerView.findViewHolderForAdapterPosition(position);
+        assertNotNull("no holder at " + position, holder);
+        return holder;
+    }
+
+    /**
+     * Waits for a search, run in background, to publish its rows.
+     */
+    private void waitForItemCount(int itemCount) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + ListTestHelper.TIMEOUT_MILLIS;
+        while (mAdapter.getItemCount() != itemCount) {
+            assertTrue("item count " + mAdapter.getItemCount() + " instead of " + itemCount,
+                    System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+            ShadowLooper.idleMainLooper();
+        }
+        ListTestHelper.layout(mActivity);
+    }
+}
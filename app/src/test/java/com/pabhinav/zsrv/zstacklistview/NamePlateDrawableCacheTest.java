@@ -0,0 +1,96 @@
+package com.pabhinav.zsrv.zstacklistview;
+
+import android.graphics.Bitmap;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link NamePlateDrawableCache}.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class NamePlateDrawableCacheTest {
+
+    private static final int RED = 0xFFF44336;
+    private static final int BLUE = 0xFF2196F3;
+
+    private View mFirstNamePlate;
+    private View mSecondNamePlate;
+
+    @Before
+    public void setUp() {
+        mFirstNamePlate = new View(RuntimeEnvironment.application);
+        mSecondNamePlate = new View(RuntimeEnvironment.application);
+    }
+
+    @Test
+    public void tilesOfSameColorShareOneState() {
+        assertSame(NamePlateDrawableCache.getCircleState(RED), NamePlateDrawableCache.getCircleState(RED));
+        assertNotSame(NamePlateDrawableCache.getCircleState(RED), NamePlateDrawableCache.getCircleState(BLUE));
+
+        NamePlateDrawableCache.applyNamePlate(mFirstNamePlate, RED);
+        NamePlateDrawableCache.applyNamePlate(mSecondNamePlate, RED);
+
+        assertNotSame(mFirstNamePlate.getBackground(), mSecondNamePlate.getBackground());
+        assertSame(NamePlateDrawableCache.getCircleState(RED), background(mFirstNamePlate).mCircleState);
+        assertSame(NamePlateDrawableCache.getCircleState(RED), background(mSecondNamePlate).mCircleState);
+    }
+
+    @Test
+    public void rebindSwapsStateOfSameDrawable() {
+        NamePlateDrawableCache.applyNamePlate(mFirstNamePlate, RED);
+        CircleDrawable drawable = background(mFirstNamePlate);
+
+        NamePlateDrawableCache.applyNamePlate(mFirstNamePlate, BLUE);
+
+        assertSame(drawable, mFirstNamePlate.getBackground());
+        assertSame(NamePlateDrawableCache.getCircleState(BLUE), drawable.mCircleState);
+        assertEquals(BLUE, drawable.getColor());
+    }
+
+    @Test
+    public void mutatedDrawableDoesNotChangeSharedState() {
+        NamePlateDrawableCache.applyNamePlate(mFirstNamePlate, RED);
+        NamePlateDrawableCache.applyNamePlate(mSecondNamePlate, RED);
+        CircleDrawable.CircleState sharedState = NamePlateDrawableCache.getCircleState(RED);
+
+        background(mFirstNamePlate).mutate().setAlpha(128);
+
+        assertNotSame(sharedState, background(mFirstNamePlate).mCircleState);
+        assertEquals(128, background(mFirstNamePlate).mCircleState.mPaint.getAlpha());
+        assertEquals(255, sharedState.mPaint.getAlpha());
+        assertSame(sharedState, background(mSecondNamePlate).mCircleState);
+
+        /** Rebinding hands the shared state back **/
+        NamePlateDrawableCache.applyNamePlate(mFirstNamePlate, RED);
+        assertSame(sharedState, background(mFirstNamePlate).mCircleState);
+    }
+
+    @Test
+    public void avatarIsKeptPerDrawable() {
+        NamePlateDrawableCache.applyNamePlate(mFirstNamePlate, RED);
+        NamePlateDrawableCache.applyNamePlate(mSecondNamePlate, RED);
+
+        NamePlateDrawableCache.applyAvatar(mFirstNamePlate, Bitmap.createBitmap(8, 8, Bitmap.Config.ARGB_8888));
+
+        assertTrue(NamePlateDrawableCache.hasAvatar(mFirstNamePlate));
+        assertFalse(NamePlateDrawableCache.hasAvatar(mSecondNamePlate));
+        assertSame(background(mFirstNamePlate).mCircleState, background(mSecondNamePlate).mCircleState);
+
+        NamePlateDrawableCache.applyAvatar(mFirstNamePlate, null);
+        assertFalse(NamePlateDrawableCache.hasAvatar(mFirstNamePlate));
+    }
+
+    private static CircleDrawable background(View namePlateView) {
+        assertTrue(namePlateView.getBackground() instanceof CircleDrawable);
+        return (CircleDrawable) namePlateView.getBackground();
+    }
+}
@@ -0,0 +1,66 @@
+package com.pabhinav.zsrv.zstacklistview;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link NameSearchIndex}.
+ */
+public class NameSearchIndexTest {
+
+    private static final NameSearchIndex.CancellationSignal CANCELED = new NameSearchIndex.CancellationSignal() {
+        @Override
+        public boolean isCanceled() {
+            return true;
+        }
+    };
+
+    private static NameSearchIndex indexOf(String... names) {
+        List<DataObject> rows = new ArrayList<>();
+        for (String name : names) {
+            rows.add((name == null) ? null : new DataObject(name, "", 0));
+        }
+        return NameSearchIndex.build(rows, null);
+    }
+
+    @Test
+    public void queryMatchesStartOfAnyWordIgnoringCase() {
+        NameSearchIndex index = indexOf("Lionel Messi", "Joan Kim", null, "Messiah Jones", "Bruce Brown", "Ellie Johnson");
+
+        assertArrayEquals(new int[] {0, 3}, index.search("mess", null, null).getPositions());
+        assertArrayEquals(new int[] {1, 3, 5}, index.search(" J", null, null).getPositions());
+        assertArrayEquals(new int[] {4}, index.search("BRUCE BR", null, null).getPositions());
+        assertArrayEquals(new int[] {}, index.search("essi", null, null).getPositions());
+        assertArrayEquals(new int[] {0, 1, 3, 4, 5}, index.search("", null, null).getPositions());
+    }
+
+    @Test
+    public void narrowingGivesSameResultAsFullSearch() {
+        List<DataObject> rows = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            rows.add(new DataObject(DummyData.dummyNameAt(i) + " " + i, "", 0));
+        }
+        NameSearchIndex index = NameSearchIndex.build(rows, null);
+
+        NameSearchIndex.Match match = null;
+        for (String query : Arrays.asList("j", "jo", "joa", "joan", "joan k", "joan kim 1")) {
+            match = index.search(query, match, null);
+            assertArrayEquals(query, index.search(query, null, null).getPositions(), match.getPositions());
+        }
+        assertTrue(match.getPositions().length > 0);
+    }
+
+    @Test
+    public void canceledWorkReturnsNull() {
+        List<DataObject> rows = new ArrayList<>();
+        rows.add(new DataObject("Sean White", "", 0));
+
+        assertNull(NameSearchIndex.build(rows, CANCELED));
+        assertNull(NameSearchIndex.build(rows, null).search("s", null, CANCELED));
+    }
+}
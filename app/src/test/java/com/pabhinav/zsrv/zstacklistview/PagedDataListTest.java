@@ -0,0 +1,61 @@
+package com.pabhinav.zsrv.zstacklistview;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link PagedDataList}.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class PagedDataListTest {
+
+    private static final int PAGE_SIZE = 10;
+
+    /** How long to wait for pages loaded in background **/
+    private static final long LOAD_TIMEOUT_MILLIS = 10000;
+
+    @Test
+    public void failedPageIsLoadedAgain() throws InterruptedException {
+        final AtomicInteger loadCount = new AtomicInteger();
+        PagedDataList list = new PagedDataList(new PagedDataSource() {
+            @Override
+            public int getCount() {
+                return 3 * PAGE_SIZE;
+            }
+
+            @Override
+            public List<DataObject> loadRange(int startPosition, int loadSize) {
+                if (startPosition == 0 && loadCount.getAndIncrement() == 0) {
+                    throw new IllegalStateException("source not ready");
+                }
+                List<DataObject> rows = new ArrayList<>(loadSize);
+                for (int i = 0; i < loadSize; i++) {
+                    rows.add(new DataObject(startPosition + i, "Row " + (startPosition + i), "Here", 0));
+                }
+                return rows;
+            }
+        }, PAGE_SIZE, PagedDataList.DEFAULT_MAX_PAGES, new LetterColorMapping(new int[26], 0));
+
+        /** Real clock, pages load on background threads **/
+        long deadline = System.currentTimeMillis() + LOAD_TIMEOUT_MILLIS;
+        DataObject row = list.get(0);
+        while (row == null) {
+            assertTrue("page never loaded, " + loadCount.get() + " attempts", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+            ShadowLooper.idleMainLooper();
+            row = list.get(0);
+        }
+        assertEquals("Row 0", row.getName());
+        assertEquals(2, loadCount.get());
+    }
+}
@@ -0,0 +1,65 @@
+package com.pabhinav.zsrv.zstacklistview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link RelativeTimeFormatter}.
+ */
+public class RelativeTimeFormatterTest {
+
+    private static final long NOW = 1450000000000L;
+    private static final long SECOND = 1000L;
+    private static final long MINUTE = 60 * SECOND;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+
+    private final RelativeTimeFormatter mFormatter = RelativeTimeFormatter.getDefault();
+
+    @Test
+    public void labelsFollowAge() {
+        assertEquals("Now", mFormatter.format(NOW - 59 * SECOND, NOW));
+        assertEquals("1min ago", mFormatter.format(NOW - MINUTE, NOW));
+        assertEquals("59min ago", mFormatter.format(NOW - HOUR + 1, NOW));
+        assertEquals("3hr ago", mFormatter.format(NOW - 3 * HOUR - 5 * MINUTE, NOW));
+        assertEquals("yesterday", mFormatter.format(NOW - DAY - HOUR, NOW));
+        assertEquals("5days ago", mFormatter.format(NOW - 5 * DAY, NOW));
+        assertEquals("2month ago", mFormatter.format(NOW - 61 * DAY, NOW));
+        assertEquals("2year ago", mFormatter.format(NOW - 731 * DAY, NOW));
+        assertEquals("long time ago", mFormatter.format(NOW - 4000 * DAY, NOW));
+    }
+
+    @Test
+    public void monthsEndWhereFirstYearStarts() {
+        assertEquals("11month ago", mFormatter.format(NOW - 330 * DAY, NOW));
+        assertEquals("11month ago", mFormatter.format(NOW - 364 * DAY, NOW));
+        assertEquals("1year ago", mFormatter.format(NOW - 365 * DAY, NOW));
+        assertEquals(NOW + 1, mFormatter.nextChangeMillis(NOW - 365 * DAY + 1, NOW));
+    }
+
+    @Test
+    public void futureAndMissingTimes() {
+        assertEquals("Now", mFormatter.format(NOW + HOUR, NOW));
+        assertEquals(RelativeTimeFormatter.NO_BUCKET, mFormatter.bucketOf(RelativeTimeFormatter.NO_TIME, NOW));
+        assertEquals("", mFormatter.format(RelativeTimeFormatter.NO_TIME, NOW));
+        assertEquals(Long.MAX_VALUE, mFormatter.nextChangeMillis(RelativeTimeFormatter.NO_TIME, NOW));
+    }
+
+    @Test
+    public void sameBucketSharesLabelInstance() {
+        assertSame(mFormatter.format(NOW - 5 * MINUTE, NOW), mFormatter.format(NOW - 5 * MINUTE - 30 * SECOND, NOW));
+        assertEquals(mFormatter.bucketOf(NOW - 2 * HOUR, NOW), mFormatter.bucketOf(NOW - 2 * HOUR - 59 * MINUTE, NOW));
+    }
+
+    @Test
+    public void nextChangeIsStartOfNextBucket() {
+        long checkIn = NOW - 5 * MINUTE - 20 * SECOND;
+        long nextChange = mFormatter.nextChangeMillis(checkIn, NOW);
+
+        assertEquals(checkIn + 6 * MINUTE, nextChange);
+        assertEquals(mFormatter.bucketOf(checkIn, NOW), mFormatter.bucketOf(checkIn, nextChange - 1));
+        assertEquals("6min ago", mFormatter.format(checkIn, nextChange));
+        assertEquals(Long.MAX_VALUE, mFormatter.nextChangeMillis(NOW - 5000 * DAY, NOW));
+    }
+}
@@ -0,0 +1,135 @@
+package com.pabhinav.zsrv.zstacklistview;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link RowChangeBatch}.
+ */
+public class RowChangeBatchTest {
+
+    private static final Comparator<DataObject> BY_NAME = new Comparator<DataObject>() {
+        @Override
+        public int compare(DataObject lhs, DataObject rhs) {
+            return lhs.getName().compareTo(rhs.getName());
+        }
+    };
+
+    private static List<DataObject> rows(String... names) {
+        List<DataObject> rows = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            rows.add(new DataObject(i, names[i], "", 0));
+        }
+        return rows;
+    }
+
+    private static String names(List<DataObject> rows) {
+        StringBuilder names = new StringBuilder();
+        for (DataObject row : rows) {
+            names.append(names.length() == 0 ? "" : ",").append(row.getName());
+        }
+        return names.toString();
+    }
+
+    /**
+     * Replays updates of a result on a copy of the old list, which has to end up as the new list.
+     */
+    private static int replay(List<DataObject> oldRows, RowChangeBatch.Result result) {
+        final List<DataObject> replayed = new ArrayList<>(oldRows);
+        final int[] replaced = new int[1];
+        result.dispatchUpdatesTo(new RowChangeBatch.Callback() {
+            @Override
+            public void onInserted(int position, List<DataObject> rows) {
+                replayed.addAll(position, rows);
+            }
+
+            @Override
+            public void onRemoved(int position, List<DataObject> rows) {
+                for (DataObject row : rows) {
+                    assertSame(row, replayed.remove(position));
+                }
+            }
+
+            @Override
+            public void onReplaced(int position, DataObject oldRow, DataObject newRow) {
+                assertSame(oldRow, replayed.set(position, newRow));
+                replaced[0]++;
+            }
+        });
+        assertEquals(result.getRows(), replayed);
+        return replaced[0];
+    }
+
+    @Test
+    public void changesToSameIdCoalesce() {
+        RowChangeBatch batch = new RowChangeBatch();
+        batch.put(new DataObject(10, "x", "", 0));
+        batch.remove(10);
+        batch.put(new DataObject(1, "b1", "", 0));
+        batch.put(new DataObject(1, "b2", "", 0));
+        batch.remove(2);
+        batch.put(new DataObject(2, "c2", "", 0));
+        assertEquals(3, batch.size());
+
+        List<DataObject> oldRows = rows("a", "b", "c");
+        RowChangeBatch.Result result = batch.applyTo(oldRows, null);
+
+        assertEquals("a,b2,c2", names(result.getRows()));
+        assertEquals(2, replay(oldRows, result));
+        assertEquals("a,b,c", names(oldRows));
+    }
+
+    @Test
+    public void insertionsAndRemovalsAreRanges() {
+        RowChangeBatch batch = new RowChangeBatch();
+        batch.remove(1);
+        batch.remove(2);
+        batch.put(new DataObject(20, "e", "", 0));
+        batch.put(new DataObject(21, "bb", "", 0));
+        batch.put(new DataObject(22, "ba", "", 0));
+
+        List<DataObject> oldRows = rows("a", "b", "c", "d");
+        RowChangeBatch.Result result = batch.applyTo(oldRows, BY_NAME);
+
+        assertEquals("a,ba,bb,d,e", names(result.getRows()));
+        assertEquals(4, result.getUpdateCount());
+        replay(oldRows, result);
+    }
+
+    @Test
+    public void rowsAreAppendedWithoutOrder() {
+        RowChangeBatch batch = new RowChangeBatch();
+        batch.put(new DataObject(20, "z", "", 0));
+        batch.put(new DataObject(21, "a", "", 0));
+
+        List<DataObject> oldRows = rows("m", null);
+        oldRows.set(1, null);
+        RowChangeBatch.Result result = batch.applyTo(oldRows, null);
+
+        assertEquals(4, result.getRows().size());
+        assertNull(result.getRows().get(1));
+        assertEquals("z", result.getRows().get(2).getName());
+        assertEquals("a", result.getRows().get(3).getName());
+        assertEquals(1, result.getUpdateCount());
+        replay(oldRows, result);
+    }
+
+    @Test
+    public void renamedRowMovesToItsPlace() {
+        RowChangeBatch batch = new RowChangeBatch();
+        batch.put(new DataObject(0, "d", "", 0));
+        batch.put(new DataObject(1, "b", "here", 0));
+
+        List<DataObject> oldRows = rows("a", "b", "c");
+        RowChangeBatch.Result result = batch.applyTo(oldRows, BY_NAME);
+
+        assertEquals("b,c,d", names(result.getRows()));
+        assertEquals("here", result.getRows().get(0).getLocation());
+        assertEquals(1, replay(oldRows, result));
+    }
+}
@@ -0,0 +1,236 @@
+package com.pabhinav.zsrv.zstacklistview;
+
+import android.content.Intent;
+import android.os.SystemClock;
+import android.support.v7.widget.RecyclerView;
+import android.view.MotionEvent;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Headless macro benchmark of the stacking list : hosts {@link MainActivity}, then
+ * drives drag and fling sequences through its {@link RecyclerView}, so that binding,
+ * scroll listeners and stacking run for real.
+ * <p>
+ *     Drags are touch {@link MotionEvent} sequences, flings go through
+ *     {@link RecyclerView#fling(int, int)} : the list goes through its dragging and
+ *     settling scroll states as on a device. Every simulated frame advances the
+ *     Robolectric clock, running the animation callbacks of the fling.
+ * </p>
+ * <p>
+ *     Binds, view creations and scroll callbacks are counted by {@link ScrollMetrics},
+ *     wall time and allocated bytes (of the test thread, which is the main thread) are
+ *     measured around every simulated frame. The run fails when an average exceeds its
+ *     budget, and results are written to a report file.
+ * </p>
+ * <p>
+ *     Wall time depends on the machine and on what else runs, so the benchmark is
+ *     skipped unless enabled : plain unit test runs never depend on timing. Enable it,
+ *     and configure data set size, budgets and report file, with system properties, e.g.
+ *
+ *          ./gradlew :app:testDebugUnitTest -Dzsrv.benchmark.enabled=true -Dzsrv.benchmark.rowCount=10000
+ *                  -Dzsrv.benchmark.maxWallTimeMsPerFrame=5
+ * </p>
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class ScrollMacroBenchmarkTest {
+
+    /** Simulated frame duration **/
+    private static final long FRAME_MILLIS = 16;
+
+    /** Pause before lifting a dragging finger, so that no fling follows **/
+    private static final long HOLD_MILLIS = 200;
+
+    /** Frames after which a fling has to be over **/
+    private static final int MAX_SETTLE_FRAMES = 2000;
+
+    private static final boolean ENABLED = Boolean.getBoolean("zsrv.benchmark.enabled");
+    private static final String REPORT_FILE = System.getProperty("zsrv.benchmark.reportFile",
+            "build/reports/benchmarks/ScrollMacroBenchmark.txt");
+    private static final int ROW_COUNT = Integer.getInteger("zsrv.benchmark.rowCount", 1000);
+    private static final double MAX_BINDS_PER_FRAME = doubleProperty("zsrv.benchmark.maxBindsPerFrame", 2.0);
+    private static final long MAX_CREATED_VIEWS = Long.getLong("zsrv.benchmark.maxCreatedViews", 40);
+    private static final double MAX_WALL_TIME_MS_PER_FRAME = doubleProperty("zsrv.benchmark.maxWallTimeMsPerFrame", 20.0);
+    private static final double MAX_ALLOCATED_KB_PER_FRAME = doubleProperty("zsrv.benchmark.maxAllocatedKbPerFrame", 1024.0);
+
+    private RecyclerView mRecyclerView;
+    private long mFrameCount;
+    private long mWallTimeNanos;
+    private long mAllocatedBytes;
+    private boolean mDragged;
+    private boolean mSettled;
+
+    @Test
+    public void scrollStaysWithinBudget() throws Exception {
+        assumeTrue("benchmark not enabled, see zsrv.benchmark.enabled", ENABLED);
+        Intent intent = new Intent(RuntimeEnvironment.application, MainActivity.class)
+                .putExtra(MainActivity.EXTRA_ROW_COUNT, ROW_COUNT);
+        MainActivity activity = Robolectric.buildActivity(MainActivity.class).withIntent(intent)
+                .create().start().resume().visible().get();
+        ListTestHelper.waitForData(activity);
+        ListTestHelper.layout(activity);
+        mRecyclerView = (RecyclerView) activity.findViewById(R.id.my_recycler_view);
+        assertEquals(ROW_COUNT, mRecyclerView.getAdapter().getItemCount());
+        mRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+                mDragged |= newState == RecyclerView.SCROLL_STATE_DRAGGING;
+                mSettled |= newState == RecyclerView.SCROLL_STATE_SETTLING;
+            }
+        });
+
+        /** Warm up, then measure from a clean state **/
+        runScrollSequence();
+        mRecyclerView.scrollToPosition(0);
+        ShadowLooper.idleMainLooper();
+        ScrollMetrics.setEnabled(true);
+        ScrollMetrics.reset();
+        mFrameCount = 0;
+        mWallTimeNanos = 0;
+        mAllocatedBytes = 0;
+
+        runScrollSequence();
+        assertTrue("list never dragged", mDragged);
+        assertTrue("list never flung", mSettled);
+
+        ScrollMetrics.Snapshot snapshot = ScrollMetrics.snapshot();
+        ScrollMetrics.setEnabled(false);
+        double bindsPerFrame = (double) snapshot.getLatency(ScrollMetrics.SECTION_BIND).getTotalCount() / mFrameCount;
+        long createdViews = snapshot.getLatency(ScrollMetrics.SECTION_CREATE).getTotalCount();
+        double wallTimeMsPerFrame = mWallTimeNanos / 1e6 / mFrameCount;
+        double allocatedKbPerFrame = mAllocatedBytes / 1024.0 / mFrameCount;
+
+        writeReport(String.format(Locale.US,
+                "rows=%d%nframes=%d%nbindsPerFrame=%.3f%ncreatedViews=%d%nscrollCallbacks=%d%n"
+                        + "wallTimeMsPerFrame=%.3f%nallocatedKbPerFrame=%.1f%n",
+                ROW_COUNT, mFrameCount, bindsPerFrame, createdViews,
+                snapshot.getLatency(ScrollMetrics.SECTION_SCROLL).getTotalCount(), wallTimeMsPerFrame, allocatedKbPerFrame));
+
+        assertTrue("binds per frame " + bindsPerFrame + " over budget", bindsPerFrame <= MAX_BINDS_PER_FRAME);
+        assertTrue("created views " + createdViews + " over budget", createdViews <= MAX_CREATED_VIEWS);
+        assertTrue("wall time per frame " + wallTimeMsPerFrame + "ms over budget", wallTimeMsPerFrame <= MAX_WALL_TIME_MS_PER_FRAME);
+        assertTrue("allocated per frame " + allocatedKbPerFrame + "KB over budget", allocatedKbPerFrame <= MAX_ALLOCATED_KB_PER_FRAME);
+    }
+
+    /**
+     * Slow drag down, fling down, drag back up and fling up.
+     */
+    private void runScrollSequence() {
+        drag(120, 6);
+        fling(9000);
+        drag(120, -6);
+        fling(-9000);
+    }
+
+    /**
+     * Drags the list with a finger moving a few pixels every frame, then lifts it
+     * once still.
+     *
+     * @param dyPerFrame pixels scrolled per frame, positive to scroll down the list.
+     */
+    private void drag(int frames, int dyPerFrame) {
+        float x = ListTestHelper.SCREEN_WIDTH / 2f;
+        float y = ListTestHelper.SCREEN_HEIGHT / 2f;
+        long downTime = SystemClock.uptimeMillis();
+        frame(MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, x, y, 0));
+        for (int i = 0; i < frames; i++) {
+            y -= dyPerFrame;
+            frame(MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), MotionEvent.ACTION_MOVE, x, y, 0));
+        }
+        ShadowLooper.idleMainLooper(HOLD_MILLIS);
+        frame(MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), MotionEvent.ACTION_UP, x, y, 0));
+        settle();
+    }
+
+    /**
+     * Flings the list, then runs frames until it settles.
+     *
+     * @param velocity initial velocity, in pixels per second, positive to fling down the list.
+     */
+    private void fling(int velocity) {
+        assertTrue("fling not started", mRecyclerView.fling(0, velocity));
+        settle();
+    }
+
+    private void settle() {
+        for (int i = 0; mRecyclerView.getScrollState() != RecyclerView.SCROLL_STATE_IDLE; i++) {
+            assertTrue("list did not settle", i < MAX_SETTLE_FRAMES);
+            frame(null);
+        }
+    }
+
+    /**
+     * Dispatches a touch event, if any, then advances the clock by a frame, running
+     * main thread work due meanwhile, e.g. fling animation callbacks.
+     *
+     * @param event touch event, recycled afterwards, may be null.
+     */
+    private void frame(MotionEvent event) {
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+
+        if (event != null) {
+            mRecyclerView.dispatchTouchEvent(event);
+        }
+        ShadowLooper.idleMainLooper(FRAME_MILLIS);
+
+        mWallTimeNanos += System.nanoTime() - start;
+        mAllocatedBytes += allocatedBytes() - allocatedBefore;
+        mFrameCount++;
+        if (event != null) {
+            event.recycle();
+        }
+    }
+
+    /**
+     * Writes results to {@link #REPORT_FILE}, one property per line, replacing previous ones.
+     */
+    private static void writeReport(String report) throws IOException {
+        File file = new File(REPORT_FILE);
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(report);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * @return bytes allocated so far by this thread, or 0 if the JVM cannot tell.
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        return (value == null) ? defaultValue : Double.parseDouble(value);
+    }
+}
@@ -0,0 +1,41 @@
+package com.pabhinav.zsrv.zstacklistview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ScrollVelocityTracker}.
+ */
+public class ScrollVelocityTrackerTest {
+
+    private final ScrollVelocityTracker mTracker = new ScrollVelocityTracker(16);
+
+    @Test
+    public void firstAmountOnlyStartsSample() {
+        assertFalse(mTracker.onScrolled(1000, 500));
+        assertEquals(0f, mTracker.getVelocity(), 0f);
+    }
+
+    @Test
+    public void amountsAreAccumulatedOverSample() {
+        mTracker.onScrolled(1000, 10);
+        assertFalse(mTracker.onScrolled(1005, 20));
+        assertFalse(mTracker.onScrolled(1005, 20));
+        assertTrue(mTracker.onScrolled(1020, 40));
+        assertEquals(4000f, mTracker.getVelocity(), 0.01f);
+
+        assertTrue(mTracker.onScrolled(1040, -20));
+        assertEquals(-1000f, mTracker.getVelocity(), 0.01f);
+    }
+
+    @Test
+    public void resetForgetsSamples() {
+        mTracker.onScrolled(1000, 10);
+        mTracker.onScrolled(1020, 20);
+        mTracker.reset();
+
+        assertEquals(0f, mTracker.getVelocity(), 0f);
+        assertFalse(mTracker.onScrolled(5000, 30));
+    }
+}
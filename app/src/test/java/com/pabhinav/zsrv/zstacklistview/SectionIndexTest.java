@@ -0,0 +1,71 @@
+package com.pabhinav.zsrv.zstacklistview;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link SectionIndex}.
+ */
+public class SectionIndexTest {
+
+    private static final int A = 1;
+    private static final int B = 2;
+    private static final int C = 3;
+
+    private static List<DataObject> sortedRows(String... names) {
+        List<DataObject> rows = new ArrayList<>();
+        for (String name : names) {
+            rows.add(new DataObject(name, "", 0));
+        }
+        Collections.sort(rows, SectionIndex.SECTION_ORDER);
+        return rows;
+    }
+
+    @Test
+    public void sectionsStartWhereSortedRowsDo() {
+        List<DataObject> rows = sortedRows("carl", "Abe", "42", "Cid", "", "alice", "\u00c9mile");
+        SectionIndex sectionIndex = SectionIndex.build(rows);
+
+        assertEquals(3, sectionIndex.getCount(SectionIndex.OTHER_SECTION));
+        assertEquals(3, sectionIndex.getPositionForSection(A));
+        assertEquals("Abe", rows.get(3).getName());
+        assertEquals(5, sectionIndex.getPositionForSection(B));
+        assertEquals(0, sectionIndex.getCount(B));
+        assertEquals(5, sectionIndex.getPositionForSection(C));
+        assertEquals("carl", rows.get(5).getName());
+        assertEquals(7, sectionIndex.getPositionForSection(SectionIndex.SECTION_COUNT - 1));
+        assertEquals(7, sectionIndex.size());
+    }
+
+    @Test
+    public void sectionOfPositionSkipsEmptySections() {
+        SectionIndex sectionIndex = SectionIndex.build(sortedRows("Abe", "alice", "Cid"));
+
+        assertEquals(A, sectionIndex.getSectionForPosition(0));
+        assertEquals(A, sectionIndex.getSectionForPosition(1));
+        assertEquals(C, sectionIndex.getSectionForPosition(2));
+    }
+
+    @Test
+    public void incrementalUpdatesMatchRebuild() {
+        List<DataObject> rows = sortedRows("Abe", "Bea", "Cid", "Dan");
+        SectionIndex sectionIndex = SectionIndex.build(rows);
+
+        DataObject inserted = new DataObject("Bob", "", 0);
+        rows.add(2, inserted);
+        sectionIndex.onInserted(inserted);
+        sectionIndex.onRemoved(rows.remove(0));
+
+        SectionIndex rebuilt = SectionIndex.build(rows);
+        for (int section = 0; section < SectionIndex.SECTION_COUNT; section++) {
+            assertEquals(rebuilt.getPositionForSection(section), sectionIndex.getPositionForSection(section));
+        }
+        assertEquals(0, sectionIndex.getPositionForSection(B));
+        assertEquals(2, sectionIndex.getPositionForSection(C));
+    }
+}
@@ -0,0 +1,109 @@
+package com.pabhinav.zsrv.zstacklistview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link StackEffectEngine}.
+ */
+public class StackEffectEngineTest {
+
+    /** Height of a tile, in pixels **/
+    private static final int TILE_HEIGHT = 72;
+
+    private CountingCallback mCallback;
+    private StackEffectEngine mEngine;
+
+    @Before
+    public void setUp() {
+        mCallback = new CountingCallback();
+        mEngine = new StackEffectEngine(mCallback);
+    }
+
+    @Test
+    public void topOfListKeepsFirstItemVisible() {
+        mEngine.onLayoutState(0, 0);
+
+        assertEquals(1, mCallback.topItemChanges);
+        assertEquals(0, mCallback.lastTopPosition);
+        assertTrue(mCallback.lastVisible);
+        assertEquals(0, mCallback.lastChildIndex);
+    }
+
+    @Test
+    public void scrollingWithinSameTopItemTouchesViewsOnce() {
+        mEngine.onLayoutState(0, 0);
+        for (int top = -1; top > -TILE_HEIGHT; top--) {
+            mEngine.onLayoutState(0, top);
+        }
+
+        assertEquals(1, mCallback.topItemChanges);
+
+        /** Once when laid out, once when leaving the very top **/
+        assertEquals(2, mCallback.visibilityChanges);
+        assertFalse(mCallback.lastVisible);
+    }
+
+    @Test
+    public void scrollingDownRevealsPreviousTopItem() {
+        mEngine.onLayoutState(5, -10);
+        mEngine.onLayoutState(4, -60);
+
+        assertEquals(2, mCallback.topItemChanges);
+        assertEquals(4, mCallback.lastTopPosition);
+        assertTrue(mCallback.revealedSecondChild);
+    }
+
+    @Test
+    public void resetImitatesTopItemAgain() {
+        mEngine.onLayoutState(3, -5);
+        mEngine.reset();
+        mEngine.onLayoutState(3, -5);
+
+        assertEquals(2, mCallback.topItemChanges);
+        assertFalse(mCallback.revealedSecondChild);
+    }
+
+    @Test
+    public void invalidatedTopVisibilityIsAppliedAgain() {
+        mEngine.onLayoutState(3, -5);
+        mEngine.invalidateTopVisibility();
+        mEngine.onLayoutState(3, -5);
+
+        assertEquals(1, mCallback.topItemChanges);
+        assertEquals(2, mCallback.visibilityChanges);
+        assertFalse(mCallback.lastVisible);
+    }
+
+    /**
+     * {@link StackEffectEngine.Callback} only recording what it was asked to do.
+     */
+    private static class CountingCallback implements StackEffectEngine.Callback {
+
+        int topItemChanges;
+        int lastTopPosition = -1;
+        int visibilityChanges;
+        int lastChildIndex = -1;
+        boolean lastVisible;
+        boolean revealedSecondChild;
+
+        @Override
+        public void onTopItemChanged(int topPosition) {
+            topItemChanges++;
+            lastTopPosition = topPosition;
+        }
+
+        @Override
+        public void setChildVisible(int childIndex, boolean visible) {
+            if (childIndex == 0) {
+                visibilityChanges++;
+                lastChildIndex = childIndex;
+                lastVisible = visible;
+            } else if (childIndex == 1 && visible) {
+                revealedSecondChild = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.pabhinav.zsrv.zstacklistview;
+
+import android.app.Activity;
+import android.support.v7.widget.DefaultItemAnimator;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link StackingLayoutManager}.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class StackingLayoutManagerTest {
+
+    /** Size of the list and of its tiles, in pixels **/
+    private static final int LIST_WIDTH = 480;
+    private static final int LIST_HEIGHT = 800;
+    private static final int TILE_HEIGHT = 100;
+
+    private RecyclerView mRecyclerView;
+    private ToggledItemAnimator mItemAnimator;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        mRecyclerView = new RecyclerView(activity);
+        mRecyclerView.setLayoutManager(new StackingLayoutManager(activity));
+        mItemAnimator = new ToggledItemAnimator();
+        mRecyclerView.setItemAnimator(mItemAnimator);
+        mRecyclerView.setAdapter(new TileAdapter(20));
+        activity.setContentView(mRecyclerView);
+
+        /** First traversal attaches the list to the window, and its layout manager with it **/
+        ShadowLooper.idleMainLooper();
+        assertTrue(mRecyclerView.isAttachedToWindow());
+        mRecyclerView.measure(View.MeasureSpec.makeMeasureSpec(LIST_WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(LIST_HEIGHT, View.MeasureSpec.EXACTLY));
+        mRecyclerView.layout(0, 0, LIST_WIDTH, LIST_HEIGHT);
+    }
+
+    @Test
+    public void firstTileIsPinnedAtTheTop() {
+        assertEquals(0f, mRecyclerView.getChildAt(0).getTranslationY(), 0);
+
+        mRecyclerView.scrollBy(0, 30);
+
+        assertEquals(30f, mRecyclerView.getChildAt(0).getTranslationY(), 0);
+        for (int i = 1; i < mRecyclerView.getChildCount(); i++) {
+            assertEquals(0f, mRecyclerView.getChildAt(i).getTranslationY(), 0);
+        }
+    }
+
+    @Test
+    public void animatedTranslationsAreLeftAloneUntilAnimationsEnd() {
+        mRecyclerView.scrollBy(0, 30);
+        View pinnedTile = mRecyclerView.getChildAt(0);
+        View movingTile = mRecyclerView.getChildAt(1);
+
+        /** Translation set by a running move animation **/
+        mItemAnimator.mRunning = true;
+        movingTile.setTranslationY(12);
+        mRecyclerView.scrollBy(0, 10);
+        assertEquals(12f, movingTile.getTranslationY(), 0);
+        assertEquals(30f, pinnedTile.getTranslationY(), 0);
+
+        /** Animation ends, resetting its translation **/
+        mItemAnimator.mRunning = false;
+        movingTile.setTranslationY(0);
+        mItemAnimator.dispatchAnimationsFinished();
+
+        assertEquals(40f, pinnedTile.getTranslationY(), 0);
+        assertEquals(0f, movingTile.getTranslationY(), 0);
+    }
+
+    /**
+     * Item animator whose animations run as long as told.
+     */
+    private static class ToggledItemAnimator extends DefaultItemAnimator {
+
+        boolean mRunning;
+
+        @Override
+        public boolean isRunning() {
+            return mRunning || super.isRunning();
+        }
+    }
+
+    /**
+     * Adapter of plain tiles of fixed height.
+     */
+    private static class TileAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+        private final int mItemCount;
+
+        TileAdapter(int itemCount) {
+            mItemCount = itemCount;
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            View view = new View(parent.getContext());
+            view.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, TILE_HEIGHT));
+            return new RecyclerView.ViewHolder(view) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        }
+
+        @Override
+        public int getItemCount() {
+            return mItemCount;
+        }
+    }
+}
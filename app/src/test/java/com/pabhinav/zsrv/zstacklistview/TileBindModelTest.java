@@ -0,0 +1,98 @@
+package com.pabhinav.zsrv.zstacklistview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link TileBindModel}.
+ */
+public class TileBindModelTest {
+
+    private static final int FALLBACK_COLOR = 0xFF9E9E9E;
+
+    private int[] mLetterColors;
+    private LetterColorMapping mMapping;
+
+    @Before
+    public void setUp() {
+        mLetterColors = new int[LetterColorMapping.LETTER_COUNT];
+        for (int i = 0; i < mLetterColors.length; i++) {
+            mLetterColors[i] = 0xFF000000 | (i + 1);
+        }
+        mMapping = new LetterColorMapping(mLetterColors, FALLBACK_COLOR);
+    }
+
+    @Test
+    public void displayNameHasCapitalizedInitial() {
+        TileBindModel bindModel = TileBindModel.project(
+                new DataObject(1, "abhinav", "Ropar", 1000L, "content://avatars/1"), mMapping);
+
+        assertEquals("A", bindModel.namePlateLetter);
+        assertEquals(mLetterColors[0], bindModel.namePlateColor);
+        assertEquals("Abhinav", bindModel.displayName);
+        assertEquals("Ropar", bindModel.location);
+        assertEquals(1000L, bindModel.checkInTime);
+        assertEquals("content://avatars/1", bindModel.avatarUri);
+    }
+
+    @Test
+    public void surrogatePairInitialIsKeptWhole() {
+        TileBindModel bindModel = TileBindModel.project(new DataObject(1, "\uD83D\uDE00 Smiley", "", 0), mMapping);
+
+        assertEquals("\uD83D\uDE00", bindModel.namePlateLetter);
+        assertEquals("\uD83D\uDE00 Smiley", bindModel.displayName);
+        assertEquals(mMapping.colorForCodePoint(0x1F600), bindModel.namePlateColor);
+    }
+
+    @Test
+    public void nullFieldsAreTolerated() {
+        TileBindModel bindModel = TileBindModel.project(new DataObject(1, null, null, 0), mMapping);
+
+        assertEquals("", bindModel.namePlateLetter);
+        assertEquals("", bindModel.displayName);
+        assertEquals(FALLBACK_COLOR, bindModel.namePlateColor);
+        assertNull(bindModel.location);
+        assertNull(bindModel.avatarUri);
+    }
+
+    @Test
+    public void projectionIsCachedPerMapping() {
+        DataObject dataObject = new DataObject(1, "zoe", "", 0);
+        TileBindModel bindModel = TileBindModel.of(dataObject, mMapping);
+
+        assertSame(bindModel, TileBindModel.of(dataObject, mMapping));
+
+        LetterColorMapping otherMapping = new LetterColorMapping(new int[LetterColorMapping.LETTER_COUNT], FALLBACK_COLOR);
+        TileBindModel remapped = TileBindModel.of(dataObject, otherMapping);
+        assertNotSame(bindModel, remapped);
+        assertEquals(0, remapped.namePlateColor);
+    }
+
+    @Test
+    public void projectAllSkipsPlaceholders() {
+        DataObject first = new DataObject(1, "ann", "", 0);
+        DataObject second = new DataObject(2, "bob", "", 0);
+
+        TileBindModel.projectAll(new DataObject[] {null, first, null, second}, mMapping);
+        assertEquals("Ann", first.mBindModel.displayName);
+        assertEquals("Bob", second.mBindModel.displayName);
+
+        DataObject third = new DataObject(3, "cyd", "", 0);
+        TileBindModel.projectAll(Arrays.asList(third, null), mMapping);
+        assertEquals("Cyd", third.mBindModel.displayName);
+    }
+
+    @Test
+    public void placeholderHasFallbackColorAndNoTime() {
+        TileBindModel placeholder = TileBindModel.placeholder(mMapping);
+
+        assertEquals("", placeholder.namePlateLetter);
+        assertEquals("", placeholder.displayName);
+        assertEquals(FALLBACK_COLOR, placeholder.namePlateColor);
+        assertEquals(RelativeTimeFormatter.NO_TIME, placeholder.checkInTime);
+    }
+}
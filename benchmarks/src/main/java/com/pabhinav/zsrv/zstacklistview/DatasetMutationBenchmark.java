@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Data set mutations done by the adapter's addItem and deleteItem (minus the
+ * RecyclerView notification), and the diff computed by submitList after a
+ * few of them.
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DatasetMutationBenchmark {
+
+    @Param({"20", "1000", "100000"})
+    public int size;
+
+    private ArrayList<DataObject> mDataset;
+    private List<DataObject> mEditedDataset;
+    private DataObject mDataObject;
+
+    @Setup
+    public void setUp() {
+        mDataset = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            mDataset.add(new DataObject(i, DummyData.dummyNameAt(i), DummyData.dummyLocationAt(i),
+                    DummyData.dummyCheckInTimeAt(i)));
+        }
+        mDataObject = new DataObject("Abhinav", "India", System.currentTimeMillis());
+
+        /** A refreshed feed : one row inserted at the top, one removed in the middle, one edited near the end **/
+        mEditedDataset = new ArrayList<>(mDataset);
+        mEditedDataset.add(0, mDataObject);
+        mEditedDataset.remove(mEditedDataset.size() / 2);
+        int edited = mEditedDataset.size() - 2;
+        DataObject old = mEditedDataset.get(edited);
+        mEditedDataset.set(edited, new DataObject.Builder(old).setCheckInTime(System.currentTimeMillis()).build());
+    }
+
+    @Benchmark
+    public int addAndDeleteAtTop() {
+        mDataset.add(0, mDataObject);
+        mDataset.remove(0);
+        return mDataset.size();
+    }
+
+    @Benchmark
+    public int addAndDeleteInMiddle() {
+        int index = mDataset.size() / 2;
+        mDataset.add(index, mDataObject);
+        mDataset.remove(index);
+        return mDataset.size();
+    }
+
+    @Benchmark
+    public int diffAfterEdits() {
+        return ListDiffer.calculateDiff(mDataset, mEditedDataset, DataObject.ITEM_CALLBACK).getUpdateCount();
+    }
+}
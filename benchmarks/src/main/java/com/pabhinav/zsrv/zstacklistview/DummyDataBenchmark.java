@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generation of dummy rows at scale : the counter based generation done by
+ * MainActivity, the position based one done by the paged source, the columnar
+ * one, and the background projection of the generated rows.
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DummyDataBenchmark {
+
+    @Param({"20", "10000", "100000"})
+    public int rowCount;
+
+    private LetterColorMapping mLetterColorMapping;
+
+    @Setup
+    public void setUp() {
+        mLetterColorMapping = new LetterColorMapping(LetterColorMappingBenchmark.LETTER_COLORS,
+                LetterColorMappingBenchmark.FALLBACK_COLOR);
+    }
+
+    @Benchmark
+    public ArrayList<DataObject> generateWithCounters() {
+        DummyData.resetAllCounters();
+        ArrayList<DataObject> dataObjects = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            dataObjects.add(new DataObject(DummyData.dummyName(), DummyData.dummyLocation(), DummyData.dummyCheckInTime()));
+        }
+        return dataObjects;
+    }
+
+    @Benchmark
+    public ArrayList<DataObject> generateAtPositions() {
+        ArrayList<DataObject> dataObjects = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            dataObjects.add(new DataObject(DummyData.dummyNameAt(i), DummyData.dummyLocationAt(i), DummyData.dummyCheckInTimeAt(i)));
+        }
+        return dataObjects;
+    }
+
+    @Benchmark
+    public ColumnarDataStore generateColumnar() {
+        ColumnarDataStore store = new ColumnarDataStore(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            store.add(i, DummyData.dummyNameAt(i), DummyData.dummyLocationAt(i), DummyData.dummyCheckInTimeAt(i));
+        }
+        return store;
+    }
+
+    @Benchmark
+    public ArrayList<DataObject> generateAndProject() {
+        ArrayList<DataObject> dataObjects = generateAtPositions();
+        TileBindModel.projectAll(dataObjects, mLetterColorMapping);
+        return dataObjects;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Name plate initial extraction and color lookup, as done for every bound row.
+ * Names mix ascii, accented, non latin and surrogate pair initials.
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LetterColorMappingBenchmark {
+
+    /** Letter colors, one per letter, values do not matter **/
+    static final int[] LETTER_COLORS = new int[LetterColorMapping.LETTER_COUNT];
+    static {
+        for (int i = 0; i < LETTER_COLORS.length; i++) {
+            LETTER_COLORS[i] = 0xFF000000 | (i * 0x0A0B0C);
+        }
+    }
+    static final int FALLBACK_COLOR = 0xFF9E9E9E;
+
+    /** Escaped, so that the source is ascii : accented latin, cyrillic, chinese, grinning face emoji **/
+    private static final String[] NAMES = {
+            "abhinav", "Zoe", "\u00E9mile", "\u00D8rjan", "\u0414\u043C\u0438\u0442\u0440\u0438\u0439", "\u674E\u96F7", "\uD83D\uDE00 smiley", "", " space", "9lives"
+    };
+
+    private LetterColorMapping mLetterColorMapping;
+    private int mIndex;
+
+    @Setup
+    public void setUp() {
+        mLetterColorMapping = new LetterColorMapping(LETTER_COLORS, FALLBACK_COLOR);
+    }
+
+    private String nextName() {
+        mIndex = (mIndex + 1) % NAMES.length;
+        return NAMES[mIndex];
+    }
+
+    @Benchmark
+    public int initialCodePoint() {
+        return LetterColorMapping.namePlateCodePoint(nextName());
+    }
+
+    @Benchmark
+    public void initialAndColor(Blackhole blackhole) {
+        int codePoint = LetterColorMapping.namePlateCodePoint(nextName());
+        blackhole.consume(LetterColorMapping.namePlateLetter(codePoint));
+        blackhole.consume(mLetterColorMapping.colorForCodePoint(codePoint));
+    }
+
+    @Benchmark
+    public int colorForName() {
+        return mLetterColorMapping.colorForName(nextName());
+    }
+}
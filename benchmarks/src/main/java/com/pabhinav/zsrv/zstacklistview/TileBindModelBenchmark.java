@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2016 Abhinav Puri
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pabhinav.zsrv.zstacklistview;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Display string preparation of a row, i.e. what used to run in
+ * onBindViewHolder : a full projection (row seen for the first time)
+ * against a cached one (row bound again), and the time passed label
+ * looked up at every bind.
+ *
+ * @author pabhinav (pabhinav@iitrpr.ac.in)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TileBindModelBenchmark {
+
+    private static final int ROW_COUNT = 1024;
+
+    private LetterColorMapping mLetterColorMapping;
+    private DataObject[] mDataObjects;
+    private int mIndex;
+
+    @Setup
+    public void setUp() {
+        mLetterColorMapping = new LetterColorMapping(LetterColorMappingBenchmark.LETTER_COLORS,
+                LetterColorMappingBenchmark.FALLBACK_COLOR);
+        mDataObjects = new DataObject[ROW_COUNT];
+        for (int i = 0; i < ROW_COUNT; i++) {
+            mDataObjects[i] = new DataObject(DummyData.dummyNameAt(i), DummyData.dummyLocationAt(i), DummyData.dummyCheckInTimeAt(i));
+        }
+        TileBindModel.projectAll(mDataObjects, mLetterColorMapping);
+    }
+
+    private DataObject nextDataObject() {
+        mIndex = (mIndex + 1) & (ROW_COUNT - 1);
+        return mDataObjects[mIndex];
+    }
+
+    @Benchmark
+    public TileBindModel project() {
+        return TileBindModel.project(nextDataObject(), mLetterColorMapping);
+    }
+
+    @Benchmark
+    public TileBindModel cached() {
+        return TileBindModel.of(nextDataObject(), mLetterColorMapping);
+    }
+
+    @Benchmark
+    public String timePassed() {
+        return TileBindModel.of(nextDataObject(), mLetterColorMapping).timePassed(System.currentTimeMillis());
+    }
+}